@@ -253,6 +253,15 @@ public class AbstractGameEventListener implements GameEventListener {
 		}
 	}
 	
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#operationEnded()
+	 */
+	public void operationEnded() {
+		if (log.isLoggable(Level.FINEST)) {
+			log.log(Level.FINEST, "operationEnded()");
+		}
+	}
+	
 	/**
 	 * Writes out the elements of a collection nicely.
 	 * 
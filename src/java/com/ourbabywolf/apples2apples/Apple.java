@@ -5,6 +5,8 @@
  */
 package com.ourbabywolf.apples2apples;
 
+import java.util.Locale;
+
 /**
  * Represents an abstract apple in the Apples2Apples game.
  *
@@ -15,12 +17,31 @@ public abstract class Apple {
     /** The primary word on the apple. */
     private final String word;
     
+    /** The word normalized for case-insensitive comparison, computed once. */
+    private final String key;
+    
+    /** The hash of the key, computed once. */
+    private final int hash;
+    
     /** Creates a new instance of apple with the given word */
     protected Apple(String word) {
     	if (word == null || "".equals(word.trim())) {
     		throw new IllegalArgumentException("Invalid word.");
     	}
     	this.word = word.trim();
+    	this.key = normalize(this.word);
+    	this.hash = key.hashCode();
+    }
+    
+    /**
+     * Returns the form of the word that apples are compared and hashed by,
+     * so that words differing only in case match.
+     * 
+     * @param word
+     * @return
+     */
+    static String normalize(String word) {
+    	return word.trim().toUpperCase(Locale.ENGLISH);
     }
     
     /** Returns the word. */
@@ -33,7 +54,27 @@ public abstract class Apple {
 	 */
 	@Override
 	public int hashCode() {
-		return word == null ? Apple.class.hashCode() : word.toUpperCase().hashCode();
+		return hash;
+	}
+	
+	/**
+	 * Returns the normalized word.
+	 * 
+	 * @return
+	 */
+	String getKey() {
+		return key;
+	}
+	
+	/**
+	 * Indicates if the other apple has the same word, ignoring case.  Only
+	 * the precomputed hashes and keys are compared, so nothing is allocated.
+	 * 
+	 * @param other
+	 * @return
+	 */
+	boolean hasSameWord(Apple other) {
+		return hash == other.hash && key.equals(other.key);
 	}
 
 }
@@ -0,0 +1,534 @@
+/*
+ * AsyncGameEventListener.java - created Oct 18, 2026 12:40:55 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Decorates a GameEventListener so that its events are delivered on an
+ * Executor instead of in the middle of the Game's state changes.  A listener
+ * that does network I/O, such as messaging the players, then no longer slows
+ * down <code>play</code>, <code>judge</code>, etc.
+ * <p>
+ * Each instance should decorate the listener of a single game.  The events
+ * are held in a bounded queue and delivered one at a time, in the order they
+ * were fired, though the executor may be shared by many games.  What happens
+ * when the queue is full depends on the BackpressurePolicy.
+ * <p>
+ * Collections passed to the events are copied when the event is fired, but
+ * the Players and Apples are not, so by the time an event is delivered a
+ * player's state may have moved on.
+ * <p>
+ * The end of each operation is queued along with the events, so a decorated
+ * listener that batches by operation sees the same batches it would have
+ * without the decoration, unless the queue overflows.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class AsyncGameEventListener implements GameEventListener {
+
+	/** The logger. */
+	private final Logger log = Logger.getLogger(AsyncGameEventListener.class.getName());
+
+	/**
+	 * What to do with a fired event when the queue is full.
+	 */
+	public enum BackpressurePolicy {
+		/** Make the game wait until there is room in the queue. */
+		BLOCK,
+		/** Throw away the event being fired. */
+		DISCARD_NEWEST,
+		/** Throw away the oldest queued event to make room. */
+		DISCARD_OLDEST
+	}
+
+	/** The decorated listener. */
+	private final GameEventListener delegate;
+
+	/** Runs the draining of the queue. */
+	private final Executor executor;
+
+	/** What to do when the queue is full. */
+	private final BackpressurePolicy policy;
+
+	/** The events waiting to be delivered. */
+	private final BlockingQueue<Runnable> queue;
+
+	/** Indicates that a drain of the queue is scheduled or running. */
+	private final AtomicBoolean draining = new AtomicBoolean(false);
+
+	/** The most events that have been waiting at once. */
+	private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+	/** The number of events delivered to the decorated listener. */
+	private final AtomicLong eventsDelivered = new AtomicLong();
+
+	/** The number of events thrown away because the queue was full or the executor rejected them. */
+	private final AtomicLong eventsDiscarded = new AtomicLong();
+
+	/** Passes on the end of an operation; not counted as an event. */
+	private final Runnable operationEnder = new Runnable() {
+		public void run() {
+			delegate.operationEnded();
+		}
+	};
+
+	/** Delivers the queued events until the queue is empty. */
+	private final Runnable drainer = new Runnable() {
+		public void run() {
+			drain();
+		}
+	};
+
+	/**
+	 * Creates a new AsyncGameEventListener.
+	 *
+	 * @param delegate - the listener to deliver the events to
+	 * @param executor - runs the delivery of the events
+	 * @param capacity - the maximum number of events waiting to be delivered
+	 * @param policy - what to do when the queue is full.  Avoid BLOCK if the
+	 * 		executor could run the delivery on the game's own thread.
+	 */
+	public AsyncGameEventListener(GameEventListener delegate, Executor executor,
+			int capacity, BackpressurePolicy policy) {
+		if (delegate == null) {
+			throw new IllegalArgumentException("GameEventListener cannot be null.");
+		} else if (executor == null) {
+			throw new IllegalArgumentException("Executor cannot be null.");
+		} else if (policy == null) {
+			throw new IllegalArgumentException("BackpressurePolicy cannot be null.");
+		}
+		this.delegate = delegate;
+		this.executor = executor;
+		this.policy = policy;
+		this.queue = new ArrayBlockingQueue<Runnable>(capacity);
+	}
+
+	/**
+	 * Returns the number of events waiting to be delivered.
+	 *
+	 * @return
+	 */
+	public int getQueueDepth() {
+		return queue.size();
+	}
+
+	/**
+	 * Returns the most events that have been waiting to be delivered at once.
+	 *
+	 * @return
+	 */
+	public int getMaxQueueDepth() {
+		return maxQueueDepth.get();
+	}
+
+	/**
+	 * Returns the number of events delivered to the decorated listener.
+	 *
+	 * @return
+	 */
+	public long getEventsDelivered() {
+		return eventsDelivered.get();
+	}
+
+	/**
+	 * Returns the number of events thrown away because the queue was full
+	 * or the executor rejected their delivery.
+	 *
+	 * @return
+	 */
+	public long getEventsDiscarded() {
+		return eventsDiscarded.get();
+	}
+
+	/**
+	 * Queues the event according to the backpressure policy and makes sure
+	 * a drain is scheduled.
+	 *
+	 * @param event
+	 */
+	private void enqueue(Runnable event) {
+		switch (policy) {
+		case BLOCK:
+			try {
+				queue.put(event);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				eventsDiscarded.incrementAndGet();
+				return;
+			}
+			break;
+		case DISCARD_NEWEST:
+			if (!queue.offer(event)) {
+				eventsDiscarded.incrementAndGet();
+				return;
+			}
+			break;
+		case DISCARD_OLDEST:
+			while (!queue.offer(event)) {
+				if (queue.poll() != null) {
+					eventsDiscarded.incrementAndGet();
+				}
+			}
+			break;
+		}
+		int depth = queue.size();
+		for (int max = maxQueueDepth.get(); depth > max; max = maxQueueDepth.get()) {
+			if (maxQueueDepth.compareAndSet(max, depth)) {
+				break;
+			}
+		}
+		scheduleDrain();
+	}
+
+	/**
+	 * Schedules a drain of the queue unless one is already scheduled or
+	 * running.  If the executor rejects the drain, e.g. because it has been
+	 * shut down, the queued events can't be delivered, so they're thrown
+	 * away and counted as discarded; the next event tries again.
+	 */
+	private void scheduleDrain() {
+		if (draining.compareAndSet(false, true)) {
+			try {
+				executor.execute(drainer);
+			} catch (RejectedExecutionException e) {
+				int discarded = 0;
+				while (queue.poll() != null) {
+					++discarded;
+				}
+				eventsDiscarded.addAndGet(discarded);
+				draining.set(false);
+				log.log(Level.WARNING, "Executor rejected delivery; discarded " 
+						+ discarded + " events.", e);
+			}
+		}
+	}
+
+	/**
+	 * Delivers the queued events one at a time.
+	 */
+	private void drain() {
+		Runnable event;
+		while ((event = queue.poll()) != null) {
+			try {
+				event.run();
+				if (event != operationEnder) {
+					eventsDelivered.incrementAndGet();
+				}
+			} catch (RuntimeException e) {
+				log.log(Level.SEVERE, "GameEventListener failed to handle event.", e);
+			}
+		}
+		draining.set(false);
+		/* An event may have been queued after the last poll but before the flag was cleared. */
+		if (!queue.isEmpty()) {
+			scheduleDrain();
+		}
+	}
+
+	/**
+	 * Copies the collection so the event doesn't see later changes to it.
+	 *
+	 * @param c
+	 * @return
+	 */
+	private static <T> Collection<T> copy(Collection<T> c) {
+		return c == null ? null : Collections.unmodifiableList(new ArrayList<T>(c));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#applePlayed(com.ourbabywolf.apples2apples.Player, com.ourbabywolf.apples2apples.RedApple)
+	 */
+	public void applePlayed(final Player player, final RedApple applePlayed) {
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.applePlayed(player, applePlayed);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#gameTerminated()
+	 */
+	public void gameTerminated() {
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.gameTerminated();
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#gameWon(com.ourbabywolf.apples2apples.Player)
+	 */
+	public void gameWon(final Player gameWinner) {
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.gameWon(gameWinner);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#gameWonByMultiplePlayers(java.util.Collection)
+	 */
+	public void gameWonByMultiplePlayers(Collection<Player> gameWinners) {
+		final Collection<Player> winners = copy(gameWinners);
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.gameWonByMultiplePlayers(winners);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#greenAppleDeckExhausted()
+	 */
+	public void greenAppleDeckExhausted() {
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.greenAppleDeckExhausted();
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#greenApplePlayed(com.ourbabywolf.apples2apples.GreenApple)
+	 */
+	public void greenApplePlayed(final GreenApple greenApple) {
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.greenApplePlayed(greenApple);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#judgeChanged(com.ourbabywolf.apples2apples.Player)
+	 */
+	public void judgeChanged(final Player newJudge) {
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.judgeChanged(newJudge);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#maximumNbrOfPlayersJoinedGame(java.util.Collection)
+	 */
+	public void maximumNbrOfPlayersJoinedGame(Collection<Player> players) {
+		final Collection<Player> copy = copy(players);
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.maximumNbrOfPlayersJoinedGame(copy);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#minimumNbrOfPlayersJoinedGame(java.util.Collection)
+	 */
+	public void minimumNbrOfPlayersJoinedGame(Collection<Player> players) {
+		final Collection<Player> copy = copy(players);
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.minimumNbrOfPlayersJoinedGame(copy);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#notEnoughPlayersToPlayGame(java.util.Collection)
+	 */
+	public void notEnoughPlayersToPlayGame(Collection<Player> players) {
+		final Collection<Player> copy = copy(players);
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.notEnoughPlayersToPlayGame(copy);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#playResumed(com.ourbabywolf.apples2apples.Player)
+	 */
+	public void playResumed(final Player player) {
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.playResumed(player);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#playSuspended(com.ourbabywolf.apples2apples.Player)
+	 */
+	public void playSuspended(final Player player) {
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.playSuspended(player);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#playerActivated(com.ourbabywolf.apples2apples.Player)
+	 */
+	public void playerActivated(final Player player) {
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.playerActivated(player);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#playerInactivated(com.ourbabywolf.apples2apples.Player)
+	 */
+	public void playerInactivated(final Player player) {
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.playerInactivated(player);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#playerJoinedGame(com.ourbabywolf.apples2apples.Player)
+	 */
+	public void playerJoinedGame(final Player player) {
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.playerJoinedGame(player);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#playerLeftGame(com.ourbabywolf.apples2apples.Player)
+	 */
+	public void playerLeftGame(final Player player) {
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.playerLeftGame(player);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#playerNickChanged(com.ourbabywolf.apples2apples.Player, java.lang.String)
+	 */
+	public void playerNickChanged(final Player player, final String oldNick) {
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.playerNickChanged(player, oldNick);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#pointsNeededToWinChanged(int, int)
+	 */
+	public void pointsNeededToWinChanged(final int newPointsNeededToWin,
+			final int oldPointsNeededToWin) {
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.pointsNeededToWinChanged(newPointsNeededToWin, oldPointsNeededToWin);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#readyToJudge(com.ourbabywolf.apples2apples.Player, java.util.Collection)
+	 */
+	public void readyToJudge(final Player judge, Collection<RedApple> cards) {
+		final Collection<RedApple> copy = copy(cards);
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.readyToJudge(judge, copy);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#redAppleDealt(com.ourbabywolf.apples2apples.Player, com.ourbabywolf.apples2apples.RedApple)
+	 */
+	public void redAppleDealt(final Player player, final RedApple dealtApple) {
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.redAppleDealt(player, dealtApple);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#redAppleDeckExhausted()
+	 */
+	public void redAppleDeckExhausted() {
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.redAppleDeckExhausted();
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#roundStarted(com.ourbabywolf.apples2apples.GreenApple, com.ourbabywolf.apples2apples.Player)
+	 */
+	public void roundStarted(final GreenApple apple, final Player roundJudge) {
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.roundStarted(apple, roundJudge);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#roundWon(com.ourbabywolf.apples2apples.Player, com.ourbabywolf.apples2apples.Player, com.ourbabywolf.apples2apples.RedApple, com.ourbabywolf.apples2apples.GreenApple)
+	 */
+	public void roundWon(final Player judge, final Player roundWinner,
+			final RedApple winningApple, final GreenApple pointWon) {
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.roundWon(judge, roundWinner, winningApple, pointWon);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#roundWonByMultiplePlayers(com.ourbabywolf.apples2apples.Player, java.util.Collection, com.ourbabywolf.apples2apples.RedApple, com.ourbabywolf.apples2apples.GreenApple)
+	 */
+	public void roundWonByMultiplePlayers(final Player judge,
+			Collection<Player> roundWinners, final RedApple winningApple,
+			final GreenApple pointWon) {
+		final Collection<Player> winners = copy(roundWinners);
+		enqueue(new Runnable() {
+			public void run() {
+				delegate.roundWonByMultiplePlayers(judge, winners, winningApple, pointWon);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#operationEnded()
+	 */
+	public void operationEnded() {
+		enqueue(operationEnder);
+	}
+
+}
@@ -0,0 +1,30 @@
+/*
+ * BatchGameEventListener.java - created Oct 18, 2026 1:21:07 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples;
+
+import java.util.EventListener;
+import java.util.List;
+
+/**
+ * Receives a game's events in batches, one batch per public Game operation,
+ * e.g. every card dealt by <code>startRound</code> arrives in the same list.
+ * Games deliver batches to this listener when their GameEventListener is a
+ * BatchingGameEventListener.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ * @see BatchingGameEventListener
+ */
+public interface BatchGameEventListener extends EventListener {
+
+	/**
+	 * Called with the events fired by a single operation, in the order they
+	 * were fired.  Operations that fire no events don't produce a batch.
+	 *
+	 * @param events - the events, which the listener may keep
+	 */
+	public void eventsFired(List<GameEvent> events);
+
+}
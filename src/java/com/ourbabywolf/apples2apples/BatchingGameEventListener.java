@@ -0,0 +1,276 @@
+/*
+ * BatchingGameEventListener.java - created Oct 18, 2026 1:26:44 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import com.ourbabywolf.apples2apples.GameEvent.Type;
+
+/**
+ * Records the callbacks it receives as GameEvents and hands them to a
+ * BatchGameEventListener when flushed.  It flushes itself when told the
+ * game's operation has ended, so each operation's events arrive as a single
+ * batch, even when it's wrapped by another listener, such as an
+ * AsyncGameEventListener, that passes that callback on.  It is not safe for
+ * use by multiple threads, but it needn't be called on the game's thread.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class BatchingGameEventListener implements GameEventListener {
+
+	/** Receives the batches. */
+	private final BatchGameEventListener batchListener;
+
+	/** The events recorded since the last flush. */
+	private List<GameEvent> events = new ArrayList<GameEvent>();
+
+	/**
+	 * Creates a new BatchingGameEventListener.
+	 *
+	 * @param batchListener
+	 */
+	public BatchingGameEventListener(BatchGameEventListener batchListener) {
+		if (batchListener == null) {
+			throw new IllegalArgumentException("BatchGameEventListener cannot be null.");
+		}
+		this.batchListener = batchListener;
+	}
+
+	/**
+	 * Hands the events recorded since the last flush to the batch listener,
+	 * if there are any.  Events fired while the batch listener is handling
+	 * the batch go into the next batch.
+	 */
+	public void flush() {
+		if (!events.isEmpty()) {
+			List<GameEvent> batch = events;
+			events = new ArrayList<GameEvent>();
+			batchListener.eventsFired(batch);
+		}
+	}
+
+	/**
+	 * Returns the number of events recorded since the last flush.
+	 *
+	 * @return
+	 */
+	public int getPendingEvents() {
+		return events.size();
+	}
+
+	/**
+	 * Records an event that involves no collections or points.
+	 *
+	 * @param type
+	 * @param player
+	 * @param judge
+	 * @param redApple
+	 * @param greenApple
+	 */
+	private void record(Type type, Player player, Player judge,
+			RedApple redApple, GreenApple greenApple) {
+		events.add(new GameEvent(type, player, judge, null, redApple,
+				greenApple, null, null, 0, 0));
+	}
+
+	/**
+	 * Records an event about a collection of players.
+	 *
+	 * @param type
+	 * @param players
+	 */
+	private void record(Type type, Collection<Player> players) {
+		events.add(new GameEvent(type, null, null, players, null, null, null,
+				null, 0, 0));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#applePlayed(com.ourbabywolf.apples2apples.Player, com.ourbabywolf.apples2apples.RedApple)
+	 */
+	public void applePlayed(Player player, RedApple applePlayed) {
+		record(Type.APPLE_PLAYED, player, null, applePlayed, null);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#gameTerminated()
+	 */
+	public void gameTerminated() {
+		record(Type.GAME_TERMINATED, null, null, null, null);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#gameWon(com.ourbabywolf.apples2apples.Player)
+	 */
+	public void gameWon(Player gameWinner) {
+		record(Type.GAME_WON, gameWinner, null, null, null);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#gameWonByMultiplePlayers(java.util.Collection)
+	 */
+	public void gameWonByMultiplePlayers(Collection<Player> gameWinners) {
+		record(Type.GAME_WON_BY_MULTIPLE_PLAYERS, gameWinners);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#greenAppleDeckExhausted()
+	 */
+	public void greenAppleDeckExhausted() {
+		record(Type.GREEN_APPLE_DECK_EXHAUSTED, null, null, null, null);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#greenApplePlayed(com.ourbabywolf.apples2apples.GreenApple)
+	 */
+	public void greenApplePlayed(GreenApple greenApple) {
+		record(Type.GREEN_APPLE_PLAYED, null, null, null, greenApple);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#judgeChanged(com.ourbabywolf.apples2apples.Player)
+	 */
+	public void judgeChanged(Player newJudge) {
+		record(Type.JUDGE_CHANGED, null, newJudge, null, null);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#maximumNbrOfPlayersJoinedGame(java.util.Collection)
+	 */
+	public void maximumNbrOfPlayersJoinedGame(Collection<Player> players) {
+		record(Type.MAXIMUM_NBR_OF_PLAYERS_JOINED, players);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#minimumNbrOfPlayersJoinedGame(java.util.Collection)
+	 */
+	public void minimumNbrOfPlayersJoinedGame(Collection<Player> players) {
+		record(Type.MINIMUM_NBR_OF_PLAYERS_JOINED, players);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#notEnoughPlayersToPlayGame(java.util.Collection)
+	 */
+	public void notEnoughPlayersToPlayGame(Collection<Player> players) {
+		record(Type.NOT_ENOUGH_PLAYERS, players);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#playResumed(com.ourbabywolf.apples2apples.Player)
+	 */
+	public void playResumed(Player player) {
+		record(Type.PLAY_RESUMED, player, null, null, null);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#playSuspended(com.ourbabywolf.apples2apples.Player)
+	 */
+	public void playSuspended(Player player) {
+		record(Type.PLAY_SUSPENDED, player, null, null, null);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#playerActivated(com.ourbabywolf.apples2apples.Player)
+	 */
+	public void playerActivated(Player player) {
+		record(Type.PLAYER_ACTIVATED, player, null, null, null);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#playerInactivated(com.ourbabywolf.apples2apples.Player)
+	 */
+	public void playerInactivated(Player player) {
+		record(Type.PLAYER_INACTIVATED, player, null, null, null);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#playerJoinedGame(com.ourbabywolf.apples2apples.Player)
+	 */
+	public void playerJoinedGame(Player player) {
+		record(Type.PLAYER_JOINED, player, null, null, null);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#playerLeftGame(com.ourbabywolf.apples2apples.Player)
+	 */
+	public void playerLeftGame(Player player) {
+		record(Type.PLAYER_LEFT, player, null, null, null);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#playerNickChanged(com.ourbabywolf.apples2apples.Player, java.lang.String)
+	 */
+	public void playerNickChanged(Player player, String oldNick) {
+		events.add(new GameEvent(Type.PLAYER_NICK_CHANGED, player, null, null,
+				null, null, null, oldNick, 0, 0));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#pointsNeededToWinChanged(int, int)
+	 */
+	public void pointsNeededToWinChanged(int newPointsNeededToWin,
+			int oldPointsNeededToWin) {
+		events.add(new GameEvent(Type.POINTS_NEEDED_TO_WIN_CHANGED, null, null,
+				null, null, null, null, null, newPointsNeededToWin,
+				oldPointsNeededToWin));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#readyToJudge(com.ourbabywolf.apples2apples.Player, java.util.Collection)
+	 */
+	public void readyToJudge(Player judge, Collection<RedApple> cards) {
+		events.add(new GameEvent(Type.READY_TO_JUDGE, null, judge, null, null,
+				null, cards, null, 0, 0));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#redAppleDealt(com.ourbabywolf.apples2apples.Player, com.ourbabywolf.apples2apples.RedApple)
+	 */
+	public void redAppleDealt(Player player, RedApple dealtApple) {
+		record(Type.RED_APPLE_DEALT, player, null, dealtApple, null);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#redAppleDeckExhausted()
+	 */
+	public void redAppleDeckExhausted() {
+		record(Type.RED_APPLE_DECK_EXHAUSTED, null, null, null, null);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#roundStarted(com.ourbabywolf.apples2apples.GreenApple, com.ourbabywolf.apples2apples.Player)
+	 */
+	public void roundStarted(GreenApple apple, Player roundJudge) {
+		record(Type.ROUND_STARTED, null, roundJudge, null, apple);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#roundWon(com.ourbabywolf.apples2apples.Player, com.ourbabywolf.apples2apples.Player, com.ourbabywolf.apples2apples.RedApple, com.ourbabywolf.apples2apples.GreenApple)
+	 */
+	public void roundWon(Player judge, Player roundWinner,
+			RedApple winningApple, GreenApple pointWon) {
+		record(Type.ROUND_WON, roundWinner, judge, winningApple, pointWon);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#roundWonByMultiplePlayers(com.ourbabywolf.apples2apples.Player, java.util.Collection, com.ourbabywolf.apples2apples.RedApple, com.ourbabywolf.apples2apples.GreenApple)
+	 */
+	public void roundWonByMultiplePlayers(Player judge,
+			Collection<Player> roundWinners, RedApple winningApple,
+			GreenApple pointWon) {
+		events.add(new GameEvent(Type.ROUND_WON_BY_MULTIPLE_PLAYERS, null,
+				judge, roundWinners, winningApple, pointWon, null, null, 0, 0));
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.GameEventListener#operationEnded()
+	 */
+	public void operationEnded() {
+		flush();
+	}
+
+}
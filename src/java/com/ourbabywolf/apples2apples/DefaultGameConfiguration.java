@@ -94,4 +94,12 @@ public class DefaultGameConfiguration implements GameConfiguration {
 		return true;
 	}
 
+	/**
+	 * Returns 0, keeping every point, since a game always has a winner.
+	 * @see com.ourbabywolf.apples2apples.GameConfiguration#getPointHistoryLimit()
+	 */
+	public int getPointHistoryLimit() {
+		return 0;
+	}
+
 }
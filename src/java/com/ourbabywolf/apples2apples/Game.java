@@ -9,14 +9,18 @@
 
 package com.ourbabywolf.apples2apples;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.logging.Logger;
 
@@ -46,7 +50,7 @@ public class Game {
 	 *  The game can be terminated at any time, however, so it's possible
 	 *  to move from any non-GAME_OVER state to the GAME_OVER state.
 	 */
-	private enum GamePhase {
+	public enum GamePhase {
 		/** Gathering players. */
 		INIT, 
 		/** Players can play their RedApples. */
@@ -88,10 +92,22 @@ public class Game {
 	/** Holds game configuration settings. */
 	private final GameConfiguration config;
 
-	/** This gets notified of game events. */
-	private final GameEventListener eventListener;
+	/** Stands in for the listener while events are suppressed. */
+	private static final GameEventListener SILENT_LISTENER = new BaseGameEventListener();
 
-	/** The players in the game. */
+	/** The listener the game was created with. */
+	private final GameEventListener listener;
+
+	/** This gets notified of game events: the listener, unless they're suppressed. */
+	private GameEventListener eventListener;
+
+	/** How deeply nested the public operations currently executing are. */
+	private int operationDepth = 0;
+
+	/** Receives the outermost public operations, or null. */
+	private GameRecorder recorder = null;
+
+	/** The players in the game, in the order they joined. */
 	private final Set<Player> players;
 	
 	/** The winners of the game (will be empty until game is won). */
@@ -103,6 +119,30 @@ public class Game {
 	/** The list of nicknames that are in use for this game. */
 	private final Set<String> nicks;
 
+	/** Indexes the players by their ids. */
+	private final Map<String, Player> playersById;
+
+	/** Indexes the players by their nicknames. */
+	private final Map<String, Player> playersByNick;
+
+	/** The players that are currently active. */
+	private final Set<Player> activePlayers;
+
+	/** Read-only view of the active players. */
+	private final Set<Player> activePlayersView;
+
+	/** 
+	 * The active players who still owe a RedApple this round, i.e. those who
+	 * are able to play, are not the judge, and have not played yet.
+	 */
+	private final Set<Player> activePlayersYetToPlay;
+
+	/** Read-only view of the active players who have yet to play. */
+	private final Set<Player> activePlayersYetToPlayView;
+
+	/** Tracks the players' points. */
+	private final Leaderboard leaderboard;
+
 	/** The number of rounds played. */
 	private int roundsPlayed = 0;
 
@@ -142,7 +182,9 @@ public class Game {
 
 	/**
 	 * Creates a new Game using the given event listener and configuration.
-	 * Decks must also be provided.
+	 * Decks must also be provided.  The listener is told when each public
+	 * operation ends, so a BatchingGameEventListener, or a listener wrapping
+	 * one, can deliver each operation's events as one batch.
 	 * 
 	 * @param eventListener
 	 * @param config
@@ -160,6 +202,7 @@ public class Game {
 			throw new IllegalArgumentException(
 					"GameEventListener cannot be null.");
 		}
+		this.listener = eventListener;
 		this.eventListener = eventListener;
 
 		if (config == null) {
@@ -181,14 +224,221 @@ public class Game {
 		this.greenApples = greenApples;
 
 		this.phase = GamePhase.INIT;
-		this.players = new HashSet<Player>(config.getMaxNbrOfPlayers());
+		this.players = new LinkedHashSet<Player>(config.getMaxNbrOfPlayers());
 		this.winners = new HashSet<Player>(config.getMaxNbrOfPlayers());
 		this.bannedPlayerIds = new HashSet<String>();
 		this.nicks = new HashSet<String>();
+		this.playersById = new HashMap<String, Player>(config.getMaxNbrOfPlayers());
+		this.playersByNick = new HashMap<String, Player>(config.getMaxNbrOfPlayers());
+		this.activePlayers = new HashSet<Player>(config.getMaxNbrOfPlayers());
+		this.activePlayersView = Collections.unmodifiableSet(activePlayers);
+		this.activePlayersYetToPlay = new HashSet<Player>(config.getMaxNbrOfPlayers());
+		this.activePlayersYetToPlayView = Collections.unmodifiableSet(activePlayersYetToPlay);
+		this.leaderboard = new Leaderboard();
 		this.applesToJudge = new HashMap<Player, RedApple>(config
 				.getMaxNbrOfPlayers());
 	}
 	
+	/**
+	 * Marks the start of a public operation that has no arguments.
+	 * 
+	 * @param type
+	 */
+	private void beginOperation(GameOperation.Type type) {
+		beginOperation(type, null, null, false, 0, null);
+	}
+
+	/**
+	 * Marks the start of a public operation whose argument is a player.
+	 * 
+	 * @param type
+	 * @param player
+	 */
+	private void beginOperation(GameOperation.Type type, Player player) {
+		beginOperation(type, player == null ? null : player.getId(), null, false, 0, null);
+	}
+
+	/**
+	 * Marks the start of a public operation.  Operations call one another, so
+	 * only the outermost one is considered complete when it ends, and only
+	 * the outermost one is recorded.  The operation is recorded before it's
+	 * counted, so if the recorder throws, nothing is left to end.
+	 * 
+	 * @param type
+	 * @param playerId
+	 * @param text
+	 * @param flag
+	 * @param number
+	 * @param apple
+	 */
+	private void beginOperation(GameOperation.Type type, String playerId,
+			String text, boolean flag, int number, RedApple apple) {
+		if (operationDepth == 0 && recorder != null) {
+			recorder.record(new GameOperation(type, playerId, text, flag, number, apple));
+		}
+		++operationDepth;
+	}
+
+	/**
+	 * Marks the end of a public operation, telling the listener if it was
+	 * the outermost one.
+	 */
+	private void endOperation() {
+		if (--operationDepth == 0) {
+			eventListener.operationEnded();
+		}
+	}
+
+	/**
+	 * Returns the recorder of the game's operations.
+	 * 
+	 * @return the recorder, or null if the operations aren't recorded
+	 */
+	public GameRecorder getRecorder() {
+		return recorder;
+	}
+
+	/**
+	 * Indicates if the game's events are being kept from its listener.
+	 * 
+	 * @return
+	 */
+	public boolean isEventsSuppressed() {
+		return eventListener != listener;
+	}
+
+	/**
+	 * Keeps the game's events, including the ends of its operations, from
+	 * its listener, e.g. while operations that were already delivered are
+	 * replayed.  Events fired while suppressed are lost, not delayed.
+	 * 
+	 * @param suppressed
+	 */
+	public void setEventsSuppressed(boolean suppressed) {
+		eventListener = suppressed ? SILENT_LISTENER : listener;
+	}
+
+	/**
+	 * Sets the recorder that each public operation is handed to before it's
+	 * performed.  Restoring a snapshot is not an operation and isn't
+	 * recorded.
+	 * 
+	 * @param recorder - null to stop recording
+	 */
+	public void setRecorder(GameRecorder recorder) {
+		this.recorder = recorder;
+	}
+
+	/**
+	 * Takes an immutable copy of the state of the game: its phase, players,
+	 * hands, points, judge, the apples in play and, if the decks are
+	 * RestorableDecks, the apples remaining in the decks.
+	 * 
+	 * @return
+	 */
+	public GameSnapshot snapshot() {
+		List<GameSnapshot.PlayerState> states = new ArrayList<GameSnapshot.PlayerState>(players.size());
+		for (Player p : players) {
+			states.add(new GameSnapshot.PlayerState(p.getId(), 
+					p.getNick().equals(p.getId()) ? null : p.getNick(),
+					p instanceof Cheater, p.isActive(), p.isAbleToPlay(), p.getRoundsPlayed(),
+					p.getHand(), p.getGreenApples(), p.getWinningRedApples(), 
+					p.getPoints(), p.getPointHistoryLimit()));
+		}
+		Set<String> winnerIds = new LinkedHashSet<String>(winners.size());
+		for (Player p : winners) {
+			winnerIds.add(p.getId());
+		}
+		Map<String, RedApple> played = new LinkedHashMap<String, RedApple>(applesToJudge.size());
+		for (Map.Entry<Player, RedApple> entry : applesToJudge.entrySet()) {
+			played.put(entry.getKey().getId(), entry.getValue());
+		}
+		return new GameSnapshot(phase, preSuspendedPhase, roundsPlayed, pointsNeededToWin, 
+				states, judge == null ? null : judge.getId(), winnerIds, bannedPlayerIds, 
+				greenApple, played, getRemainingApples(redApples), getRemainingApples(greenApples));
+	}
+	
+	/**
+	 * Returns the apples remaining in the deck if it's a RestorableDeck.
+	 * 
+	 * @param deck
+	 * @return the apples, or null
+	 */
+	private static <A extends Apple> List<A> getRemainingApples(Deck<A> deck) {
+		return deck instanceof RestorableDeck ? ((RestorableDeck<A>) deck).getRemainingApples() : null;
+	}
+	
+	/**
+	 * Replaces the state of the game with the snapshot's, rebuilding the
+	 * players and every index of them, including the leaderboard.  The
+	 * players are new Player instances.  If the snapshot holds the decks'
+	 * remaining apples, the decks must be RestorableDecks.  No events are
+	 * fired.
+	 * 
+	 * @param snapshot
+	 */
+	@SuppressWarnings("unchecked")
+	public void restore(GameSnapshot snapshot) {
+		if (snapshot == null) {
+			throw new IllegalArgumentException("GameSnapshot cannot be null.");
+		} else if (snapshot.getRedDeck() != null && !(redApples instanceof RestorableDeck)) {
+			throw new IllegalArgumentException("RedApples Deck cannot be restored.");
+		} else if (snapshot.getGreenDeck() != null && !(greenApples instanceof RestorableDeck)) {
+			throw new IllegalArgumentException("GreenApples Deck cannot be restored.");
+		}
+		for (Player p : players) {
+			leaderboard.remove(p);
+		}
+		players.clear();
+		winners.clear();
+		bannedPlayerIds.clear();
+		nicks.clear();
+		playersById.clear();
+		playersByNick.clear();
+		activePlayers.clear();
+		activePlayersYetToPlay.clear();
+		applesToJudge.clear();
+		
+		phase = snapshot.getPhase();
+		preSuspendedPhase = snapshot.getPreSuspendedPhase();
+		roundsPlayed = snapshot.getRoundsPlayed();
+		pointsNeededToWin = snapshot.getPointsNeededToWin();
+		greenApple = snapshot.getGreenApple();
+		for (GameSnapshot.PlayerState state : snapshot.getPlayers()) {
+			Player player = state.isCheater() 
+					? new Cheater(state.getId(), state.getNick()) 
+					: new Player(state.getId(), state.getNick());
+			player.setActive(state.isActive());
+			player.setAbleToPlay(state.isAbleToPlay());
+			player.setRoundsPlayed(state.getRoundsPlayed());
+			player.setPointHistoryLimit(state.getPointHistoryLimit());
+			player.restorePoints(state.getGreenApples(), state.getWinningRedApples(), state.getPoints());
+			for (RedApple apple : state.getHand()) {
+				player.dealApple(apple);
+			}
+			players.add(player);
+			nicks.add(player.getNick());
+			playersById.put(player.getId(), player);
+			playersByNick.put(player.getNick(), player);
+			leaderboard.add(player);
+		}
+		judge = snapshot.getJudgeId() == null ? null : playersById.get(snapshot.getJudgeId());
+		for (String id : snapshot.getWinnerIds()) {
+			winners.add(playersById.get(id));
+		}
+		bannedPlayerIds.addAll(snapshot.getBannedPlayerIds());
+		for (Map.Entry<String, RedApple> entry : snapshot.getApplesToJudge().entrySet()) {
+			applesToJudge.put(playersById.get(entry.getKey()), entry.getValue());
+		}
+		updatePlayerStatuses();
+		if (snapshot.getRedDeck() != null) {
+			((RestorableDeck<RedApple>) redApples).restoreRemainingApples(snapshot.getRedDeck());
+		}
+		if (snapshot.getGreenDeck() != null) {
+			((RestorableDeck<GreenApple>) greenApples).restoreRemainingApples(snapshot.getGreenDeck());
+		}
+	}
+
 	/**
 	 * Verifies that the GameConfiguration is OK.
 	 * 
@@ -246,10 +496,15 @@ public class Game {
 	 *            the pointsNeededToWin to set
 	 */
 	public void setPointsNeededToWin(int pointsNeededToWin) {
-		if (pointsNeededToWin != this.pointsNeededToWin) {
-			eventListener.pointsNeededToWinChanged(pointsNeededToWin,
-					this.pointsNeededToWin);
-			this.pointsNeededToWin = pointsNeededToWin;
+		beginOperation(GameOperation.Type.SET_POINTS_NEEDED_TO_WIN, null, null, false, pointsNeededToWin, null);
+		try {
+			if (pointsNeededToWin != this.pointsNeededToWin) {
+				eventListener.pointsNeededToWinChanged(pointsNeededToWin,
+						this.pointsNeededToWin);
+				this.pointsNeededToWin = pointsNeededToWin;
+			}
+		} finally {
+			endOperation();
 		}
 	}
 	
@@ -337,65 +592,74 @@ public class Game {
 	 * @return
 	 */
 	public Result join(String id, String nick, boolean canCheat) {
-		if (Player.isInvalidPlayerId(id)) {
-			return Result.ERROR_INVALID_PARAMETER;
-		} else if (isOver() || (isStarted() && !config.playersCanJoinDuringGame())) {
-			return Result.ERROR_PROHIBITED;
-		} else if (bannedPlayerIds != null && bannedPlayerIds.contains(id)) {
-			return Result.ERROR_PROHIBITED;
-		} else if (players.size() >= config.getMaxNbrOfPlayers()) {
-			return getPlayer(id) != null ? Result.NO_EFFECT :
-					Result.ERROR_PROHIBITED;
-		} else {
-			Player player = canCheat ? new Cheater(id, nick) : new Player(id, nick);
-			if (nicks.contains(player.getNick())) {
-				if (players.contains(player)) {
-					return Result.NO_EFFECT;
-				} else {
+		beginOperation(GameOperation.Type.JOIN, id, nick, canCheat, 0, null);
+		try {
+			if (Player.isInvalidPlayerId(id)) {
+				return Result.ERROR_INVALID_PARAMETER;
+			} else if (isOver() || (isStarted() && !config.playersCanJoinDuringGame())) {
+				return Result.ERROR_PROHIBITED;
+			} else if (bannedPlayerIds != null && bannedPlayerIds.contains(id)) {
+				return Result.ERROR_PROHIBITED;
+			} else if (playersById.containsKey(id)) {
+				/* Rejoining cannot be used to change the player's nick. */
+				return Result.NO_EFFECT;
+			} else if (players.size() >= config.getMaxNbrOfPlayers()) {
+				return Result.ERROR_PROHIBITED;
+			} else {
+				Player player = canCheat ? new Cheater(id, nick) : new Player(id, nick);
+				if (nicks.contains(player.getNick())) {
 					return Result.ERROR_INVALID_PARAMETER;
 				}
-			}
-			players.add(player);
-			nicks.add(player.getNick());
-			eventListener.playerJoinedGame(player);
-			if (players.size() == config.getMinNbrOfPlayers()) {
-				eventListener.minimumNbrOfPlayersJoinedGame(players);
-			} else if (players.size() == config.getMaxNbrOfPlayers()) {
-				eventListener.maximumNbrOfPlayersJoinedGame(players);
-			}
-			/* See if the additional player alters the number of points needed to win. */
-			if (!config.fixPointsNeededToWinAtStart()) {
-				int newPointsNeededToWin = config
-						.getPointsNeededToWin(players.size());
-				if (pointsNeededToWin != newPointsNeededToWin) {
-					eventListener.pointsNeededToWinChanged(
-							newPointsNeededToWin, pointsNeededToWin);
-					pointsNeededToWin = newPointsNeededToWin;
-					/* If for some reason the points drop, check if there's a winner. */
-					if (isStarted()) {
-						checkForGameWinner(false);
+				player.setPointHistoryLimit(config.getPointHistoryLimit());
+				players.add(player);
+				nicks.add(player.getNick());
+				playersById.put(player.getId(), player);
+				playersByNick.put(player.getNick(), player);
+				updatePlayerStatus(player);
+				leaderboard.add(player);
+				eventListener.playerJoinedGame(player);
+				if (players.size() == config.getMinNbrOfPlayers()) {
+					eventListener.minimumNbrOfPlayersJoinedGame(players);
+				} else if (players.size() == config.getMaxNbrOfPlayers()) {
+					eventListener.maximumNbrOfPlayersJoinedGame(players);
+				}
+				/* See if the additional player alters the number of points needed to win. */
+				if (!config.fixPointsNeededToWinAtStart()) {
+					int newPointsNeededToWin = config
+							.getPointsNeededToWin(players.size());
+					if (pointsNeededToWin != newPointsNeededToWin) {
+						eventListener.pointsNeededToWinChanged(
+								newPointsNeededToWin, pointsNeededToWin);
+						pointsNeededToWin = newPointsNeededToWin;
+						/* If for some reason the points drop, check if there's a winner. */
+						if (isStarted()) {
+							checkForGameWinner(false);
+						}
 					}
 				}
+				/* Check if the joining player can resume suspended play. */
+				if (isSuspended() && 
+						getActivePlayers().size() >= config.getMinNbrOfPlayers()) {
+					resumePlay(player);
+				}
+				/* If they're joining during play, prevent them from playing until next round.
+				 * The replenishHands method will enable them to play again. */
+				if (isTimeToPlayRedApples()) {
+					log.fine(player + " cannot play until next round.");
+					player.setAbleToPlay(false);
+					updatePlayerStatus(player);
+				}
+				/* If autostart is set up and we have the min number of players needed,
+				 * start the game. */
+				if (config.autoStartRound() 
+						&& !isStarted() 
+						&& players.size() == config.getMinNbrOfPlayers()) {
+					startRound();
+				}
+				return Result.SUCCESS;
 			}
-			/* Check if the joining player can resume suspended play. */
-			if (isSuspended() && 
-					getActivePlayers().size() >= config.getMinNbrOfPlayers()) {
-				resumePlay(player);
-			}
-			/* If they're joining during play, prevent them from playing until next round.
-			 * The replenishHands method will enable them to play again. */
-			if (isTimeToPlayRedApples()) {
-				log.fine(player + " cannot play until next round.");
-				player.setAbleToPlay(false);
-			}
-			/* If autostart is set up and we have the min number of players needed,
-			 * start the game. */
-			if (config.autoStartRound() 
-					&& !isStarted() 
-					&& players.size() == config.getMinNbrOfPlayers()) {
-				startRound();
-			}
-			return Result.SUCCESS;
+		} finally {
+			endOperation();
 		}
 	}
 
@@ -411,51 +675,63 @@ public class Game {
 	 * @return
 	 */
 	public Result leave(Player player) {
-		if (player == null || !players.contains(player)) {
-			return Result.ERROR_INVALID_PARAMETER;
-		} else if (player == null) {
-			return Result.NO_EFFECT;
-		} else if ((isStarted() && !config.playersCanLeaveDuringGame())
-				|| player.equals(judge)) {
-			/* Cannot let judge leave game (for now). */
-			return Result.ERROR_PROHIBITED;
-		} else {
-			players.remove(player);
-			nicks.remove(player.getNick());
-			RedApple playedApple = applesToJudge.get(player);
-			if (playedApple != null) {
-				applesToJudge.remove(playedApple);
-			}
-			eventListener.playerLeftGame(player);
-			/* Check if the leaving player alters the number of points needed to win. */
-			if (!config.fixPointsNeededToWinAtStart()) {
-				int newPointsNeededToWin = config
-						.getPointsNeededToWin(players.size());
-				if (pointsNeededToWin != newPointsNeededToWin) {
-					eventListener.pointsNeededToWinChanged(
-							newPointsNeededToWin, pointsNeededToWin);
-					pointsNeededToWin = newPointsNeededToWin;
-					/* if the points changed during game play... */
-					if (isStarted()) {
-						/* see if anyone has enough points to be declared the winner. */
-						checkForGameWinner(false);
-						/* check if all active players have played their RedApples. */
-						checkForJudgementPhase();
+		beginOperation(GameOperation.Type.LEAVE, player);
+		try {
+			if (player == null || !players.contains(player)) {
+				return Result.ERROR_INVALID_PARAMETER;
+			} else if (player == null) {
+				return Result.NO_EFFECT;
+			} else if ((isStarted() && !config.playersCanLeaveDuringGame())
+					|| player.equals(judge)) {
+				/* Cannot let judge leave game (for now). */
+				return Result.ERROR_PROHIBITED;
+			} else {
+				/* The argument may be an equal, but different, instance. */
+				player = playersById.get(player.getId());
+				players.remove(player);
+				nicks.remove(player.getNick());
+				playersById.remove(player.getId());
+				playersByNick.remove(player.getNick());
+				activePlayers.remove(player);
+				activePlayersYetToPlay.remove(player);
+				leaderboard.remove(player);
+				RedApple playedApple = applesToJudge.get(player);
+				if (playedApple != null) {
+					applesToJudge.remove(playedApple);
+				}
+				eventListener.playerLeftGame(player);
+				/* Check if the leaving player alters the number of points needed to win. */
+				if (!config.fixPointsNeededToWinAtStart()) {
+					int newPointsNeededToWin = config
+							.getPointsNeededToWin(players.size());
+					if (pointsNeededToWin != newPointsNeededToWin) {
+						eventListener.pointsNeededToWinChanged(
+								newPointsNeededToWin, pointsNeededToWin);
+						pointsNeededToWin = newPointsNeededToWin;
+						/* if the points changed during game play... */
+						if (isStarted()) {
+							/* see if anyone has enough points to be declared the winner. */
+							checkForGameWinner(false);
+							/* check if all active players have played their RedApples. */
+							checkForJudgementPhase();
+						}
 					}
 				}
-			}
-			/* See if the leaving player forces the game to end. */
-			if (players.size() < config.getMinNbrOfPlayers()) {
-				eventListener.notEnoughPlayersToPlayGame(players);
-				/* if the game is started and no one new can join, declare the winner. */
-				if (isStarted() && !config.playersCanJoinDuringGame()) {
-					checkForGameWinner(true);
+				/* See if the leaving player forces the game to end. */
+				if (players.size() < config.getMinNbrOfPlayers()) {
+					eventListener.notEnoughPlayersToPlayGame(players);
+					/* if the game is started and no one new can join, declare the winner. */
+					if (isStarted() && !config.playersCanJoinDuringGame()) {
+						checkForGameWinner(true);
+					}
+				/* See if the leaving player forces the game to become suspended or end. */	
+				} else if (getActivePlayers().size() < config.getMinNbrOfPlayers()) {
+					suspendPlay(player);
 				}
-			/* See if the leaving player forces the game to become suspended or end. */	
-			} else if (getActivePlayers().size() < config.getMinNbrOfPlayers()) {
-				suspendPlay(player);
+				return Result.SUCCESS;
 			}
-			return Result.SUCCESS;
+		} finally {
+			endOperation();
 		}
 	}
 
@@ -478,22 +754,30 @@ public class Game {
 	 * @param player
 	 */
 	public Result inactivatePlayer(Player player) {
-		if (player == null || !players.contains(player)) {
-			return Result.ERROR_INVALID_PARAMETER;
-		} else if (!player.isActive()) {
-			return Result.NO_EFFECT;
-		} else {
-			player.setActive(false);
-			eventListener.playerInactivated(player);
-			/* suspend game if necessary.  The suspend game method will ensure the game is started and not presently suspended. */
-			if (player == judge
-					|| getActivePlayers().size() < config
-							.getMinNbrOfPlayers()) {
-				suspendPlay(player);
+		beginOperation(GameOperation.Type.INACTIVATE_PLAYER, player);
+		try {
+			if (player == null || !players.contains(player)) {
+				return Result.ERROR_INVALID_PARAMETER;
 			}
-			/* see if all active players have submitted their RedApples. */
-			checkForJudgementPhase();
-			return Result.SUCCESS;
+			player = playersById.get(player.getId());
+			if (!player.isActive()) {
+				return Result.NO_EFFECT;
+			} else {
+				player.setActive(false);
+				updatePlayerStatus(player);
+				eventListener.playerInactivated(player);
+				/* suspend game if necessary.  The suspend game method will ensure the game is started and not presently suspended. */
+				if (player == judge
+						|| getActivePlayers().size() < config
+								.getMinNbrOfPlayers()) {
+					suspendPlay(player);
+				}
+				/* see if all active players have submitted their RedApples. */
+				checkForJudgementPhase();
+				return Result.SUCCESS;
+			}
+		} finally {
+			endOperation();
 		}
 	}
 	
@@ -506,20 +790,28 @@ public class Game {
 	 * @param player
 	 */
 	public Result activatePlayer(Player player) {
-		if (player == null || !players.contains(player)) {
-			return Result.ERROR_INVALID_PARAMETER;
-		} else if (player.isActive()) {
-			return Result.NO_EFFECT;
-		} else {
-			player.setActive(true);
-			eventListener.playerActivated(player);
-			/* see if activation results in the game resuming. the method will check to see if the game is presently suspended. */
-			if (judge != null && judge.isActive()
-					&& getActivePlayers().size() >= config
-							.getMinNbrOfPlayers()) {
-				resumePlay(player);
-			}		
-			return Result.SUCCESS;
+		beginOperation(GameOperation.Type.ACTIVATE_PLAYER, player);
+		try {
+			if (player == null || !players.contains(player)) {
+				return Result.ERROR_INVALID_PARAMETER;
+			}
+			player = playersById.get(player.getId());
+			if (player.isActive()) {
+				return Result.NO_EFFECT;
+			} else {
+				player.setActive(true);
+				updatePlayerStatus(player);
+				eventListener.playerActivated(player);
+				/* see if activation results in the game resuming. the method will check to see if the game is presently suspended. */
+				if (judge != null && judge.isActive()
+						&& getActivePlayers().size() >= config
+								.getMinNbrOfPlayers()) {
+					resumePlay(player);
+				}		
+				return Result.SUCCESS;
+			}
+		} finally {
+			endOperation();
 		}
 	}
 	
@@ -531,15 +823,20 @@ public class Game {
 	 * @return
 	 */
 	public Result suspendPlay(Player responsiblePlayer) {
-		if (!isStarted()) {
-			return Result.ERROR_PROHIBITED;
-		} else if (phase == GamePhase.SUSPENDED) {
-			return Result.NO_EFFECT;
+		beginOperation(GameOperation.Type.SUSPEND_PLAY, responsiblePlayer);
+		try {
+			if (!isStarted()) {
+				return Result.ERROR_PROHIBITED;
+			} else if (phase == GamePhase.SUSPENDED) {
+				return Result.NO_EFFECT;
+			}
+			eventListener.playSuspended(responsiblePlayer);
+			preSuspendedPhase = phase;
+			phase = GamePhase.SUSPENDED;
+			return Result.SUCCESS;
+		} finally {
+			endOperation();
 		}
-		eventListener.playSuspended(responsiblePlayer);
-		preSuspendedPhase = phase;
-		phase = GamePhase.SUSPENDED;
-		return Result.SUCCESS;
 	}
 	
 	/**
@@ -550,12 +847,17 @@ public class Game {
 	 * @return
 	 */
 	public Result resumePlay(Player responsiblePlayer) {
-		if (phase != GamePhase.SUSPENDED) {
-			return Result.NO_EFFECT;
+		beginOperation(GameOperation.Type.RESUME_PLAY, responsiblePlayer);
+		try {
+			if (phase != GamePhase.SUSPENDED) {
+				return Result.NO_EFFECT;
+			}
+			eventListener.playResumed(responsiblePlayer);
+			phase = preSuspendedPhase;
+			return Result.SUCCESS;
+		} finally {
+			endOperation();
 		}
-		eventListener.playResumed(responsiblePlayer);
-		phase = preSuspendedPhase;
-		return Result.SUCCESS;
 	}
 
 	
@@ -568,8 +870,13 @@ public class Game {
 	 * @return
 	 */
 	public Result banPlayer(String id) {
-		leave(getPlayer(id)); // will return invalid param is player doesn't exist
-		return bannedPlayerIds.add(id) ? Result.SUCCESS : Result.NO_EFFECT;
+		beginOperation(GameOperation.Type.BAN_PLAYER, id, null, false, 0, null);
+		try {
+			leave(getPlayer(id)); // will return invalid param is player doesn't exist
+			return bannedPlayerIds.add(id) ? Result.SUCCESS : Result.NO_EFFECT;
+		} finally {
+			endOperation();
+		}
 	}
 	
 	/**
@@ -578,7 +885,12 @@ public class Game {
 	 * @return
 	 */
 	public Result unbanPlayer(String id) {
-		return bannedPlayerIds.remove(id) ? Result.SUCCESS : Result.NO_EFFECT;
+		beginOperation(GameOperation.Type.UNBAN_PLAYER, id, null, false, 0, null);
+		try {
+			return bannedPlayerIds.remove(id) ? Result.SUCCESS : Result.NO_EFFECT;
+		} finally {
+			endOperation();
+		}
 	}
 	
 	/**
@@ -590,19 +902,28 @@ public class Game {
 	 * @return
 	 */
 	public Result changePlayerNick(Player player, String newNick) {
-		if (player == null || !players.contains(player)) {
-			return Result.ERROR_INVALID_PARAMETER;
-		} else if (player.getNick().equals(newNick)) {
-			return Result.NO_EFFECT;
-		} else if (nicks.contains(newNick)) {
-			return Result.ERROR_PROHIBITED;
-		} 
-		String oldNick = player.getNick();
-		nicks.remove(oldNick);
-		nicks.add(newNick);
-		player.setNick(newNick);
-		eventListener.playerNickChanged(player, oldNick);
-		return Result.SUCCESS;
+		beginOperation(GameOperation.Type.CHANGE_PLAYER_NICK, player == null ? null : player.getId(), newNick, false, 0, null);
+		try {
+			if (player == null || !players.contains(player)) {
+				return Result.ERROR_INVALID_PARAMETER;
+			}
+			player = playersById.get(player.getId());
+			if (player.getNick().equals(newNick)) {
+				return Result.NO_EFFECT;
+			} else if (nicks.contains(newNick)) {
+				return Result.ERROR_PROHIBITED;
+			} 
+			String oldNick = player.getNick();
+			nicks.remove(oldNick);
+			nicks.add(newNick);
+			playersByNick.remove(oldNick);
+			player.setNick(newNick);
+			playersByNick.put(player.getNick(), player);
+			eventListener.playerNickChanged(player, oldNick);
+			return Result.SUCCESS;
+		} finally {
+			endOperation();
+		}
 	}
 	
 	/**
@@ -659,23 +980,26 @@ public class Game {
 	}
 
 	/**
-	 * Returns the set of players sorted from highest to lowest scoring.
+	 * Returns the set of players sorted from highest to lowest scoring,
+	 * with ties ordered by id.  The returned set is not modifiable.
 	 * 
 	 * @return
 	 */
-	public Set<Player> getPlayersSortedByPoints() {
-		Set<Player> sorted = new TreeSet<Player>(new Comparator<Player>() {
-			/**
-			 * Sorts by their score so that the highest scorers are first in the
-			 * set.
-			 */
-			public int compare(Player p1, Player p2) {
-				int difference = p2.getPoints() - p1.getPoints();
-				return difference == 0 ? p1.hashCode() - p2.hashCode() : difference;
-			}
-		});
+	public SortedSet<Player> getPlayersSortedByPoints() {
+		SortedSet<Player> sorted = new TreeSet<Player>(Player.BY_POINTS);
 		sorted.addAll(players);
-		return Collections.unmodifiableSet(sorted);
+		return Collections.unmodifiableSortedSet(sorted);
+	}
+	
+	/**
+	 * Returns the leaderboard tracking the players' points.  This is the
+	 * cheapest way to obtain the top score, the leaders, or the players
+	 * sorted by points.
+	 * 
+	 * @return
+	 */
+	public Leaderboard getLeaderboard() {
+		return leaderboard;
 	}
 	
 	/**
@@ -696,14 +1020,18 @@ public class Game {
 	 * @return
 	 */
 	public Player getPlayer(String id) {
-		if (players != null && id != null) {
-			for (Player p : players) {
-				if (id.equals(p.getId())) {
-					return p;
-				}
-			}
-		}
-		return null;
+		return id == null ? null : playersById.get(id);
+	}
+
+	/**
+	 * Returns the player with the given nick or null if no such
+	 * player exists.
+	 * 
+	 * @param nick
+	 * @return
+	 */
+	public Player getPlayerByNick(String nick) {
+		return nick == null ? null : playersByNick.get(nick);
 	}
 
 	/**
@@ -713,13 +1041,60 @@ public class Game {
 	 * @return
 	 */
 	public Set<Player> getActivePlayers() {
-		Set<Player> active = new HashSet<Player>(players.size());
+		return activePlayersView;
+	}
+
+	/**
+	 * Returns the active players who have not submitted red apples yet,
+	 * excluding the judge and any players who have not been dealt cards to
+	 * play.  The returned set is not modifiable and reflects changes made
+	 * as the round progresses.
+	 * 
+	 * @return
+	 */
+	public Set<Player> getActivePlayersWhoHaveNotPlayedRedApples() {
+		return activePlayersYetToPlayView;
+	}
+
+	/**
+	 * Indicates if every active player who is able to play this round has
+	 * submitted a red apple.
+	 * 
+	 * @return
+	 */
+	public boolean haveAllActivePlayersPlayedRedApples() {
+		return activePlayersYetToPlay.isEmpty();
+	}
+
+	/**
+	 * Brings the given player's membership in the active and yet-to-play
+	 * sets in line with the player's current state.  This must be called
+	 * whenever the player's activity, ability to play, judge status, or
+	 * played status changes.
+	 * 
+	 * @param p
+	 */
+	private void updatePlayerStatus(Player p) {
+		if (p.isActive()) {
+			activePlayers.add(p);
+		} else {
+			activePlayers.remove(p);
+		}
+		if (p.isActive() && p.isAbleToPlay() && !p.equals(judge)
+				&& !applesToJudge.containsKey(p)) {
+			activePlayersYetToPlay.add(p);
+		} else {
+			activePlayersYetToPlay.remove(p);
+		}
+	}
+
+	/**
+	 * Calls <code>updatePlayerStatus</code> for every player.
+	 */
+	private void updatePlayerStatuses() {
 		for (Player p : players) {
-			if (p.isActive()) {
-				active.add(p);
-			}
+			updatePlayerStatus(p);
 		}
-		return Collections.unmodifiableSet(active);
 	}
 
 	/**
@@ -735,33 +1110,28 @@ public class Game {
 	 *            most points.
 	 */
 	public void checkForGameWinner(boolean forceDeclaration) {
-		if (isStarted()) {
-			/* Get the player(s) with the most points */
-			Set<Player> sorted = getPlayersSortedByPoints();
-			Set<Player> potentialWinners = new HashSet<Player>(players.size());
-			Player potentialWinner = null;
-			for (Player p : sorted) {
-				/* A null potential winner is the first in the list, and therefore has the highest points. */
-				if (potentialWinner == null || potentialWinner.getPoints() == p.getPoints()) {
-					potentialWinner = p;
-					//log.info("Player " + p + " has " + p.getPoints() + " points.");
-					potentialWinners.add(p);
-				} else {
-					/* The moment we have a player with points less than that of the potential
-					 * winner, we have no need to continue iterating through the list. */
-					break;
-				}
-			}
-			if (potentialWinner.getPoints() >= pointsNeededToWin || forceDeclaration) {
-				if (potentialWinners.size() == 1) {
-					eventListener.gameWon(potentialWinner);
-					winners.add(potentialWinner);
-				} else {
-					eventListener.gameWonByMultiplePlayers(potentialWinners);
-					winners.addAll(potentialWinners);
+		beginOperation(GameOperation.Type.CHECK_FOR_GAME_WINNER, null, null, forceDeclaration, 0, null);
+		try {
+			if (isStarted()) {
+				/* The leaders are the player(s) with the most points. */
+				Set<Player> leaders = leaderboard.getLeaders();
+				if (!leaders.isEmpty() 
+						&& (leaderboard.getTopScore() >= pointsNeededToWin || forceDeclaration)) {
+					if (leaders.size() == 1) {
+						Player winner = leaders.iterator().next();
+						eventListener.gameWon(winner);
+						winners.add(winner);
+					} else {
+						/* Copy the leaders since the leaderboard's view is live. */
+						Set<Player> potentialWinners = new HashSet<Player>(leaders);
+						eventListener.gameWonByMultiplePlayers(potentialWinners);
+						winners.addAll(potentialWinners);
+					}
+					phase = GamePhase.GAME_OVER;
 				}
-				phase = GamePhase.GAME_OVER;
 			}
+		} finally {
+			endOperation();
 		}
 	}
 
@@ -784,18 +1154,28 @@ public class Game {
 	 *         init phase or round_over phase.
 	 */
 	public Result setJudge(Player judge) {
-		if (judge == null || !players.contains(judge)) {
-			return Result.ERROR_INVALID_PARAMETER;
-		} else if (phase != GamePhase.INIT && phase != GamePhase.ROUND_OVER) {
-			return Result.ERROR_PROHIBITED;
-		}
-		Player oldJudge = this.judge;
-		if (oldJudge != judge) {
-			this.judge = judge;
-			eventListener.judgeChanged(judge);
-			return Result.SUCCESS;
+		beginOperation(GameOperation.Type.SET_JUDGE, judge);
+		try {
+			if (judge == null || !players.contains(judge)) {
+				return Result.ERROR_INVALID_PARAMETER;
+			} else if (phase != GamePhase.INIT && phase != GamePhase.ROUND_OVER) {
+				return Result.ERROR_PROHIBITED;
+			}
+			judge = playersById.get(judge.getId());
+			Player oldJudge = this.judge;
+			if (oldJudge != judge) {
+				this.judge = judge;
+				if (oldJudge != null) {
+					updatePlayerStatus(oldJudge);
+				}
+				updatePlayerStatus(judge);
+				eventListener.judgeChanged(judge);
+				return Result.SUCCESS;
+			}
+			return Result.NO_EFFECT;
+		} finally {
+			endOperation();
 		}
-		return Result.NO_EFFECT;
 	}
 
 	/**
@@ -809,23 +1189,32 @@ public class Game {
 	 * 			ERROR_PROHIBITED if the game is configured not to rotate judges
 	 */
 	public Result setJudge() {
-		if (phase != GamePhase.INIT && phase != GamePhase.ROUND_OVER
-				|| !config.isJudgeRotated()) {
-			return Result.ERROR_PROHIBITED;
-		}
-		Player oldJudge = judge; 
-		for (Iterator<Player> it = players.iterator(); it.hasNext();) {
-			/* find the current judge in the rotation. */
-			if (judge == null || it.next().equals(judge)) {
-				judge = it.hasNext() ? it.next() : players.iterator().next();
-				/* to check if the judge actually changed...don't know why it wouldn't */
-				if (judge != oldJudge) {
-					eventListener.judgeChanged(judge);
-					return Result.SUCCESS;
+		beginOperation(GameOperation.Type.ROTATE_JUDGE);
+		try {
+			if (phase != GamePhase.INIT && phase != GamePhase.ROUND_OVER
+					|| !config.isJudgeRotated()) {
+				return Result.ERROR_PROHIBITED;
+			}
+			Player oldJudge = judge; 
+			for (Iterator<Player> it = players.iterator(); it.hasNext();) {
+				/* find the current judge in the rotation. */
+				if (judge == null || it.next().equals(judge)) {
+					judge = it.hasNext() ? it.next() : players.iterator().next();
+					/* to check if the judge actually changed...don't know why it wouldn't */
+					if (judge != oldJudge) {
+						if (oldJudge != null) {
+							updatePlayerStatus(oldJudge);
+						}
+						updatePlayerStatus(judge);
+						eventListener.judgeChanged(judge);
+						return Result.SUCCESS;
+					}
 				}
 			}
+			return Result.NO_EFFECT;
+		} finally {
+			endOperation();
 		}
-		return Result.NO_EFFECT;
 	}
 	
 	/**
@@ -836,27 +1225,33 @@ public class Game {
 	 * @return
 	 */
 	public Result restart() {
-		if (!isOver()) {
-			return Result.ERROR_PROHIBITED;
-		} else if (redApples.isExhausted() || greenApples.isExhausted()) {
-			return Result.ERROR_GAME_UNINITIALIZED;
-		}
-		phase = GamePhase.INIT;
-		roundsPlayed = 0;
-		greenApple = null;
-		if (config.isJudgeRotated()) {
-			judge = null;
-		}
-		winners.clear();
-		for (Player p : players) {
-			p.clearHand();
-			p.clearPoints();
-			p.resetRoundsPlayed();
-		}
-		if (config.autoStartRound()) {
-			startRound();
+		beginOperation(GameOperation.Type.RESTART);
+		try {
+			if (!isOver()) {
+				return Result.ERROR_PROHIBITED;
+			} else if (redApples.isExhausted() || greenApples.isExhausted()) {
+				return Result.ERROR_GAME_UNINITIALIZED;
+			}
+			phase = GamePhase.INIT;
+			roundsPlayed = 0;
+			greenApple = null;
+			if (config.isJudgeRotated()) {
+				judge = null;
+			}
+			winners.clear();
+			for (Player p : players) {
+				p.clearHand();
+				p.clearPoints();
+				p.resetRoundsPlayed();
+			}
+			updatePlayerStatuses();
+			if (config.autoStartRound()) {
+				startRound();
+			}
+			return Result.SUCCESS;
+		} finally {
+			endOperation();
 		}
-		return Result.SUCCESS;
 	}
 
 	/**
@@ -867,59 +1262,70 @@ public class Game {
 	 * the points needed to win are determined
 	 */
 	public Result startRound() {
-		if (phase == GamePhase.ROUND_PLAY) {
-			return Result.NO_EFFECT;
-		} else if (phase != GamePhase.INIT
-				&& phase != GamePhase.ROUND_OVER) {
-			return Result.ERROR_PROHIBITED;
-		} else if (players.size() < config.getMinNbrOfPlayers()) {
-			return Result.ERROR_GAME_UNINITIALIZED;
-		} else if (getActivePlayers().size() < config.getMinNbrOfPlayers()) {
-			return Result.ERROR_PROHIBITED;
-		}
-		replenishHands();
-		if (!isStarted() && config.fixPointsNeededToWinAtStart()) {
-			int oldPointsNeededToWin = pointsNeededToWin;
-			pointsNeededToWin = config.getPointsNeededToWin(players.size());
-			if (pointsNeededToWin != oldPointsNeededToWin) {
-				eventListener.pointsNeededToWinChanged(pointsNeededToWin, oldPointsNeededToWin);
+		beginOperation(GameOperation.Type.START_ROUND);
+		try {
+			if (phase == GamePhase.ROUND_PLAY) {
+				return Result.NO_EFFECT;
+			} else if (phase != GamePhase.INIT
+					&& phase != GamePhase.ROUND_OVER) {
+				return Result.ERROR_PROHIBITED;
+			} else if (players.size() < config.getMinNbrOfPlayers()) {
+				return Result.ERROR_GAME_UNINITIALIZED;
+			} else if (getActivePlayers().size() < config.getMinNbrOfPlayers()) {
+				return Result.ERROR_PROHIBITED;
+			}
+			replenishHands();
+			if (!isStarted() && config.fixPointsNeededToWinAtStart()) {
+				int oldPointsNeededToWin = pointsNeededToWin;
+				pointsNeededToWin = config.getPointsNeededToWin(players.size());
+				if (pointsNeededToWin != oldPointsNeededToWin) {
+					eventListener.pointsNeededToWinChanged(pointsNeededToWin, oldPointsNeededToWin);
+				}
 			}
-		}
 		
-		/* Don't want to set the judge to an inactive player? */
-		int maxAttempts = players.size() + 1; // the +1 allows the judges to be rotated back to the first new judge, should everyone be inactive
-		do {
-			setJudge();
-			--maxAttempts;
-		} while (judge != null && !judge.isActive() 
-				&& maxAttempts > 0 /*&& config.rotatePastInactiveJudges()*/);
+			/* Don't want to set the judge to an inactive player? */
+			int maxAttempts = players.size() + 1; // the +1 allows the judges to be rotated back to the first new judge, should everyone be inactive
+			do {
+				setJudge();
+				--maxAttempts;
+			} while (judge != null && !judge.isActive() 
+					&& maxAttempts > 0 /*&& config.rotatePastInactiveJudges()*/);
 			
-		if (judge == null) {
-			return Result.ERROR_GAME_UNINITIALIZED;
-		} else if (!judge.isActive()) {
-			suspendPlay(null);
+			if (judge == null) {
+				return Result.ERROR_GAME_UNINITIALIZED;
+			} else if (!judge.isActive()) {
+				suspendPlay(null);
+			}
+			drawGreenApple();
+			applesToJudge.clear();
+			updatePlayerStatuses();
+			phase = GamePhase.ROUND_PLAY;
+			return Result.SUCCESS;
+		} finally {
+			endOperation();
 		}
-		drawGreenApple();
-		applesToJudge.clear();
-		phase = GamePhase.ROUND_PLAY;
-		return Result.SUCCESS;
 	}
 
 	/**
 	 * Draws the next GreenApple to be played for.
 	 */
 	public Result drawGreenApple() {
-		if (phase != GamePhase.ROUND_OVER && phase != GamePhase.INIT) {
-			return Result.ERROR_PROHIBITED;
-		} else if (greenApples.isExhausted()) {
-			return Result.NO_EFFECT;
-		}
-		greenApple = greenApples.draw();
-		eventListener.greenApplePlayed(greenApple);
-		if (greenApples.isExhausted()) {
-			eventListener.greenAppleDeckExhausted();
+		beginOperation(GameOperation.Type.DRAW_GREEN_APPLE);
+		try {
+			if (phase != GamePhase.ROUND_OVER && phase != GamePhase.INIT) {
+				return Result.ERROR_PROHIBITED;
+			} else if (greenApples.isExhausted()) {
+				return Result.NO_EFFECT;
+			}
+			greenApple = greenApples.draw();
+			eventListener.greenApplePlayed(greenApple);
+			if (greenApples.isExhausted()) {
+				eventListener.greenAppleDeckExhausted();
+			}
+			return Result.SUCCESS;
+		} finally {
+			endOperation();
 		}
-		return Result.SUCCESS;
 	}
 
 	/**
@@ -928,22 +1334,28 @@ public class Game {
 	 * to do so.
 	 */
 	public Result replenishHands() {
-		if (redApples.isExhausted()) {
-			return Result.ERROR_GAME_UNINITIALIZED;
-		}
-		for (Player p : players) {
-			while (p.getHand().size() < config.getCardsPerHand()) {
-				RedApple redApple = redApples.draw();
-				p.dealApple(redApple);
-				p.setAbleToPlay(true);
-				eventListener.redAppleDealt(p, redApple);
-				if (redApples.isExhausted()) {
-					eventListener.redAppleDeckExhausted();
-					return Result.ERROR_GAME_UNINITIALIZED;
+		beginOperation(GameOperation.Type.REPLENISH_HANDS);
+		try {
+			if (redApples.isExhausted()) {
+				return Result.ERROR_GAME_UNINITIALIZED;
+			}
+			for (Player p : players) {
+				while (p.getHand().size() < config.getCardsPerHand()) {
+					RedApple redApple = redApples.draw();
+					p.dealApple(redApple);
+					p.setAbleToPlay(true);
+					updatePlayerStatus(p);
+					eventListener.redAppleDealt(p, redApple);
+					if (redApples.isExhausted()) {
+						eventListener.redAppleDeckExhausted();
+						return Result.ERROR_GAME_UNINITIALIZED;
+					}
 				}
 			}
+			return Result.SUCCESS;
+		} finally {
+			endOperation();
 		}
-		return Result.SUCCESS;
 	}
 
 	/**
@@ -960,24 +1372,32 @@ public class Game {
 	 * @return
 	 */
 	public Result play(Player player, RedApple apple) {
-		if (player == null || !players.contains(player) || apple == null) {
-			return Result.ERROR_INVALID_PARAMETER;
-		} else if (phase != GamePhase.ROUND_PLAY 
-				|| applesToJudge.keySet().contains(player) 
-				|| player.equals(judge) 
-				|| !player.isAbleToPlay()) {
-			return Result.ERROR_PROHIBITED;
-		} 
-		if (!player.isActive()) {
-			activatePlayer(player);
-		}	
-		if (player.playApple(apple)) {
-			applesToJudge.put(player, apple);
-			eventListener.applePlayed(player, apple);
-			checkForJudgementPhase();
-			return Result.SUCCESS;
-		} else {
-			return Result.ERROR_INVALID_PARAMETER;
+		beginOperation(GameOperation.Type.PLAY, player == null ? null : player.getId(), null, false, 0, apple);
+		try {
+			if (player == null || !players.contains(player) || apple == null) {
+				return Result.ERROR_INVALID_PARAMETER;
+			}
+			player = playersById.get(player.getId());
+			if (phase != GamePhase.ROUND_PLAY 
+					|| applesToJudge.keySet().contains(player) 
+					|| player.equals(judge) 
+					|| !player.isAbleToPlay()) {
+				return Result.ERROR_PROHIBITED;
+			} 
+			if (!player.isActive()) {
+				activatePlayer(player);
+			}	
+			if (player.playApple(apple)) {
+				applesToJudge.put(player, apple);
+				updatePlayerStatus(player);
+				eventListener.applePlayed(player, apple);
+				checkForJudgementPhase();
+				return Result.SUCCESS;
+			} else {
+				return Result.ERROR_INVALID_PARAMETER;
+			}
+		} finally {
+			endOperation();
 		}
 	}
 	
@@ -991,48 +1411,53 @@ public class Game {
 	 * @return
 	 */
 	public Result judge(RedApple selected) {
-		if (selected == null || !applesToJudge.containsValue(selected)) {
-			return Result.ERROR_INVALID_PARAMETER;
-		} else if (judge == null) {
-			return Result.ERROR_GAME_UNINITIALIZED;
-		} else if (!isTimeToJudge()) {
-			return Result.ERROR_PROHIBITED;
-		}
-		/* Activate the judge if necessary */
-		if (!judge.isActive()) {
-			activatePlayer(judge);
-		}
-		/* End the round. */
-		phase = GamePhase.ROUND_OVER;
-		++roundsPlayed;
-		/* Check for winners...there's a possibility mulitple players played the same apple. */
-		Set<Player> winners = new HashSet<Player>(players.size());
-		for (Player p : applesToJudge.keySet()) {
-			if (selected.equals(applesToJudge.get(p))) {
-				winners.add(p);
-				log.fine("Awarding point to " + p);
-				p.awardPoint(greenApple, selected);
-				p.incrementRoundsPlayed();
+		beginOperation(GameOperation.Type.JUDGE, null, null, false, 0, selected);
+		try {
+			if (selected == null || !applesToJudge.containsValue(selected)) {
+				return Result.ERROR_INVALID_PARAMETER;
+			} else if (judge == null) {
+				return Result.ERROR_GAME_UNINITIALIZED;
+			} else if (!isTimeToJudge()) {
+				return Result.ERROR_PROHIBITED;
 			}
-		}
-		if (winners.isEmpty()) { /* not sure why this would happen. */
-			return Result.ERROR_INVALID_PARAMETER;
-		} else {
-			if (winners.size() == 1) {
-				eventListener.roundWon(judge, winners.iterator().next(), selected, greenApple);
+			/* Activate the judge if necessary */
+			if (!judge.isActive()) {
+				activatePlayer(judge);
+			}
+			/* End the round. */
+			phase = GamePhase.ROUND_OVER;
+			++roundsPlayed;
+			/* Check for winners...there's a possibility mulitple players played the same apple. */
+			Set<Player> winners = new HashSet<Player>(players.size());
+			for (Player p : applesToJudge.keySet()) {
+				if (selected.equals(applesToJudge.get(p))) {
+					winners.add(p);
+					log.fine("Awarding point to " + p);
+					p.awardPoint(greenApple, selected);
+					p.incrementRoundsPlayed();
+				}
+			}
+			if (winners.isEmpty()) { /* not sure why this would happen. */
+				return Result.ERROR_INVALID_PARAMETER;
 			} else {
-				eventListener.roundWonByMultiplePlayers(judge, winners, selected, greenApple);
+				if (winners.size() == 1) {
+					eventListener.roundWon(judge, winners.iterator().next(), selected, greenApple);
+				} else {
+					eventListener.roundWonByMultiplePlayers(judge, winners, selected, greenApple);
+				}
+				/* if points needed to win < 1, winner has to be declared manually. */
+				if (pointsNeededToWin > 0) {
+					checkForGameWinner(false);
+				}
 			}
-			/* if points needed to win < 1, winner has to be declared manually. */
-			if (pointsNeededToWin > 0) {
-				checkForGameWinner(false);
+			/* If the game hasn't ended and auto start is enabled, start next round. */
+			if (!isOver() && config.autoStartRound()) {
+				startRound();
 			}
+			return Result.SUCCESS;
+		} finally {
+			endOperation();
 		}
-		/* If the game hasn't ended and auto start is enabled, start next round. */
-		if (!isOver() && config.autoStartRound()) {
-			startRound();
-		}
-		return Result.SUCCESS;
 	}
 
 	/**
@@ -1084,19 +1509,24 @@ public class Game {
 	 * @return NO_EFFECT if the game isn't started, SUCCESS otherwise
 	 */
 	public Result abortRound() {
-		if (!isStarted()) {
-			return Result.NO_EFFECT;
-		}
-		/* Return cards to players hands. */
-		for (Player p : applesToJudge.keySet()) {
-			RedApple apple = applesToJudge.get(p);
-			p.dealApple(applesToJudge.get(p));
-			eventListener.redAppleDealt(p, apple);
-		}
-		if (config.autoStartRound()) {
-			startRound();
+		beginOperation(GameOperation.Type.ABORT_ROUND);
+		try {
+			if (!isStarted()) {
+				return Result.NO_EFFECT;
+			}
+			/* Return cards to players hands. */
+			for (Player p : applesToJudge.keySet()) {
+				RedApple apple = applesToJudge.get(p);
+				p.dealApple(applesToJudge.get(p));
+				eventListener.redAppleDealt(p, apple);
+			}
+			if (config.autoStartRound()) {
+				startRound();
+			}
+			return Result.SUCCESS;
+		} finally {
+			endOperation();
 		}
-		return Result.SUCCESS;
 	}
 	
 	/**
@@ -1105,11 +1535,16 @@ public class Game {
 	 *
 	 */
 	public void checkForJudgementPhase() {
-		if (phase == GamePhase.ROUND_PLAY
-				/* only active players need to have played in order to prompt judgement. */
-				&& getPlayersWhoHaveNotPlayedRedApples(getActivePlayers()).isEmpty()) {
-			eventListener.readyToJudge(judge, applesToJudge.values());
-			phase = GamePhase.ROUND_JUDGE;
+		beginOperation(GameOperation.Type.CHECK_FOR_JUDGEMENT_PHASE);
+		try {
+			if (phase == GamePhase.ROUND_PLAY
+					/* only active players need to have played in order to prompt judgement. */
+					&& haveAllActivePlayersPlayedRedApples()) {
+				eventListener.readyToJudge(judge, applesToJudge.values());
+				phase = GamePhase.ROUND_JUDGE;
+			}
+		} finally {
+			endOperation();
 		}
 	}
 	
@@ -1121,14 +1556,19 @@ public class Game {
 	 * 		the game hasn't started yet, SUCCESS otherwise
 	 */
 	public Result terminate() {
-		if (phase == GamePhase.INIT) {
-			return Result.ERROR_PROHIBITED;
-		} else if (isOver()) {
-			return Result.NO_EFFECT;
+		beginOperation(GameOperation.Type.TERMINATE);
+		try {
+			if (phase == GamePhase.INIT) {
+				return Result.ERROR_PROHIBITED;
+			} else if (isOver()) {
+				return Result.NO_EFFECT;
+			}
+			phase = GamePhase.GAME_OVER;
+			eventListener.gameTerminated();
+			return Result.SUCCESS;
+		} finally {
+			endOperation();
 		}
-		phase = GamePhase.GAME_OVER;
-		eventListener.gameTerminated();
-		return Result.SUCCESS;
 	}
 
 }
@@ -79,4 +79,13 @@ public interface GameConfiguration {
 	 * @return
 	 */
     public boolean autoStartRound();
+
+	/**
+	 * Returns the most points, and the RedApples that won them, each player
+	 * keeps in their history.  A game whose points needed to win is 0 or
+	 * less never ends, so should limit the history.
+	 * @return the limit, or 0 or less to keep every point
+	 * @see Player#setPointHistoryLimit(int)
+	 */
+	public int getPointHistoryLimit();
 }
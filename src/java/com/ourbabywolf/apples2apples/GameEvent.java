@@ -0,0 +1,342 @@
+/*
+ * GameEvent.java - created Oct 18, 2026 1:15:32 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * An immutable record of one GameEventListener callback.  Each type of event
+ * corresponds to one of the listener's methods and uses only the fields that
+ * method takes; the rest are null or zero.  Collections are copied when the
+ * event is created, but the Players and Apples are not.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class GameEvent {
+
+	/**
+	 * The types of events, one per GameEventListener method.
+	 */
+	public enum Type {
+		/** @see GameEventListener#minimumNbrOfPlayersJoinedGame(Collection) */
+		MINIMUM_NBR_OF_PLAYERS_JOINED,
+		/** @see GameEventListener#maximumNbrOfPlayersJoinedGame(Collection) */
+		MAXIMUM_NBR_OF_PLAYERS_JOINED,
+		/** @see GameEventListener#notEnoughPlayersToPlayGame(Collection) */
+		NOT_ENOUGH_PLAYERS,
+		/** @see GameEventListener#gameWon(Player) */
+		GAME_WON,
+		/** @see GameEventListener#gameWonByMultiplePlayers(Collection) */
+		GAME_WON_BY_MULTIPLE_PLAYERS,
+		/** @see GameEventListener#gameTerminated() */
+		GAME_TERMINATED,
+		/** @see GameEventListener#roundStarted(GreenApple, Player) */
+		ROUND_STARTED,
+		/** @see GameEventListener#playerJoinedGame(Player) */
+		PLAYER_JOINED,
+		/** @see GameEventListener#playerLeftGame(Player) */
+		PLAYER_LEFT,
+		/** @see GameEventListener#judgeChanged(Player) */
+		JUDGE_CHANGED,
+		/** @see GameEventListener#playerInactivated(Player) */
+		PLAYER_INACTIVATED,
+		/** @see GameEventListener#playerActivated(Player) */
+		PLAYER_ACTIVATED,
+		/** @see GameEventListener#playerNickChanged(Player, String) */
+		PLAYER_NICK_CHANGED,
+		/** @see GameEventListener#redAppleDealt(Player, RedApple) */
+		RED_APPLE_DEALT,
+		/** @see GameEventListener#applePlayed(Player, RedApple) */
+		APPLE_PLAYED,
+		/** @see GameEventListener#readyToJudge(Player, Collection) */
+		READY_TO_JUDGE,
+		/** @see GameEventListener#roundWon(Player, Player, RedApple, GreenApple) */
+		ROUND_WON,
+		/** @see GameEventListener#roundWonByMultiplePlayers(Player, Collection, RedApple, GreenApple) */
+		ROUND_WON_BY_MULTIPLE_PLAYERS,
+		/** @see GameEventListener#greenAppleDeckExhausted() */
+		GREEN_APPLE_DECK_EXHAUSTED,
+		/** @see GameEventListener#redAppleDeckExhausted() */
+		RED_APPLE_DECK_EXHAUSTED,
+		/** @see GameEventListener#pointsNeededToWinChanged(int, int) */
+		POINTS_NEEDED_TO_WIN_CHANGED,
+		/** @see GameEventListener#playSuspended(Player) */
+		PLAY_SUSPENDED,
+		/** @see GameEventListener#playResumed(Player) */
+		PLAY_RESUMED,
+		/** @see GameEventListener#greenApplePlayed(GreenApple) */
+		GREEN_APPLE_PLAYED
+	}
+
+	/** The type of event. */
+	private final Type type;
+
+	/** The player the event is about, e.g. the one who joined or won. */
+	private final Player player;
+
+	/** The judge, for the events that involve one. */
+	private final Player judge;
+
+	/** The players, for the events that involve several. */
+	private final Collection<Player> players;
+
+	/** The RedApple dealt, played or chosen. */
+	private final RedApple redApple;
+
+	/** The GreenApple played or won. */
+	private final GreenApple greenApple;
+
+	/** The RedApples awaiting judgement. */
+	private final Collection<RedApple> redApples;
+
+	/** The player's previous nick. */
+	private final String oldNick;
+
+	/** The new points needed to win. */
+	private final int pointsNeededToWin;
+
+	/** The previous points needed to win. */
+	private final int oldPointsNeededToWin;
+
+	/**
+	 * Creates a new GameEvent, copying the collections.
+	 *
+	 * @param type
+	 * @param player
+	 * @param judge
+	 * @param players
+	 * @param redApple
+	 * @param greenApple
+	 * @param redApples
+	 * @param oldNick
+	 * @param pointsNeededToWin
+	 * @param oldPointsNeededToWin
+	 */
+	GameEvent(Type type, Player player, Player judge,
+			Collection<Player> players, RedApple redApple,
+			GreenApple greenApple, Collection<RedApple> redApples,
+			String oldNick, int pointsNeededToWin, int oldPointsNeededToWin) {
+		if (type == null) {
+			throw new IllegalArgumentException("Type cannot be null.");
+		}
+		this.type = type;
+		this.player = player;
+		this.judge = judge;
+		this.players = copy(players);
+		this.redApple = redApple;
+		this.greenApple = greenApple;
+		this.redApples = copy(redApples);
+		this.oldNick = oldNick;
+		this.pointsNeededToWin = pointsNeededToWin;
+		this.oldPointsNeededToWin = oldPointsNeededToWin;
+	}
+
+	/**
+	 * Returns a read-only copy of the collection.
+	 *
+	 * @param c
+	 * @return
+	 */
+	private static <T> Collection<T> copy(Collection<T> c) {
+		return c == null ? null : Collections.unmodifiableList(new ArrayList<T>(c));
+	}
+
+	/**
+	 * Calls the listener method this event records.
+	 *
+	 * @param listener
+	 */
+	public void dispatch(GameEventListener listener) {
+		switch (type) {
+		case MINIMUM_NBR_OF_PLAYERS_JOINED:
+			listener.minimumNbrOfPlayersJoinedGame(players);
+			break;
+		case MAXIMUM_NBR_OF_PLAYERS_JOINED:
+			listener.maximumNbrOfPlayersJoinedGame(players);
+			break;
+		case NOT_ENOUGH_PLAYERS:
+			listener.notEnoughPlayersToPlayGame(players);
+			break;
+		case GAME_WON:
+			listener.gameWon(player);
+			break;
+		case GAME_WON_BY_MULTIPLE_PLAYERS:
+			listener.gameWonByMultiplePlayers(players);
+			break;
+		case GAME_TERMINATED:
+			listener.gameTerminated();
+			break;
+		case ROUND_STARTED:
+			listener.roundStarted(greenApple, judge);
+			break;
+		case PLAYER_JOINED:
+			listener.playerJoinedGame(player);
+			break;
+		case PLAYER_LEFT:
+			listener.playerLeftGame(player);
+			break;
+		case JUDGE_CHANGED:
+			listener.judgeChanged(judge);
+			break;
+		case PLAYER_INACTIVATED:
+			listener.playerInactivated(player);
+			break;
+		case PLAYER_ACTIVATED:
+			listener.playerActivated(player);
+			break;
+		case PLAYER_NICK_CHANGED:
+			listener.playerNickChanged(player, oldNick);
+			break;
+		case RED_APPLE_DEALT:
+			listener.redAppleDealt(player, redApple);
+			break;
+		case APPLE_PLAYED:
+			listener.applePlayed(player, redApple);
+			break;
+		case READY_TO_JUDGE:
+			listener.readyToJudge(judge, redApples);
+			break;
+		case ROUND_WON:
+			listener.roundWon(judge, player, redApple, greenApple);
+			break;
+		case ROUND_WON_BY_MULTIPLE_PLAYERS:
+			listener.roundWonByMultiplePlayers(judge, players, redApple, greenApple);
+			break;
+		case GREEN_APPLE_DECK_EXHAUSTED:
+			listener.greenAppleDeckExhausted();
+			break;
+		case RED_APPLE_DECK_EXHAUSTED:
+			listener.redAppleDeckExhausted();
+			break;
+		case POINTS_NEEDED_TO_WIN_CHANGED:
+			listener.pointsNeededToWinChanged(pointsNeededToWin, oldPointsNeededToWin);
+			break;
+		case PLAY_SUSPENDED:
+			listener.playSuspended(player);
+			break;
+		case PLAY_RESUMED:
+			listener.playResumed(player);
+			break;
+		case GREEN_APPLE_PLAYED:
+			listener.greenApplePlayed(greenApple);
+			break;
+		}
+	}
+
+	/**
+	 * @return the type
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the player the event is about: the one who joined, left, was
+	 * (in)activated, changed nick, was dealt or played an apple, won the game
+	 * or the round, or is responsible for play being suspended or resumed.
+	 *
+	 * @return
+	 */
+	public Player getPlayer() {
+		return player;
+	}
+
+	/**
+	 * Returns the judge for the JUDGE_CHANGED, ROUND_STARTED, READY_TO_JUDGE
+	 * and ROUND_WON events.
+	 *
+	 * @return
+	 */
+	public Player getJudge() {
+		return judge;
+	}
+
+	/**
+	 * @return the players
+	 */
+	public Collection<Player> getPlayers() {
+		return players;
+	}
+
+	/**
+	 * @return the redApple
+	 */
+	public RedApple getRedApple() {
+		return redApple;
+	}
+
+	/**
+	 * @return the greenApple
+	 */
+	public GreenApple getGreenApple() {
+		return greenApple;
+	}
+
+	/**
+	 * @return the RedApples awaiting judgement
+	 */
+	public Collection<RedApple> getRedApples() {
+		return redApples;
+	}
+
+	/**
+	 * @return the oldNick
+	 */
+	public String getOldNick() {
+		return oldNick;
+	}
+
+	/**
+	 * @return the pointsNeededToWin
+	 */
+	public int getPointsNeededToWin() {
+		return pointsNeededToWin;
+	}
+
+	/**
+	 * @return the oldPointsNeededToWin
+	 */
+	public int getOldPointsNeededToWin() {
+		return oldPointsNeededToWin;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(type.toString());
+		if (player != null) {
+			sb.append(" player=").append(player);
+		}
+		if (judge != null) {
+			sb.append(" judge=").append(judge);
+		}
+		if (players != null) {
+			sb.append(" players=").append(players);
+		}
+		if (redApple != null) {
+			sb.append(" redApple=").append(redApple);
+		}
+		if (greenApple != null) {
+			sb.append(" greenApple=").append(greenApple);
+		}
+		if (redApples != null) {
+			sb.append(" redApples=").append(redApples);
+		}
+		if (oldNick != null) {
+			sb.append(" oldNick=").append(oldNick);
+		}
+		if (type == Type.POINTS_NEEDED_TO_WIN_CHANGED) {
+			sb.append(" pointsNeededToWin=").append(oldPointsNeededToWin)
+					.append("->").append(pointsNeededToWin);
+		}
+		return sb.toString();
+	}
+
+}
@@ -230,4 +230,12 @@ public interface GameEventListener extends EventListener {
 	 * @param players
 	 */
 	public void maximumNbrOfPlayersJoinedGame(Collection<Player> players);
+
+	/**
+	 * This method is called when the outermost public operation of the game,
+	 * such as a join, play or judge, has finished, after the events it
+	 * caused.  A listener that groups events by operation, or wraps one that
+	 * does, can use it to tell where one operation's events end.
+	 */
+	public void operationEnded();
 }
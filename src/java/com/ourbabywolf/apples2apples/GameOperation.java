@@ -0,0 +1,248 @@
+/*
+ * GameOperation.java - created Oct 18, 2026 8:05:17 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples;
+
+/**
+ * A public operation performed on a Game, with its arguments, as handed to
+ * a GameRecorder.  Players are referred to by id, so an operation can be
+ * applied to a different Game holding the same players, e.g. one rebuilt
+ * from a GameSnapshot.  Each type of operation uses only some of the
+ * arguments; the rest are null, false or 0.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class GameOperation {
+
+	/**
+	 * The operations, named after the Game methods.
+	 */
+	public enum Type {
+		/** <code>setPointsNeededToWin(number)</code> */
+		SET_POINTS_NEEDED_TO_WIN,
+		/** <code>join(playerId, text, flag)</code> */
+		JOIN,
+		/** <code>leave(player)</code> */
+		LEAVE,
+		/** <code>inactivatePlayer(player)</code> */
+		INACTIVATE_PLAYER,
+		/** <code>activatePlayer(player)</code> */
+		ACTIVATE_PLAYER,
+		/** <code>suspendPlay(player)</code> */
+		SUSPEND_PLAY,
+		/** <code>resumePlay(player)</code> */
+		RESUME_PLAY,
+		/** <code>banPlayer(playerId)</code> */
+		BAN_PLAYER,
+		/** <code>unbanPlayer(playerId)</code> */
+		UNBAN_PLAYER,
+		/** <code>changePlayerNick(player, text)</code> */
+		CHANGE_PLAYER_NICK,
+		/** <code>checkForGameWinner(flag)</code> */
+		CHECK_FOR_GAME_WINNER,
+		/** <code>setJudge(player)</code> */
+		SET_JUDGE,
+		/** <code>setJudge()</code> */
+		ROTATE_JUDGE,
+		/** <code>restart()</code> */
+		RESTART,
+		/** <code>startRound()</code> */
+		START_ROUND,
+		/** <code>drawGreenApple()</code> */
+		DRAW_GREEN_APPLE,
+		/** <code>replenishHands()</code> */
+		REPLENISH_HANDS,
+		/** <code>play(player, apple)</code> */
+		PLAY,
+		/** <code>judge(apple)</code> */
+		JUDGE,
+		/** <code>abortRound()</code> */
+		ABORT_ROUND,
+		/** <code>checkForJudgementPhase()</code> */
+		CHECK_FOR_JUDGEMENT_PHASE,
+		/** <code>terminate()</code> */
+		TERMINATE
+	}
+
+	private final Type type;
+	private final String playerId;
+	private final String text;
+	private final boolean flag;
+	private final int number;
+	private final RedApple apple;
+
+	/**
+	 * Creates a new GameOperation.
+	 *
+	 * @param type
+	 * @param playerId - the id of the player the operation was given, or
+	 * 		the id for <code>join</code>, <code>banPlayer</code> and
+	 * 		<code>unbanPlayer</code>
+	 * @param text - the nick for <code>join</code> and
+	 * 		<code>changePlayerNick</code>
+	 * @param flag - the boolean argument
+	 * @param number - the int argument
+	 * @param apple - the RedApple argument
+	 */
+	public GameOperation(Type type, String playerId, String text, boolean flag,
+			int number, RedApple apple) {
+		if (type == null) {
+			throw new IllegalArgumentException("Type cannot be null.");
+		}
+		this.type = type;
+		this.playerId = playerId;
+		this.text = text;
+		this.flag = flag;
+		this.number = number;
+		this.apple = apple;
+	}
+
+	/**
+	 * Performs the operation on the game.  A player id that isn't in the
+	 * game is passed as a new Player with that id, just as the original
+	 * operation was given a player who wasn't in the game.
+	 *
+	 * @param game
+	 * @return the operation's Result, or null if it has none
+	 */
+	public Game.Result applyTo(Game game) {
+		switch (type) {
+		case SET_POINTS_NEEDED_TO_WIN:
+			game.setPointsNeededToWin(number);
+			return null;
+		case JOIN:
+			return game.join(playerId, text, flag);
+		case LEAVE:
+			return game.leave(getPlayer(game));
+		case INACTIVATE_PLAYER:
+			return game.inactivatePlayer(getPlayer(game));
+		case ACTIVATE_PLAYER:
+			return game.activatePlayer(getPlayer(game));
+		case SUSPEND_PLAY:
+			return game.suspendPlay(getPlayer(game));
+		case RESUME_PLAY:
+			return game.resumePlay(getPlayer(game));
+		case BAN_PLAYER:
+			return game.banPlayer(playerId);
+		case UNBAN_PLAYER:
+			return game.unbanPlayer(playerId);
+		case CHANGE_PLAYER_NICK:
+			return game.changePlayerNick(getPlayer(game), text);
+		case CHECK_FOR_GAME_WINNER:
+			game.checkForGameWinner(flag);
+			return null;
+		case SET_JUDGE:
+			return game.setJudge(getPlayer(game));
+		case ROTATE_JUDGE:
+			return game.setJudge();
+		case RESTART:
+			return game.restart();
+		case START_ROUND:
+			return game.startRound();
+		case DRAW_GREEN_APPLE:
+			return game.drawGreenApple();
+		case REPLENISH_HANDS:
+			return game.replenishHands();
+		case PLAY:
+			return game.play(getPlayer(game), apple);
+		case JUDGE:
+			return game.judge(apple);
+		case ABORT_ROUND:
+			return game.abortRound();
+		case CHECK_FOR_JUDGEMENT_PHASE:
+			game.checkForJudgementPhase();
+			return null;
+		case TERMINATE:
+			return game.terminate();
+		default:
+			throw new IllegalStateException("Unknown type " + type);
+		}
+	}
+
+	/**
+	 * Returns the game's player with the player id, a stand-in if the game
+	 * has no such player, or null if there's no player id.
+	 *
+	 * @param game
+	 * @return
+	 */
+	private Player getPlayer(Game game) {
+		if (playerId == null) {
+			return null;
+		}
+		Player player = game.getPlayer(playerId);
+		if (player == null && !Player.isInvalidPlayerId(playerId)) {
+			player = new Player(playerId);
+		}
+		return player;
+	}
+
+	/**
+	 * @return the type
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * @return the player id
+	 */
+	public String getPlayerId() {
+		return playerId;
+	}
+
+	/**
+	 * @return the text
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * @return the flag
+	 */
+	public boolean getFlag() {
+		return flag;
+	}
+
+	/**
+	 * @return the number
+	 */
+	public int getNumber() {
+		return number;
+	}
+
+	/**
+	 * @return the apple
+	 */
+	public RedApple getApple() {
+		return apple;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(type.toString());
+		if (playerId != null) {
+			sb.append(' ').append(playerId);
+		}
+		if (text != null) {
+			sb.append(" \"").append(text).append('"');
+		}
+		if (flag) {
+			sb.append(" true");
+		}
+		if (number != 0) {
+			sb.append(' ').append(number);
+		}
+		if (apple != null) {
+			sb.append(' ').append(apple);
+		}
+		return sb.toString();
+	}
+
+}
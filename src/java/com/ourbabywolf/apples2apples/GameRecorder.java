@@ -0,0 +1,28 @@
+/*
+ * GameRecorder.java - created Oct 18, 2026 8:03:52 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples;
+
+/**
+ * Receives the operations performed on a Game, e.g. to write them to a log
+ * from which the game can be rebuilt.  A Game hands each public operation
+ * to its recorder before carrying it out, but only the outermost one: the
+ * operations it calls itself, such as the <code>startRound</code> done by
+ * an auto-starting <code>judge</code>, are not recorded, since replaying the
+ * outer operation does them again.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ */
+public interface GameRecorder {
+
+	/**
+	 * Records an operation that's about to be performed.  If this throws,
+	 * the operation is not performed.
+	 *
+	 * @param operation
+	 */
+	public void record(GameOperation operation);
+
+}
@@ -0,0 +1,342 @@
+/*
+ * GameSnapshot.java - created Oct 18, 2026 7:02:36 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable copy of the state of a Game, taken by <code>Game.snapshot</code>
+ * and put back by <code>Game.restore</code>.  Players are referred to by id.
+ * The game's configuration and event listener aren't part of the snapshot;
+ * the game being restored supplies them.  The decks' remaining apples are
+ * only included if the decks are RestorableDecks.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class GameSnapshot {
+
+	/**
+	 * An immutable copy of the state of a Player.
+	 *
+	 * @author joe@ourbabywolf.com
+	 */
+	public static class PlayerState {
+
+		private final String id;
+		private final String nick;
+		private final boolean cheater;
+		private final boolean active;
+		private final boolean ableToPlay;
+		private final int roundsPlayed;
+		private final List<RedApple> hand;
+		private final List<GreenApple> greenApples;
+		private final List<RedApple> winningRedApples;
+		private final int points;
+		private final int pointHistoryLimit;
+
+		/**
+		 * Creates a new PlayerState.
+		 *
+		 * @param id
+		 * @param nick - null if the player has no nick
+		 * @param cheater - if the player is a Cheater
+		 * @param active
+		 * @param ableToPlay
+		 * @param roundsPlayed
+		 * @param hand
+		 * @param greenApples - the points the player has won, oldest first
+		 * @param winningRedApples - the RedApples that won them
+		 * @param points - the number of points the player has earned
+		 * @param pointHistoryLimit
+		 */
+		public PlayerState(String id, String nick, boolean cheater, boolean active,
+				boolean ableToPlay, int roundsPlayed, List<RedApple> hand,
+				List<GreenApple> greenApples, List<RedApple> winningRedApples,
+				int points, int pointHistoryLimit) {
+			if (Player.isInvalidPlayerId(id)) {
+				throw new IllegalArgumentException("Invalid id.");
+			} else if (hand == null) {
+				throw new IllegalArgumentException("Hand cannot be null.");
+			} else if (greenApples == null || winningRedApples == null
+					|| greenApples.size() != winningRedApples.size()) {
+				throw new IllegalArgumentException("Every GreenApple needs a winning RedApple.");
+			} else if (points < greenApples.size()) {
+				throw new IllegalArgumentException("Points cannot be less than the GreenApples won.");
+			}
+			this.id = id;
+			this.nick = nick;
+			this.cheater = cheater;
+			this.active = active;
+			this.ableToPlay = ableToPlay;
+			this.roundsPlayed = roundsPlayed;
+			this.hand = Collections.unmodifiableList(new ArrayList<RedApple>(hand));
+			this.greenApples = Collections.unmodifiableList(new ArrayList<GreenApple>(greenApples));
+			this.winningRedApples = Collections.unmodifiableList(new ArrayList<RedApple>(winningRedApples));
+			this.points = points;
+			this.pointHistoryLimit = pointHistoryLimit;
+		}
+
+		/**
+		 * @return the id
+		 */
+		public String getId() {
+			return id;
+		}
+
+		/**
+		 * @return the nick, or null if the player has none
+		 */
+		public String getNick() {
+			return nick;
+		}
+
+		/**
+		 * @return true if the player is a Cheater
+		 */
+		public boolean isCheater() {
+			return cheater;
+		}
+
+		/**
+		 * @return the active
+		 */
+		public boolean isActive() {
+			return active;
+		}
+
+		/**
+		 * @return the ableToPlay
+		 */
+		public boolean isAbleToPlay() {
+			return ableToPlay;
+		}
+
+		/**
+		 * @return the roundsPlayed
+		 */
+		public int getRoundsPlayed() {
+			return roundsPlayed;
+		}
+
+		/**
+		 * @return the hand
+		 */
+		public List<RedApple> getHand() {
+			return hand;
+		}
+
+		/**
+		 * @return the GreenApples won, oldest first
+		 */
+		public List<GreenApple> getGreenApples() {
+			return greenApples;
+		}
+
+		/**
+		 * @return the RedApples that won the GreenApples, at the same indexes
+		 */
+		public List<RedApple> getWinningRedApples() {
+			return winningRedApples;
+		}
+
+		/**
+		 * @return the points
+		 */
+		public int getPoints() {
+			return points;
+		}
+
+		/**
+		 * @return the pointHistoryLimit
+		 */
+		public int getPointHistoryLimit() {
+			return pointHistoryLimit;
+		}
+	}
+
+	private final Game.GamePhase phase;
+	private final Game.GamePhase preSuspendedPhase;
+	private final int roundsPlayed;
+	private final int pointsNeededToWin;
+	private final List<PlayerState> players;
+	private final String judgeId;
+	private final Set<String> winnerIds;
+	private final Set<String> bannedPlayerIds;
+	private final GreenApple greenApple;
+	private final Map<String, RedApple> applesToJudge;
+	private final List<RedApple> redDeck;
+	private final List<GreenApple> greenDeck;
+
+	/**
+	 * Creates a new GameSnapshot.  Every player id referred to must be the
+	 * id of one of the players.
+	 *
+	 * @param phase
+	 * @param preSuspendedPhase - may be null
+	 * @param roundsPlayed
+	 * @param pointsNeededToWin
+	 * @param players - in the order they joined
+	 * @param judgeId - may be null
+	 * @param winnerIds
+	 * @param bannedPlayerIds
+	 * @param greenApple - may be null
+	 * @param applesToJudge - the RedApples played, keyed by player id
+	 * @param redDeck - the apples remaining in the RedApple deck, or null
+	 * @param greenDeck - the apples remaining in the GreenApple deck, or null
+	 */
+	public GameSnapshot(Game.GamePhase phase, Game.GamePhase preSuspendedPhase,
+			int roundsPlayed, int pointsNeededToWin, List<PlayerState> players,
+			String judgeId, Set<String> winnerIds, Set<String> bannedPlayerIds,
+			GreenApple greenApple, Map<String, RedApple> applesToJudge,
+			List<RedApple> redDeck, List<GreenApple> greenDeck) {
+		if (phase == null) {
+			throw new IllegalArgumentException("GamePhase cannot be null.");
+		} else if (players == null) {
+			throw new IllegalArgumentException("Players cannot be null.");
+		} else if (winnerIds == null || bannedPlayerIds == null || applesToJudge == null) {
+			throw new IllegalArgumentException("Winners, banned players and apples to judge cannot be null.");
+		}
+		Set<String> ids = new HashSet<String>(players.size() * 2);
+		for (PlayerState player : players) {
+			if (!ids.add(player.getId())) {
+				throw new IllegalArgumentException("Duplicate player " + player.getId());
+			}
+		}
+		if ((judgeId != null && !ids.contains(judgeId)) || !ids.containsAll(winnerIds)
+				|| !ids.containsAll(applesToJudge.keySet())) {
+			throw new IllegalArgumentException("Unknown player id.");
+		}
+		this.phase = phase;
+		this.preSuspendedPhase = preSuspendedPhase;
+		this.roundsPlayed = roundsPlayed;
+		this.pointsNeededToWin = pointsNeededToWin;
+		this.players = Collections.unmodifiableList(new ArrayList<PlayerState>(players));
+		this.judgeId = judgeId;
+		this.winnerIds = Collections.unmodifiableSet(new LinkedHashSet<String>(winnerIds));
+		this.bannedPlayerIds = Collections.unmodifiableSet(new LinkedHashSet<String>(bannedPlayerIds));
+		this.greenApple = greenApple;
+		this.applesToJudge = Collections.unmodifiableMap(new LinkedHashMap<String, RedApple>(applesToJudge));
+		this.redDeck = copyDeck(redDeck);
+		this.greenDeck = copyDeck(greenDeck);
+	}
+
+	/**
+	 * Returns an unmodifiable copy of a deck's remaining apples, unless
+	 * they're RemainingApples, which never change and are kept as they are.
+	 *
+	 * @param deck - may be null
+	 * @return
+	 */
+	private static <A extends Apple> List<A> copyDeck(List<A> deck) {
+		if (deck == null || deck instanceof RestorableDeck.RemainingApples) {
+			return deck;
+		}
+		return Collections.unmodifiableList(new ArrayList<A>(deck));
+	}
+
+	/**
+	 * @return the phase
+	 */
+	public Game.GamePhase getPhase() {
+		return phase;
+	}
+
+	/**
+	 * @return the phase before the game was suspended, or null
+	 */
+	public Game.GamePhase getPreSuspendedPhase() {
+		return preSuspendedPhase;
+	}
+
+	/**
+	 * @return the roundsPlayed
+	 */
+	public int getRoundsPlayed() {
+		return roundsPlayed;
+	}
+
+	/**
+	 * @return the pointsNeededToWin
+	 */
+	public int getPointsNeededToWin() {
+		return pointsNeededToWin;
+	}
+
+	/**
+	 * @return the players, in the order they joined
+	 */
+	public List<PlayerState> getPlayers() {
+		return players;
+	}
+
+	/**
+	 * @return the judge's id, or null
+	 */
+	public String getJudgeId() {
+		return judgeId;
+	}
+
+	/**
+	 * @return the winners' ids
+	 */
+	public Set<String> getWinnerIds() {
+		return winnerIds;
+	}
+
+	/**
+	 * @return the bannedPlayerIds
+	 */
+	public Set<String> getBannedPlayerIds() {
+		return bannedPlayerIds;
+	}
+
+	/**
+	 * @return the GreenApple being played for, or null
+	 */
+	public GreenApple getGreenApple() {
+		return greenApple;
+	}
+
+	/**
+	 * @return the RedApples played this round, keyed by player id
+	 */
+	public Map<String, RedApple> getApplesToJudge() {
+		return applesToJudge;
+	}
+
+	/**
+	 * @return the apples remaining in the RedApple deck, or null if the
+	 * 		deck couldn't be read
+	 */
+	public List<RedApple> getRedDeck() {
+		return redDeck;
+	}
+
+	/**
+	 * @return the apples remaining in the GreenApple deck, or null if the
+	 * 		deck couldn't be read
+	 */
+	public List<GreenApple> getGreenDeck() {
+		return greenDeck;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "GameSnapshot: " + phase + ", " + players.size() + " players, "
+				+ roundsPlayed + " rounds played";
+	}
+
+}
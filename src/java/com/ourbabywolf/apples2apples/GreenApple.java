@@ -51,7 +51,7 @@ public class GreenApple extends Apple {
 			return false;
 		}
 		GreenApple apple = (GreenApple)obj;
-		return getWord().equalsIgnoreCase(apple.getWord());
+		return hasSameWord(apple);
 	}
 
 	/* (non-Javadoc)
@@ -0,0 +1,174 @@
+/*
+ * Leaderboard.java - created Oct 18, 2026 9:12:40 AM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps a game's players bucketed by their points so that the top score and
+ * the players holding it are known without sorting.  Since points only ever
+ * go up by one or get cleared, moving a player between buckets is cheap.
+ * Players notify the leaderboard they belong to whenever their points change.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class Leaderboard {
+
+	/** The players grouped by points; the n-th bucket holds those with n points. */
+	private final List<Set<Player>> buckets;
+
+	/** The highest number of points held by any player. */
+	private int topScore = 0;
+
+	/** The number of players on the leaderboard. */
+	private int size = 0;
+
+	/**
+	 * Creates an empty leaderboard.
+	 */
+	Leaderboard() {
+		this.buckets = new ArrayList<Set<Player>>();
+	}
+
+	/**
+	 * Returns the bucket for the given points, creating it and any
+	 * lower buckets if necessary.
+	 *
+	 * @param points
+	 * @return
+	 */
+	private Set<Player> getBucket(int points) {
+		while (buckets.size() <= points) {
+			buckets.add(new LinkedHashSet<Player>());
+		}
+		return buckets.get(points);
+	}
+
+	/**
+	 * Puts the player on the leaderboard.
+	 *
+	 * @param player
+	 */
+	void add(Player player) {
+		if (getBucket(player.getPoints()).add(player)) {
+			++size;
+			topScore = Math.max(topScore, player.getPoints());
+			player.setLeaderboard(this);
+		}
+	}
+
+	/**
+	 * Takes the player off of the leaderboard.
+	 *
+	 * @param player
+	 */
+	void remove(Player player) {
+		if (getBucket(player.getPoints()).remove(player)) {
+			--size;
+			lowerTopScore();
+			player.setLeaderboard(null);
+		}
+	}
+
+	/**
+	 * Moves the player up a bucket after being awarded a point.
+	 *
+	 * @param player
+	 */
+	void pointAwarded(Player player) {
+		final int points = player.getPoints();
+		getBucket(points - 1).remove(player);
+		getBucket(points).add(player);
+		topScore = Math.max(topScore, points);
+	}
+
+	/**
+	 * Moves the player back to the bottom bucket after the player's
+	 * points have been cleared.
+	 *
+	 * @param player
+	 * @param oldPoints - the points the player had before being cleared
+	 */
+	void pointsCleared(Player player, int oldPoints) {
+		getBucket(oldPoints).remove(player);
+		getBucket(player.getPoints()).add(player);
+		lowerTopScore();
+	}
+
+	/**
+	 * Drops the top score down to the highest non-empty bucket.
+	 */
+	private void lowerTopScore() {
+		while (topScore > 0 && getBucket(topScore).isEmpty()) {
+			--topScore;
+		}
+	}
+
+	/**
+	 * Returns the number of players on the leaderboard.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the highest number of points held by any player, or 0 if
+	 * there are no players.
+	 *
+	 * @return
+	 */
+	public int getTopScore() {
+		return topScore;
+	}
+
+	/**
+	 * Returns the player(s) with the top score.  The returned set is not
+	 * modifiable and reflects subsequent point changes.
+	 *
+	 * @return
+	 */
+	public Set<Player> getLeaders() {
+		return Collections.unmodifiableSet(getBucket(topScore));
+	}
+
+	/**
+	 * Indicates if more than one player holds the top score.
+	 *
+	 * @return
+	 */
+	public boolean isTied() {
+		return getBucket(topScore).size() > 1;
+	}
+
+	/**
+	 * Returns the players ordered from highest to lowest scoring.  Players
+	 * with the same points are ordered by id, just as
+	 * <code>Player.BY_POINTS</code> orders them, so this agrees with
+	 * <code>Game.getPlayersSortedByPoints</code>.  Only the buckets
+	 * themselves are sorted.
+	 *
+	 * @return
+	 */
+	public List<Player> getPlayersSortedByPoints() {
+		List<Player> sorted = new ArrayList<Player>(size);
+		for (int points = topScore; points >= 0 && sorted.size() < size; --points) {
+			Set<Player> bucket = getBucket(points);
+			int start = sorted.size();
+			sorted.addAll(bucket);
+			if (bucket.size() > 1) {
+				Collections.sort(sorted.subList(start, sorted.size()), Player.BY_POINTS);
+			}
+		}
+		return Collections.unmodifiableList(sorted);
+	}
+
+}
@@ -5,10 +5,14 @@
  */
 package com.ourbabywolf.apples2apples;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a player in the Apples2Apples game and keeps track of the
@@ -20,6 +24,19 @@ import java.util.List;
  */
 public class Player {
     
+    /**
+     * Orders players from highest to lowest scoring, breaking ties by id so
+     * that distinct players never compare as equal.
+     */
+    public static final Comparator<Player> BY_POINTS = new Comparator<Player>() {
+		public int compare(Player p1, Player p2) {
+			if (p1.getPoints() != p2.getPoints()) {
+				return p1.getPoints() > p2.getPoints() ? -1 : 1;
+			}
+			return p1.getId().compareTo(p2.getId());
+		}
+    };
+    
     /** The player's unique identifier (e.g. the gmail login) */
     private final String id;
     
@@ -29,11 +46,40 @@ public class Player {
     /** The RedApples (nouns) comprising the players playable hand. */
     private final List<RedApple> hand;
     
-    /** The GreenApple (adjectives) the player has won. */
-    private final List<GreenApple> greenApples;
+    /**
+     * The RedApples in the hand keyed by their normalized word, in the
+     * order they're in the hand.  Kept in step with the hand so that looking
+     * up or playing an apple by its word needn't compare it with the rest
+     * of the hand.
+     */
+    private final Map<String, List<RedApple>> handIndex;
+    
+    /** 
+     * The GreenApple (adjectives) the player has won, oldest first from
+     * historyStart, wrapping around when the history is limited.
+     */
+    private GreenApple[] greenApples;
     
-    /** The RedApples player has played resulting in earning GreenApple points. */
-    private final List<RedApple> winningRedApples;
+    /** 
+     * The RedApples player has played resulting in earning GreenApple points,
+     * at the same index as the GreenApple each won.
+     */
+    private RedApple[] winningRedApples;
+    
+    /** The index of the oldest point in the history. */
+    private int historyStart = 0;
+    
+    /** The number of points in the history. */
+    private int historySize = 0;
+    
+    /** The most points kept in the history, or 0 or less to keep them all. */
+    private int historyLimit = 0;
+    
+    /** The number of points earned, including any no longer in the history. */
+    private int points = 0;
+    
+    /** The RedApple that first won each GreenApple in the history. */
+    private final Map<GreenApple, RedApple> winners;
     
     /** The number of rounds the player has played. */
     private int roundsPlayed = 0;
@@ -44,6 +90,9 @@ public class Player {
     /** Indicates if the player is allowed to play or not. */
     private boolean ableToPlay = true;
     
+    /** The leaderboard to notify when the player's points change. */
+    private Leaderboard leaderboard = null;
+    
     /**
      * Creates a new player with the given id.
      * @param id
@@ -64,8 +113,10 @@ public class Player {
         this.id = id;
         this.nick = nick;
         this.hand = new ArrayList<RedApple>();
-        this.greenApples = new ArrayList<GreenApple>();
-        this.winningRedApples = new ArrayList<RedApple>();
+        this.handIndex = new HashMap<String, List<RedApple>>();
+        this.greenApples = new GreenApple[8];
+        this.winningRedApples = new RedApple[8];
+        this.winners = new HashMap<GreenApple, RedApple>();
     }
     
     /** 
@@ -138,6 +189,13 @@ public class Player {
     protected void resetRoundsPlayed() {
     	roundsPlayed = 0;
 	}
+    
+    /**
+     * Sets the rounds played counter, e.g. when restoring a game.
+     */
+    void setRoundsPlayed(int roundsPlayed) {
+    	this.roundsPlayed = roundsPlayed;
+    }
   
     /**
      * Returns all the RedApples in the player's hand.
@@ -151,6 +209,11 @@ public class Player {
      */
     public void sortHand(Comparator<RedApple> sorter) {
         Collections.sort(hand, sorter);
+        /* Put apples with the same word back in hand order. */
+        handIndex.clear();
+        for (RedApple apple : hand) {
+        	index(apple);
+        }
     }
     
     /**
@@ -164,16 +227,16 @@ public class Player {
     
     /**
      * Uses the word on the apple to retreive card from player's hand.
+     * The word is matched ignoring case, as RedApple equality does.
      * Apple is not removed from hand.  Null is returned if
      * no such apple exists in the hand with that word.
      */
     public RedApple getAppleFromHand(String word) {
         if (word != null) {
-            for (RedApple apple : hand) {
-                if (word.equals(apple.getWord())) {
-                    return apple;
-                }
-            } 
+            List<RedApple> apples = handIndex.get(Apple.normalize(word));
+            if (apples != null) {
+                return apples.get(0);
+            }
         }
         return null;
     }
@@ -183,14 +246,36 @@ public class Player {
      */
     protected void clearHand() {
 		hand.clear();
+		handIndex.clear();
 	}
     
     /** 
-     * Plays (i.e. removes) the given apple from the players hand.
+     * Plays (i.e. removes) the given apple from the players hand.  The
+     * first apple in the hand equal to the given one, the one
+     * <code>getAppleFromHand(String)</code> returns, is removed.  The apple
+     * is found through the index; only removing it from the hand's list
+     * takes time proportional to the size of the hand.
      * @return true if the apple was in the hand and removed, false otherwise
      */
     protected boolean playApple(RedApple apple) {
-      return hand.remove(apple);
+    	if (apple == null) {
+    		return false;
+    	}
+    	List<RedApple> apples = handIndex.get(apple.getKey());
+    	if (apples == null) {
+    		return false;
+    	}
+    	RedApple played = apples.remove(0);
+    	if (apples.isEmpty()) {
+    		handIndex.remove(apple.getKey());
+    	}
+    	for (int i = 0; i < hand.size(); ++i) {
+    		if (hand.get(i) == played) {
+    			hand.remove(i);
+    			break;
+    		}
+    	}
+    	return true;
     }
     
     /**
@@ -201,13 +286,89 @@ public class Player {
     		throw new IllegalArgumentException("RedApple cannot be null.");
     	}
         hand.add(apple);
+        index(apple);
+    }
+    
+    /**
+     * Adds the apple to the index, after any others with the same word.
+     */
+    private void index(RedApple apple) {
+        List<RedApple> apples = handIndex.get(apple.getKey());
+        if (apples == null) {
+        	/* Hands rarely hold the same word twice. */
+        	apples = new ArrayList<RedApple>(1);
+        	handIndex.put(apple.getKey(), apples);
+        }
+        apples.add(apple);
     }
         
     /**
-     * Returns the point cards the player has been awarded. 
+     * Returns the point cards the player has been awarded, oldest first.
+     * If the point history is limited, only the most recent are returned.
      */
     public List<GreenApple> getGreenApples() {
-        return Collections.unmodifiableList(greenApples);
+        return new AbstractList<GreenApple>() {
+			@Override
+			public GreenApple get(int index) {
+				if (index < 0 || index >= historySize) {
+					throw new IndexOutOfBoundsException("Point " + index + " of " + historySize);
+				}
+				return greenApples[(historyStart + index) % greenApples.length];
+			}
+			@Override
+			public int size() {
+				return historySize;
+			}
+        };
+    }
+    
+    /**
+     * Returns the RedApples that won the point cards returned by
+     * <code>getGreenApples</code>, at the same indexes.
+     */
+    List<RedApple> getWinningRedApples() {
+        return new AbstractList<RedApple>() {
+			@Override
+			public RedApple get(int index) {
+				if (index < 0 || index >= historySize) {
+					throw new IndexOutOfBoundsException("Point " + index + " of " + historySize);
+				}
+				return winningRedApples[(historyStart + index) % winningRedApples.length];
+			}
+			@Override
+			public int size() {
+				return historySize;
+			}
+        };
+    }
+    
+    /**
+     * Replaces the player's points and point history without notifying the
+     * leaderboard, e.g. when restoring a game before the player is put on
+     * its leaderboard.  The history is trimmed to the history limit.
+     * 
+     * @param points - the points won, oldest first
+     * @param winners - the RedApples that won them
+     * @param pointCount - the number of points earned, at least the size
+     * 		of the history
+     */
+    void restorePoints(List<GreenApple> points, List<RedApple> winners, int pointCount) {
+    	if (points.size() != winners.size()) {
+    		throw new IllegalArgumentException("Points and winners must be the same size.");
+    	} else if (pointCount < points.size()) {
+    		throw new IllegalArgumentException("Point count cannot be less than the points.");
+    	}
+    	Leaderboard leaderboard = this.leaderboard;
+    	this.leaderboard = null;
+    	try {
+    		clearPoints();
+    		for (int i = 0; i < points.size(); ++i) {
+    			awardPoint(points.get(i), winners.get(i));
+    		}
+    	} finally {
+    		this.leaderboard = leaderboard;
+    	}
+    	this.points = pointCount;
     }
     
     /**
@@ -222,15 +383,39 @@ public class Player {
     	if (greenApple == null) {
     		throw new IllegalArgumentException("GreenApple argument cannot be null.");
     	}
-    	final int index = greenApples.indexOf(greenApple);
-    	return index < 0 ? null : winningRedApples.get(index);
+    	return winners.get(greenApple);
     }
     
     /**
      * Returns the number of point cards player has earned.
      */
     public int getPoints() {
-       return greenApples.size(); 
+       return points; 
+    }
+    
+    /**
+     * Returns the most points kept in the player's history.
+     * 
+     * @return the limit, or 0 if every point is kept
+     */
+    public int getPointHistoryLimit() {
+    	return historyLimit;
+    }
+    
+    /**
+     * Limits the number of points, and the RedApples that won them, kept in
+     * the player's history, e.g. for endless games.  The oldest are dropped
+     * first.  The player's points are still counted exactly.
+     * 
+     * @param limit - the most points to keep, or 0 or less to keep them all
+     */
+    public void setPointHistoryLimit(int limit) {
+    	historyLimit = Math.max(0, limit);
+    	if (historyLimit > 0) {
+    		while (historySize > historyLimit) {
+    			dropOldestPoint();
+    		}
+    	}
     }
     
     /**
@@ -246,8 +431,23 @@ public class Player {
     	} else if (winner == null) {
     		throw new IllegalArgumentException("RedApple argument cannot be null.");
     	}
-        greenApples.add(point);
-        winningRedApples.add(winner);
+        if (historyLimit > 0 && historySize == historyLimit) {
+        	dropOldestPoint();
+        }
+        if (historySize == greenApples.length) {
+        	growHistory();
+        }
+        int index = (historyStart + historySize) % greenApples.length;
+        greenApples[index] = point;
+        winningRedApples[index] = winner;
+        historySize++;
+        points++;
+        if (!winners.containsKey(point)) {
+        	winners.put(point, winner);
+        }
+        if (leaderboard != null) {
+        	leaderboard.pointAwarded(this);
+        }
     }
     
     /**
@@ -255,10 +455,67 @@ public class Player {
      * has been awarded.
      */
     protected void clearPoints() {
-		greenApples.clear();
-		winningRedApples.clear();
+    	final int oldPoints = getPoints();
+		Arrays.fill(greenApples, null);
+		Arrays.fill(winningRedApples, null);
+		historyStart = 0;
+		historySize = 0;
+		points = 0;
+		winners.clear();
+		if (leaderboard != null && oldPoints > 0) {
+			leaderboard.pointsCleared(this, oldPoints);
+		}
 	}
     
+    /**
+     * Doubles the room for the history, or makes room for the whole limit
+     * if that's less, unwrapping it so the oldest point is first.
+     */
+    private void growHistory() {
+    	int capacity = greenApples.length * 2;
+    	if (historyLimit > 0 && historyLimit < capacity) {
+    		capacity = historyLimit;
+    	}
+    	GreenApple[] greens = new GreenApple[capacity];
+    	RedApple[] reds = new RedApple[capacity];
+    	for (int i = 0; i < historySize; ++i) {
+    		greens[i] = greenApples[(historyStart + i) % greenApples.length];
+    		reds[i] = winningRedApples[(historyStart + i) % greenApples.length];
+    	}
+    	greenApples = greens;
+    	winningRedApples = reds;
+    	historyStart = 0;
+    }
+    
+    /**
+     * Drops the oldest point from the history, without changing the points.
+     */
+    private void dropOldestPoint() {
+    	GreenApple dropped = greenApples[historyStart];
+    	greenApples[historyStart] = null;
+    	winningRedApples[historyStart] = null;
+    	historyStart = (historyStart + 1) % greenApples.length;
+    	historySize--;
+    	/* The oldest point is always the first win of its GreenApple, so map the next win, if any. */
+    	winners.remove(dropped);
+    	for (int i = 0; i < historySize; ++i) {
+    		int index = (historyStart + i) % greenApples.length;
+    		if (dropped.equals(greenApples[index])) {
+    			winners.put(dropped, winningRedApples[index]);
+    			break;
+    		}
+    	}
+    }
+    
+    /**
+     * Sets the leaderboard that tracks this player's points.
+     * 
+     * @param leaderboard
+     */
+    void setLeaderboard(Leaderboard leaderboard) {
+    	this.leaderboard = leaderboard;
+    }
+    
     /**
 	 * Returns true if the player id is invalid.
 	 * 
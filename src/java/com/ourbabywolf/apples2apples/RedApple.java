@@ -40,7 +40,7 @@ public class RedApple extends Apple {
 			return false;
 		}
 		RedApple apple = (RedApple)obj;
-		return getWord().equalsIgnoreCase(apple.getWord());
+		return hasSameWord(apple);
 	}
 
 	/* (non-Javadoc)
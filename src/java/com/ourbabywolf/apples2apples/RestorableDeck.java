@@ -0,0 +1,48 @@
+/*
+ * RestorableDeck.java - created Oct 18, 2026 6:41:15 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples;
+
+import java.util.List;
+
+/**
+ * A Deck whose remaining apples can be read and put back, so that a game
+ * using it can be snapshotted and restored.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ * @param <AppleType>
+ */
+public interface RestorableDeck<AppleType extends Apple> extends Deck<AppleType> {
+
+	/**
+	 * Marks a list of remaining apples that never changes and refers to its
+	 * apples rather than holding them, creating each only when it's asked
+	 * for.  A GameSnapshot keeps such a list instead of copying it, so
+	 * taking a snapshot doesn't create the apples in the deck.
+	 *
+	 * @param <AppleType>
+	 */
+	public interface RemainingApples<AppleType extends Apple> extends List<AppleType> {
+	}
+
+	/**
+	 * Returns the apples that will be drawn next, in the order they'll be
+	 * drawn.  For a self-replenishing deck this is one full pass through
+	 * the deck, starting with the next apple.  The deck may return a
+	 * RemainingApples list.
+	 *
+	 * @return
+	 */
+	public List<AppleType> getRemainingApples();
+
+	/**
+	 * Replaces the contents of the deck with the given apples, which will
+	 * be drawn in the order given.
+	 *
+	 * @param apples
+	 */
+	public void restoreRemainingApples(List<AppleType> apples);
+
+}
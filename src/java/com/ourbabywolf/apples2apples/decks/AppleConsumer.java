@@ -0,0 +1,44 @@
+/*
+ * AppleConsumer.java - created Oct 18, 2026 5:02:14 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.decks;
+
+import com.ourbabywolf.apples2apples.GreenApple;
+import com.ourbabywolf.apples2apples.RedApple;
+
+/**
+ * Receives the apples of a deck file as SAXApplesReader parses them, so
+ * that a deck can be populated, filtered or indexed without first building
+ * lists of every apple in the file.  Each apple is handed over as soon as
+ * its element has been read.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ */
+public interface AppleConsumer {
+
+	/**
+	 * Called when the root element of the deck file is read, before any
+	 * apples.
+	 *
+	 * @param version - the deck's version, may be null
+	 * @param printing - the deck's printing, may be null
+	 */
+	public void deckStarted(String version, String printing);
+
+	/**
+	 * Called with each Red Apple as it's parsed.
+	 *
+	 * @param apple
+	 */
+	public void redApple(RedApple apple);
+
+	/**
+	 * Called with each Green Apple as it's parsed.
+	 *
+	 * @param apple
+	 */
+	public void greenApple(GreenApple apple);
+
+}
@@ -0,0 +1,218 @@
+/*
+ * AppleInterner.java - created Oct 18, 2026 5:51:08 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.decks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import com.ourbabywolf.apples2apples.GreenApple;
+import com.ourbabywolf.apples2apples.RedApple;
+
+/**
+ * Deduplicates the apples parsed from XML deck files, so that a card
+ * printed in several deck sets is held once no matter how many sets are
+ * loaded.  Red Apples with the same word and quip, and Green Apples with the
+ * same word and synonyms, are replaced by a single instance, and the words,
+ * quips and synonyms of distinct apples share their equal strings.  The heap
+ * saved is estimated as apples are interned.  The interner is safe for use
+ * by multiple threads.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class AppleInterner {
+
+	/** Estimated bytes of a String without its chars. */
+	static final int STRING_BYTES = 40;
+
+	/** Estimated bytes of a RedApple, not counting its strings. */
+	static final int RED_APPLE_BYTES = 24;
+
+	/** Estimated bytes of a GreenApple, not counting its synonyms. */
+	static final int GREEN_APPLE_BYTES = 24;
+
+	/** Estimated bytes of a synonym set, plus SYNONYM_BYTES per synonym. */
+	static final int SYNONYMS_BYTES = 64;
+
+	/** Estimated bytes of an entry in a synonym set. */
+	static final int SYNONYM_BYTES = 32;
+
+	/** Separates the parts of the keys apples are interned by. */
+	private static final char SEPARATOR = '\u0000';
+
+	/** The canonical strings. */
+	private final Map<String, String> strings = new HashMap<String, String>();
+
+	/** The canonical Red Apples, keyed by word and quip. */
+	private final Map<String, RedApple> redApples = new HashMap<String, RedApple>();
+
+	/** The canonical Green Apples, keyed by word and synonyms. */
+	private final Map<String, GreenApple> greenApples = new HashMap<String, GreenApple>();
+
+	/** The number of apples replaced by a canonical apple. */
+	private long duplicateApples = 0;
+
+	/** The number of strings replaced by a canonical string. */
+	private long duplicateStrings = 0;
+
+	/** The estimated number of bytes no longer held. */
+	private long bytesSaved = 0;
+
+	/**
+	 * Returns the canonical Red Apple with the same word and quip as the
+	 * given one, which becomes canonical if there's none yet.
+	 *
+	 * @param apple
+	 * @return
+	 */
+	public synchronized RedApple intern(RedApple apple) {
+		if (apple == null) {
+			throw new IllegalArgumentException("RedApple cannot be null.");
+		}
+		String key = apple.getWord() + SEPARATOR + apple.getQuip();
+		RedApple canonical = redApples.get(key);
+		if (canonical == null) {
+			canonical = new RedApple(intern(apple.getWord()));
+			canonical.setQuip(intern(apple.getQuip()));
+			redApples.put(key, canonical);
+		} else {
+			++duplicateApples;
+			bytesSaved += RED_APPLE_BYTES + getBytes(apple.getWord()) + getBytes(apple.getQuip());
+		}
+		return canonical;
+	}
+
+	/**
+	 * Returns the canonical Green Apple with the same word and synonyms as
+	 * the given one, which becomes canonical if there's none yet.
+	 *
+	 * @param apple
+	 * @return
+	 */
+	public synchronized GreenApple intern(GreenApple apple) {
+		if (apple == null) {
+			throw new IllegalArgumentException("GreenApple cannot be null.");
+		}
+		Collection<String> synonyms = apple.getSynonyms();
+		StringBuilder sb = new StringBuilder(apple.getWord());
+		if (synonyms != null) {
+			/* Synonyms are a set, so their order doesn't matter. */
+			List<String> sorted = new ArrayList<String>(synonyms);
+			Collections.sort(sorted);
+			sb.append(SEPARATOR);
+			for (String synonym : sorted) {
+				sb.append(SEPARATOR).append(synonym);
+			}
+		}
+		String key = sb.toString();
+		GreenApple canonical = greenApples.get(key);
+		if (canonical == null) {
+			canonical = new GreenApple(intern(apple.getWord()));
+			if (synonyms != null) {
+				Collection<String> interned = new HashSet<String>();
+				for (String synonym : synonyms) {
+					interned.add(intern(synonym));
+				}
+				canonical.setSynonyms(interned);
+			}
+			greenApples.put(key, canonical);
+		} else {
+			++duplicateApples;
+			bytesSaved += GREEN_APPLE_BYTES + getBytes(apple.getWord());
+			if (synonyms != null) {
+				bytesSaved += SYNONYMS_BYTES;
+				for (String synonym : synonyms) {
+					bytesSaved += SYNONYM_BYTES + getBytes(synonym);
+				}
+			}
+		}
+		return canonical;
+	}
+
+	/**
+	 * Returns the canonical string equal to the given one.  Unlike
+	 * String.intern, the strings are dropped along with the interner.
+	 *
+	 * @param s
+	 * @return the canonical string, or null if s is null
+	 */
+	private String intern(String s) {
+		if (s == null) {
+			return null;
+		}
+		String canonical = strings.get(s);
+		if (canonical == null) {
+			strings.put(s, s);
+			return s;
+		}
+		if (canonical != s) {
+			++duplicateStrings;
+			bytesSaved += getBytes(s);
+		}
+		return canonical;
+	}
+
+	/**
+	 * Estimates the bytes held by a string.
+	 *
+	 * @param s
+	 * @return
+	 */
+	private static long getBytes(String s) {
+		return s == null ? 0 : STRING_BYTES + 2L * s.length();
+	}
+
+	/**
+	 * Returns the number of distinct apples interned.
+	 *
+	 * @return
+	 */
+	public synchronized int size() {
+		return redApples.size() + greenApples.size();
+	}
+
+	/**
+	 * Returns the number of apples that were replaced by an equal apple.
+	 *
+	 * @return
+	 */
+	public synchronized long getDuplicateApples() {
+		return duplicateApples;
+	}
+
+	/**
+	 * Returns the number of strings of distinct apples that were replaced
+	 * by an equal string.
+	 *
+	 * @return
+	 */
+	public synchronized long getDuplicateStrings() {
+		return duplicateStrings;
+	}
+
+	/**
+	 * Returns an estimate of the heap saved by interning, in bytes.
+	 *
+	 * @return
+	 */
+	public synchronized long getBytesSaved() {
+		return bytesSaved;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public synchronized String toString() {
+		return "AppleInterner: " + size() + " apples, " + duplicateApples + " duplicate apples, "
+				+ duplicateStrings + " duplicate strings, about " + bytesSaved + " bytes saved";
+	}
+
+}
@@ -0,0 +1,349 @@
+/*
+ * BinaryDeckReader.java - created Oct 18, 2026 3:31:26 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.decks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ourbabywolf.apples2apples.GreenApple;
+import com.ourbabywolf.apples2apples.RedApple;
+
+/**
+ * Reads the binary deck format written by BinaryDeckWriter.  The file is
+ * memory-mapped when possible and nothing is decoded up front; strings are
+ * only decoded from UTF-8 when they're asked for.  All the numbers in the
+ * file are big-endian ints.  The layout is:
+ * <pre>
+ *   header:     magic, format version, version string, printing string,
+ *               red count, green count, synonym count, string count,
+ *               string data length
+ *   red:        red count records of (word string, quip string)
+ *   green:      green count records of (word string, first synonym, synonym count)
+ *   synonyms:   synonym count strings
+ *   offsets:    string count + 1 byte offsets into the string data
+ *   data:       the UTF-8 bytes of the strings
+ * </pre>
+ * Strings are referred to by their index in the string table; -1 means null.
+ * Identical strings are only stored once.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class BinaryDeckReader {
+
+	/** Identifies a binary deck file: "A2AD". */
+	static final int MAGIC = 0x41324144;
+
+	/** The version of the format. */
+	static final int FORMAT_VERSION = 1;
+
+	/** The number of ints in the header. */
+	static final int HEADER_INTS = 9;
+
+	/** The ints in a red apple record. */
+	static final int RED_RECORD_INTS = 2;
+
+	/** The ints in a green apple record. */
+	static final int GREEN_RECORD_INTS = 3;
+
+	/** The file extension of binary deck files. */
+	public static final String EXTENSION = ".a2a";
+
+	/** The contents of the file. */
+	private final ByteBuffer buffer;
+
+	/** The version string of the deck. */
+	private final String version;
+
+	/** The printing string of the deck. */
+	private final String printing;
+
+	/** The number of red apples. */
+	private final int redCount;
+
+	/** The number of green apples. */
+	private final int greenCount;
+
+	/** The number of strings in the string table. */
+	private final int stringCount;
+
+	/** Where the red apple records start. */
+	private final int redStart;
+
+	/** Where the green apple records start. */
+	private final int greenStart;
+
+	/** Where the synonym string indexes start. */
+	private final int synonymStart;
+
+	/** Where the string offsets start. */
+	private final int offsetStart;
+
+	/** Where the string data starts. */
+	private final int dataStart;
+
+	/**
+	 * Creates a new BinaryDeckReader over the given buffer, which must hold
+	 * a whole binary deck file starting at position 0.
+	 *
+	 * @param buffer
+	 * @throws IOException - if the buffer doesn't hold a binary deck
+	 */
+	public BinaryDeckReader(ByteBuffer buffer) throws IOException {
+		if (buffer == null) {
+			throw new IllegalArgumentException("ByteBuffer cannot be null.");
+		} else if (buffer.capacity() < HEADER_INTS * 4 || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a binary deck.");
+		} else if (buffer.getInt(4) != FORMAT_VERSION) {
+			throw new IOException("Unsupported binary deck version " + buffer.getInt(4));
+		}
+		this.buffer = buffer;
+		this.redCount = buffer.getInt(16);
+		this.greenCount = buffer.getInt(20);
+		int synonymCount = buffer.getInt(24);
+		this.stringCount = buffer.getInt(28);
+		int dataLength = buffer.getInt(32);
+		this.redStart = HEADER_INTS * 4;
+		this.greenStart = redStart + redCount * RED_RECORD_INTS * 4;
+		this.synonymStart = greenStart + greenCount * GREEN_RECORD_INTS * 4;
+		this.offsetStart = synonymStart + synonymCount * 4;
+		this.dataStart = offsetStart + (stringCount + 1) * 4;
+		if (redCount < 0 || greenCount < 0 || synonymCount < 0 || stringCount < 0
+				|| dataLength < 0 || dataStart + dataLength > buffer.capacity()) {
+			throw new IOException("Binary deck is truncated or corrupt.");
+		}
+		this.version = getString(buffer.getInt(8));
+		this.printing = getString(buffer.getInt(12));
+	}
+
+	/**
+	 * Memory-maps the given binary deck file.
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static BinaryDeckReader map(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			/* The mapping stays valid after the channel is closed. */
+			return new BinaryDeckReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Loads the binary deck at the given URL, memory-mapping it if it's a
+	 * file and reading it into memory otherwise, e.g. from within a jar.
+	 *
+	 * @param url
+	 * @return
+	 * @throws IOException
+	 */
+	public static BinaryDeckReader load(URL url) throws IOException {
+		if ("file".equals(url.getProtocol())) {
+			try {
+				return map(new File(url.toURI()));
+			} catch (URISyntaxException e) {
+				/* fall through and read it as a stream. */
+			}
+		}
+		InputStream in = url.openStream();
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] b = new byte[8192];
+			for (int n; (n = in.read(b)) != -1;) {
+				out.write(b, 0, n);
+			}
+			return new BinaryDeckReader(ByteBuffer.wrap(out.toByteArray()));
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Returns the name of the binary deck compiled from the given XML deck.
+	 *
+	 * @param xmlFileName
+	 * @return
+	 */
+	public static String getBinaryFileName(String xmlFileName) {
+		int dot = xmlFileName.lastIndexOf('.');
+		return (dot < 0 ? xmlFileName : xmlFileName.substring(0, dot)) + EXTENSION;
+	}
+
+	/**
+	 * Decodes the string at the given index of the string table.
+	 *
+	 * @param index
+	 * @return the string, or null if the index is -1
+	 */
+	public String getString(int index) {
+		if (index == -1) {
+			return null;
+		} else if (index < 0 || index >= stringCount) {
+			throw new IndexOutOfBoundsException("String " + index + " of " + stringCount);
+		}
+		int start = buffer.getInt(offsetStart + index * 4);
+		int end = buffer.getInt(offsetStart + (index + 1) * 4);
+		byte[] bytes = new byte[end - start];
+		/* Work on a duplicate so concurrent readers don't share a position. */
+		ByteBuffer data = buffer.duplicate();
+		data.position(dataStart + start);
+		data.get(bytes);
+		try {
+			return new String(bytes, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * @return the version
+	 */
+	public String getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return the printing
+	 */
+	public String getPrinting() {
+		return printing;
+	}
+
+	/**
+	 * @return the number of red apples
+	 */
+	public int getRedCount() {
+		return redCount;
+	}
+
+	/**
+	 * @return the number of green apples
+	 */
+	public int getGreenCount() {
+		return greenCount;
+	}
+
+	/**
+	 * Returns the word of the red apple at the given index.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public String getRedWord(int index) {
+		return getString(redInt(index, 0));
+	}
+
+	/**
+	 * Returns the quip of the red apple at the given index.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public String getRedQuip(int index) {
+		return getString(redInt(index, 1));
+	}
+
+	/**
+	 * Returns the word of the green apple at the given index.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public String getGreenWord(int index) {
+		return getString(greenInt(index, 0));
+	}
+
+	/**
+	 * Returns the synonyms of the green apple at the given index.
+	 *
+	 * @param index
+	 * @return the synonyms, which are empty if the apple has none
+	 */
+	public List<String> getGreenSynonyms(int index) {
+		int first = greenInt(index, 1);
+		int count = greenInt(index, 2);
+		List<String> synonyms = new ArrayList<String>(count);
+		for (int i = 0; i < count; ++i) {
+			synonyms.add(getString(buffer.getInt(synonymStart + (first + i) * 4)));
+		}
+		return synonyms;
+	}
+
+	/**
+	 * Reads an int from a red apple record.
+	 *
+	 * @param index
+	 * @param field
+	 * @return
+	 */
+	private int redInt(int index, int field) {
+		if (index < 0 || index >= redCount) {
+			throw new IndexOutOfBoundsException("RedApple " + index + " of " + redCount);
+		}
+		return buffer.getInt(redStart + (index * RED_RECORD_INTS + field) * 4);
+	}
+
+	/**
+	 * Reads an int from a green apple record.
+	 *
+	 * @param index
+	 * @param field
+	 * @return
+	 */
+	private int greenInt(int index, int field) {
+		if (index < 0 || index >= greenCount) {
+			throw new IndexOutOfBoundsException("GreenApple " + index + " of " + greenCount);
+		}
+		return buffer.getInt(greenStart + (index * GREEN_RECORD_INTS + field) * 4);
+	}
+
+	/**
+	 * Decodes all the red apples.
+	 *
+	 * @return
+	 */
+	public List<RedApple> getRedApples() {
+		List<RedApple> apples = new ArrayList<RedApple>(redCount);
+		for (int i = 0; i < redCount; ++i) {
+			RedApple apple = new RedApple(getRedWord(i));
+			apple.setQuip(getRedQuip(i));
+			apples.add(apple);
+		}
+		return apples;
+	}
+
+	/**
+	 * Decodes all the green apples.
+	 *
+	 * @return
+	 */
+	public List<GreenApple> getGreenApples() {
+		List<GreenApple> apples = new ArrayList<GreenApple>(greenCount);
+		for (int i = 0; i < greenCount; ++i) {
+			GreenApple apple = new GreenApple(getGreenWord(i));
+			for (String synonym : getGreenSynonyms(i)) {
+				apple.addSynonym(synonym);
+			}
+			apples.add(apple);
+		}
+		return apples;
+	}
+
+}
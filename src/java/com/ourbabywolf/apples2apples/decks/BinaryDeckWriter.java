@@ -0,0 +1,207 @@
+/*
+ * BinaryDeckWriter.java - created Oct 18, 2026 3:48:02 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.decks;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import com.ourbabywolf.apples2apples.GreenApple;
+import com.ourbabywolf.apples2apples.RedApple;
+
+/**
+ * Writes apples in the binary deck format read by BinaryDeckReader.  Run
+ * as a program, it compiles every red-*.xml and green-*.xml deck in a
+ * directory into a binary deck in another directory; the build does this
+ * with the compile-decks target.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class BinaryDeckWriter {
+
+	/** Logger */
+	private static final Logger log = Logger.getLogger(BinaryDeckWriter.class.getName());
+
+	/** The strings written so far, mapped to their index in the string table. */
+	private final Map<String, Integer> strings = new LinkedHashMap<String, Integer>();
+
+	/**
+	 * Returns the index of the string in the string table, adding it if
+	 * necessary.
+	 *
+	 * @param s
+	 * @return the index, or -1 if the string is null
+	 */
+	private int indexOf(String s) {
+		if (s == null) {
+			return -1;
+		}
+		Integer index = strings.get(s);
+		if (index == null) {
+			index = strings.size();
+			strings.put(s, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Writes the apples to the stream in the binary deck format.  The
+	 * stream is not closed.
+	 *
+	 * @param version - the deck's version, may be null
+	 * @param printing - the deck's printing, may be null
+	 * @param redApples
+	 * @param greenApples
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void write(String version, String printing,
+			List<RedApple> redApples, List<GreenApple> greenApples,
+			OutputStream out) throws IOException {
+		new BinaryDeckWriter().writeDeck(version, printing, redApples, greenApples, out);
+	}
+
+	/**
+	 * Does the writing for the static write method.
+	 *
+	 * @param version
+	 * @param printing
+	 * @param redApples
+	 * @param greenApples
+	 * @param out
+	 * @throws IOException
+	 */
+	private void writeDeck(String version, String printing,
+			List<RedApple> redApples, List<GreenApple> greenApples,
+			OutputStream out) throws IOException {
+		int versionIndex = indexOf(version);
+		int printingIndex = indexOf(printing);
+		int[] red = new int[redApples.size() * BinaryDeckReader.RED_RECORD_INTS];
+		for (int i = 0; i < redApples.size(); ++i) {
+			RedApple apple = redApples.get(i);
+			red[i * BinaryDeckReader.RED_RECORD_INTS] = indexOf(apple.getWord());
+			red[i * BinaryDeckReader.RED_RECORD_INTS + 1] = indexOf(apple.getQuip());
+		}
+		int[] green = new int[greenApples.size() * BinaryDeckReader.GREEN_RECORD_INTS];
+		List<Integer> synonyms = new ArrayList<Integer>();
+		for (int i = 0; i < greenApples.size(); ++i) {
+			GreenApple apple = greenApples.get(i);
+			Collection<String> appleSynonyms = apple.getSynonyms();
+			green[i * BinaryDeckReader.GREEN_RECORD_INTS] = indexOf(apple.getWord());
+			green[i * BinaryDeckReader.GREEN_RECORD_INTS + 1] = synonyms.size();
+			green[i * BinaryDeckReader.GREEN_RECORD_INTS + 2] =
+					appleSynonyms == null ? 0 : appleSynonyms.size();
+			if (appleSynonyms != null) {
+				for (String synonym : appleSynonyms) {
+					synonyms.add(indexOf(synonym));
+				}
+			}
+		}
+		/* Encode the strings to learn their offsets. */
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		int[] offsets = new int[strings.size() + 1];
+		int s = 0;
+		for (String string : strings.keySet()) {
+			offsets[s++] = data.size();
+			data.write(string.getBytes("UTF-8"));
+		}
+		offsets[s] = data.size();
+
+		DataOutputStream dos = new DataOutputStream(out);
+		dos.writeInt(BinaryDeckReader.MAGIC);
+		dos.writeInt(BinaryDeckReader.FORMAT_VERSION);
+		dos.writeInt(versionIndex);
+		dos.writeInt(printingIndex);
+		dos.writeInt(redApples.size());
+		dos.writeInt(greenApples.size());
+		dos.writeInt(synonyms.size());
+		dos.writeInt(strings.size());
+		dos.writeInt(data.size());
+		for (int i : red) {
+			dos.writeInt(i);
+		}
+		for (int i : green) {
+			dos.writeInt(i);
+		}
+		for (int i : synonyms) {
+			dos.writeInt(i);
+		}
+		for (int i : offsets) {
+			dos.writeInt(i);
+		}
+		data.writeTo(dos);
+		dos.flush();
+	}
+
+	/**
+	 * Compiles the XML deck file into a binary deck file.
+	 *
+	 * @param xmlFile
+	 * @param binaryFile
+	 * @throws Exception
+	 */
+	public static void compile(File xmlFile, File binaryFile) throws Exception {
+		SAXApplesReader reader;
+		InputStream in = new FileInputStream(xmlFile);
+		try {
+			reader = new SAXApplesReader(in);
+		} finally {
+			in.close();
+		}
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(binaryFile));
+		try {
+			write(reader.getVersion(), reader.getPrinting(),
+					reader.getRedApples(), reader.getGreenApples(), out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Compiles the XML decks in one directory into binary decks in another.
+	 * Decks that are already up to date are skipped.
+	 *
+	 * @param args - the directory holding the XML decks and the directory
+	 * 		to write the binary decks to
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length != 2) {
+			System.err.println("Usage: BinaryDeckWriter <xml deck dir> <binary deck dir>");
+			System.exit(1);
+		}
+		File srcDir = new File(args[0]);
+		File destDir = new File(args[1]);
+		destDir.mkdirs();
+		File[] files = srcDir.listFiles();
+		if (files == null) {
+			throw new IOException("Cannot list " + srcDir);
+		}
+		for (File xmlFile : files) {
+			String name = xmlFile.getName();
+			if ((name.startsWith("red-") || name.startsWith("green-")) && name.endsWith(".xml")) {
+				File binaryFile = new File(destDir, BinaryDeckReader.getBinaryFileName(name));
+				if (binaryFile.lastModified() < xmlFile.lastModified()) {
+					log.info("Compiling " + name + " to " + binaryFile.getName());
+					compile(xmlFile, binaryFile);
+				}
+			}
+		}
+	}
+
+}
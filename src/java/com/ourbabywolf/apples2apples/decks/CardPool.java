@@ -0,0 +1,63 @@
+/*
+ * CardPool.java - created Oct 18, 2026 4:21:49 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.decks;
+
+import com.ourbabywolf.apples2apples.Apple;
+
+/**
+ * An immutable, indexed collection of the apples in a deck set.  A pool is
+ * loaded once and shared by every game's PooledDeck, so the apples
+ * themselves are never copied per game.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ * @param <AppleType>
+ */
+public interface CardPool<AppleType extends Apple> {
+
+	/**
+	 * Returns the description of the deck set.
+	 *
+	 * @return
+	 */
+	public String getDescription();
+
+	/**
+	 * Returns the number of apples in the pool.
+	 *
+	 * @return
+	 */
+	public int size();
+
+	/**
+	 * Returns the apple at the given index.  Pools may return a new, equal,
+	 * apple each time.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public AppleType get(int index);
+
+	/**
+	 * Returns the index of the given apple in the pool or, if it's not
+	 * there, of the first apple in the pool equal to it.
+	 *
+	 * @param apple
+	 * @return the index, or -1 if no apple in the pool is equal to it
+	 */
+	public int indexOf(AppleType apple);
+
+	/**
+	 * Returns the index of the given apple if it's one of this pool's own
+	 * apples, as returned by get, and hasn't been changed since, so that
+	 * get would return an equal apple with the same quip or synonyms.
+	 * Unlike indexOf, it never creates or compares the pool's apples.
+	 *
+	 * @param apple
+	 * @return the index, or -1 if it's not one of the pool's own apples
+	 */
+	public int indexOfOwn(AppleType apple);
+
+}
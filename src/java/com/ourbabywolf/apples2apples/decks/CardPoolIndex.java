@@ -0,0 +1,110 @@
+/*
+ * CardPoolIndex.java - created Oct 18, 2026 6:47:02 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.decks;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.ourbabywolf.apples2apples.Apple;
+
+/**
+ * Finds the index of an apple in a CardPool.  The index is built the first
+ * time it's used, so pools that are never searched don't pay for it.  It's
+ * safe for use by multiple threads.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ * @param <AppleType>
+ */
+final class CardPoolIndex<AppleType extends Apple> {
+
+	/** The pool being indexed. */
+	private final CardPool<AppleType> pool;
+
+	/** The maps, once they've been built. */
+	private volatile Maps<AppleType> maps = null;
+
+	/** The apples' indexes; immutable once built. */
+	private static final class Maps<AppleType> {
+
+		/** The index of each apple in the pool. */
+		private final Map<AppleType, Integer> byIdentity;
+
+		/** The index of the first apple in the pool equal to each apple. */
+		private final Map<AppleType, Integer> byEquality;
+
+		private Maps(Map<AppleType, Integer> byIdentity, Map<AppleType, Integer> byEquality) {
+			this.byIdentity = byIdentity;
+			this.byEquality = byEquality;
+		}
+	}
+
+	/**
+	 * Creates a new index of the pool.  The pool mustn't change once
+	 * the index is used.
+	 *
+	 * @param pool
+	 */
+	CardPoolIndex(CardPool<AppleType> pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Returns the maps, building them if no other thread has.
+	 *
+	 * @return
+	 */
+	private Maps<AppleType> getMaps() {
+		Maps<AppleType> m = maps;
+		if (m == null) {
+			synchronized (this) {
+				m = maps;
+				if (m == null) {
+					Map<AppleType, Integer> identity = new IdentityHashMap<AppleType, Integer>(pool.size());
+					Map<AppleType, Integer> equality = new HashMap<AppleType, Integer>(pool.size() * 4 / 3 + 1);
+					for (int i = 0; i < pool.size(); ++i) {
+						AppleType apple = pool.get(i);
+						identity.put(apple, i);
+						if (!equality.containsKey(apple)) {
+							equality.put(apple, i);
+						}
+					}
+					m = new Maps<AppleType>(identity, equality);
+					maps = m;
+				}
+			}
+		}
+		return m;
+	}
+
+	/**
+	 * Returns the index of the given apple in the pool, or of the first
+	 * equal apple if the apple itself isn't in the pool.
+	 *
+	 * @param apple
+	 * @return the index, or -1 if there's no equal apple in the pool
+	 */
+	int indexOf(AppleType apple) {
+		Maps<AppleType> m = getMaps();
+		Integer index = m.byIdentity.get(apple);
+		if (index == null) {
+			index = m.byEquality.get(apple);
+		}
+		return index == null ? -1 : index.intValue();
+	}
+
+	/**
+	 * Returns the index of the given apple itself in the pool.
+	 *
+	 * @param apple
+	 * @return the index, or -1 if the apple isn't in the pool
+	 */
+	int indexOfIdentical(AppleType apple) {
+		Integer index = getMaps().byIdentity.get(apple);
+		return index == null ? -1 : index.intValue();
+	}
+
+}
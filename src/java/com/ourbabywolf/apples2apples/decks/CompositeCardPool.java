@@ -0,0 +1,122 @@
+/*
+ * CompositeCardPool.java - created Oct 18, 2026 5:24:51 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.decks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ourbabywolf.apples2apples.Apple;
+
+/**
+ * A CardPool made of other pools placed end to end, so that a deck can be
+ * drawn from several deck sets without copying any of their apples.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ * @param <AppleType>
+ */
+public class CompositeCardPool<AppleType extends Apple> implements CardPool<AppleType> {
+
+	/** The pools, in order. */
+	private final List<CardPool<AppleType>> pools;
+
+	/** The index in this pool of the first apple of each pool, plus the size. */
+	private final int[] starts;
+
+	/** The descriptions of the pools, separated by commas. */
+	private final String description;
+
+	/**
+	 * Creates a new CompositeCardPool of the given pools.
+	 *
+	 * @param pools
+	 */
+	public CompositeCardPool(List<CardPool<AppleType>> pools) {
+		if (pools == null) {
+			throw new IllegalArgumentException("Pools cannot be null.");
+		}
+		this.pools = new ArrayList<CardPool<AppleType>>(pools);
+		this.starts = new int[pools.size() + 1];
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < pools.size(); ++i) {
+			CardPool<AppleType> pool = pools.get(i);
+			if (pool == null) {
+				throw new IllegalArgumentException("Pool cannot be null.");
+			}
+			starts[i + 1] = starts[i] + pool.size();
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append(pool.getDescription());
+		}
+		this.description = sb.toString();
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.decks.CardPool#getDescription()
+	 */
+	public String getDescription() {
+		return description;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.decks.CardPool#size()
+	 */
+	public int size() {
+		return starts[starts.length - 1];
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.decks.CardPool#get(int)
+	 */
+	public AppleType get(int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("Apple " + index + " of " + size());
+		}
+		/* Find the last pool starting at or before the index. */
+		int low = 0;
+		int high = pools.size() - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (starts[mid] <= index) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return pools.get(low).get(index - starts[low]);
+	}
+
+	/**
+	 * Asks each pool in turn for the apple, so it's found the way the first
+	 * pool holding it, or an equal apple, finds it.  The pools' apples are
+	 * never created to search them, which matters for MappedCardPools.
+	 *
+	 * @see com.ourbabywolf.apples2apples.decks.CardPool#indexOf(com.ourbabywolf.apples2apples.Apple)
+	 */
+	public int indexOf(AppleType apple) {
+		for (int i = 0; i < pools.size(); ++i) {
+			int index = pools.get(i).indexOf(apple);
+			if (index >= 0) {
+				return starts[i] + index;
+			}
+		}
+		return -1;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.decks.CardPool#indexOfOwn(com.ourbabywolf.apples2apples.Apple)
+	 */
+	public int indexOfOwn(AppleType apple) {
+		for (int i = 0; i < pools.size(); ++i) {
+			int index = pools.get(i).indexOfOwn(apple);
+			if (index >= 0) {
+				return starts[i] + index;
+			}
+		}
+		return -1;
+	}
+
+}
@@ -0,0 +1,350 @@
+/*
+ * DeckCache.java - created Oct 18, 2026 2:52:37 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.decks;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import com.ourbabywolf.apples2apples.GreenApple;
+import com.ourbabywolf.apples2apples.RedApple;
+
+/**
+ * Caches the CardPools parsed from the deck files, keyed by file name.  Each
+ * file is parsed at most once, the first time it's asked for, by the thread
+ * that asked; other threads asking for the same file meanwhile wait for that
+ * parse instead of starting their own.  A file that fails to parse is not
+ * cached, so it can be tried again.  If a binary deck compiled from a file
+ * is available, it is loaded in place of the XML.  Apples parsed from XML
+ * are interned across files, so a card printed in several deck sets is
+ * held once.  Binary decks, which a normal build always compiles, aren't
+ * interned: their pools hold no apples, only create them as they're drawn,
+ * so there's nothing to share, and interning what's drawn would keep it
+ * alive.  Interning, and the heap it saves, therefore only applies when the
+ * classpath has the XML files alone.  The cache is safe for use by multiple
+ * threads.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class DeckCache {
+
+	/** Logger */
+	private static final Logger log = Logger.getLogger(DeckCache.class.getName());
+
+	/** The apples parsed from a deck file. */
+	private static class Parsed {
+		private final CardPool<RedApple> red;
+		private final CardPool<GreenApple> green;
+		private Parsed(CardPool<RedApple> red, CardPool<GreenApple> green) {
+			this.red = red;
+			this.green = green;
+		}
+	}
+
+	/** Loads the deck files. */
+	private final ClassLoader classLoader;
+
+	/** The parsed files, or the parses in progress, keyed by file name. */
+	private final ConcurrentMap<String, Future<Parsed>> files =
+			new ConcurrentHashMap<String, Future<Parsed>>();
+
+	/** The time each file took to parse, in milliseconds. */
+	private final ConcurrentMap<String, Long> parseMillis =
+			new ConcurrentHashMap<String, Long>();
+
+	/** The number of requests that found the file already parsed or being parsed. */
+	private final AtomicLong hits = new AtomicLong();
+
+	/** The number of requests that had to parse the file. */
+	private final AtomicLong misses = new AtomicLong();
+
+	/** The total time spent parsing, in nanoseconds. */
+	private final AtomicLong parseNanos = new AtomicLong();
+
+	/** Shares the apples and strings that appear in more than one XML file. */
+	private final AppleInterner interner = new AppleInterner();
+
+	/**
+	 * Creates a new DeckCache that loads the deck files with the given
+	 * class loader.
+	 *
+	 * @param classLoader
+	 */
+	public DeckCache(ClassLoader classLoader) {
+		if (classLoader == null) {
+			throw new IllegalArgumentException("ClassLoader cannot be null.");
+		}
+		this.classLoader = classLoader;
+	}
+
+	/**
+	 * Returns the pool of Red Apples in the given file.
+	 *
+	 * @param fileName
+	 * @return
+	 */
+	public CardPool<RedApple> getRedPool(String fileName) {
+		return get(fileName).red;
+	}
+
+	/**
+	 * Returns the pool of Green Apples in the given file.
+	 *
+	 * @param fileName
+	 * @return
+	 */
+	public CardPool<GreenApple> getGreenPool(String fileName) {
+		return get(fileName).green;
+	}
+
+	/**
+	 * Parses the given files now, if they haven't been already.
+	 *
+	 * @param fileNames
+	 */
+	public void preload(String... fileNames) {
+		for (String fileName : fileNames) {
+			get(fileName);
+		}
+	}
+
+	/**
+	 * Parses the given files now, if they haven't been already, spreading
+	 * them across the executor's threads.  Returns once every file has been
+	 * parsed; if any failed, the first failure is thrown after the others
+	 * have finished.
+	 *
+	 * @param executor
+	 * @param fileNames
+	 */
+	public void preload(ExecutorService executor, String... fileNames) {
+		if (executor == null) {
+			throw new IllegalArgumentException("ExecutorService cannot be null.");
+		}
+		List<Future<Parsed>> parses = new ArrayList<Future<Parsed>>(fileNames.length);
+		for (final String fileName : fileNames) {
+			parses.add(executor.submit(new Callable<Parsed>() {
+				public Parsed call() {
+					return get(fileName);
+				}
+			}));
+		}
+		RuntimeException failure = null;
+		for (int i = 0; i < parses.size(); ++i) {
+			try {
+				parses.get(i).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted waiting for " + fileNames[i], e);
+			} catch (ExecutionException e) {
+				if (failure == null) {
+					Throwable cause = e.getCause();
+					failure = cause instanceof RuntimeException
+							? (RuntimeException) cause : new RuntimeException(cause);
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Indicates if the file has been parsed, or is being parsed.
+	 *
+	 * @param fileName
+	 * @return
+	 */
+	public boolean contains(String fileName) {
+		return files.containsKey(fileName);
+	}
+
+	/**
+	 * Returns the parsed file, parsing it if no other thread has.  Any
+	 * exception from the parse is wrapped with a RuntimeException.
+	 *
+	 * @param fileName
+	 * @return
+	 */
+	private Parsed get(final String fileName) {
+		Future<Parsed> future = files.get(fileName);
+		if (future == null) {
+			FutureTask<Parsed> task = new FutureTask<Parsed>(new Callable<Parsed>() {
+				public Parsed call() throws Exception {
+					return parse(fileName);
+				}
+			});
+			future = files.putIfAbsent(fileName, task);
+			if (future == null) {
+				future = task;
+				misses.incrementAndGet();
+				task.run();
+			} else {
+				hits.incrementAndGet();
+			}
+		} else {
+			hits.incrementAndGet();
+		}
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted waiting for " + fileName, e);
+		} catch (ExecutionException e) {
+			/* Forget the failure so the file can be tried again. */
+			files.remove(fileName, future);
+			Throwable cause = e.getCause();
+			throw cause instanceof RuntimeException
+					? (RuntimeException) cause : new RuntimeException(cause);
+		}
+	}
+
+	/**
+	 * Parses the file into pools, recording how long it took.  If a binary
+	 * deck compiled from the file is available, it is mapped instead and
+	 * the apples are only created as they're drawn.
+	 *
+	 * @param fileName
+	 * @return
+	 * @throws Exception
+	 */
+	private Parsed parse(String fileName) throws Exception {
+		long start = System.nanoTime();
+		Parsed parsed;
+		URL binary = classLoader.getResource(BinaryDeckReader.getBinaryFileName(fileName));
+		if (binary != null) {
+			/* Leave the apples in the binary deck until they're drawn. */
+			BinaryDeckReader reader = BinaryDeckReader.load(binary);
+			String description = getDescription(reader.getVersion(), reader.getPrinting());
+			parsed = new Parsed(MappedCardPool.red(reader, description),
+					MappedCardPool.green(reader, description));
+		} else {
+			/* Stream the apples straight into the lists the pools will own. */
+			final List<RedApple> redApples = new ArrayList<RedApple>();
+			final List<GreenApple> greenApples = new ArrayList<GreenApple>();
+			final String[] header = new String[2];
+			InputStream in = classLoader.getResourceAsStream(fileName);
+			try {
+				SAXApplesReader.read(in, new AppleConsumer() {
+					public void deckStarted(String version, String printing) {
+						header[0] = version;
+						header[1] = printing;
+					}
+					public void redApple(RedApple apple) {
+						redApples.add(interner.intern(apple));
+					}
+					public void greenApple(GreenApple apple) {
+						greenApples.add(interner.intern(apple));
+					}
+				});
+			} finally {
+				if (in != null) {
+					in.close();
+				}
+			}
+			String description = getDescription(header[0], header[1]);
+			parsed = new Parsed(ListBackedCardPool.adopt(description, redApples),
+					ListBackedCardPool.adopt(description, greenApples));
+		}
+		long elapsed = System.nanoTime() - start;
+		parseNanos.addAndGet(elapsed);
+		parseMillis.put(fileName, elapsed / 1000000);
+		log.fine("Loaded " + (binary != null ? binary.toString() : fileName) 
+				+ " in " + (elapsed / 1000000) + " ms.");
+		return parsed;
+	}
+
+	/**
+	 * Generates the description of a deck from its version and printing.
+	 *
+	 * @param version
+	 * @param printing
+	 * @return
+	 */
+	private static String getDescription(String version, String printing) {
+		return version + " (" + printing + " printing)";
+	}
+
+	/**
+	 * Returns the number of files parsed or being parsed.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return files.size();
+	}
+
+	/**
+	 * Returns the number of requests that found the file already parsed or
+	 * being parsed.
+	 *
+	 * @return
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of requests that had to parse the file.
+	 *
+	 * @return
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Returns the total time spent parsing, in milliseconds.
+	 *
+	 * @return
+	 */
+	public long getTotalParseMillis() {
+		return parseNanos.get() / 1000000;
+	}
+
+	/**
+	 * Returns the time the file took to parse, in milliseconds, or -1 if it
+	 * hasn't been parsed successfully.
+	 *
+	 * @param fileName
+	 * @return
+	 */
+	public long getParseMillis(String fileName) {
+		Long millis = parseMillis.get(fileName);
+		return millis == null ? -1 : millis.longValue();
+	}
+
+	/**
+	 * Returns the interner shared by the files parsed from XML, e.g. for the
+	 * heap it has saved.  Files loaded from binary decks don't use it.
+	 *
+	 * @return
+	 */
+	public AppleInterner getInterner() {
+		return interner;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "DeckCache: " + size() + " files, " + getHits() + " hits, "
+				+ getMisses() + " misses, " + getTotalParseMillis() + " ms parsing, about "
+				+ interner.getBytesSaved() + " bytes saved by interning";
+	}
+
+}
@@ -4,6 +4,17 @@
  */
 package com.ourbabywolf.apples2apples.decks;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
 import com.ourbabywolf.apples2apples.Deck;
 import com.ourbabywolf.apples2apples.GreenApple;
 import com.ourbabywolf.apples2apples.RedApple;
@@ -16,6 +27,9 @@ import com.ourbabywolf.apples2apples.RedApple;
  */
 public class DeckFactory {
 	
+	/** Logger */
+	private static final Logger log = Logger.getLogger(DeckFactory.class.getName());
+	
 	/**
 	 * An enumeration of the various standard Apple2Apple deck sets,
 	 * plus some custom decks.
@@ -47,90 +61,263 @@ public class DeckFactory {
 		private DeckSet(String fileNamePart) {
 			this.fileNamePart = fileNamePart;
 		}
+		
+		/**
+		 * @return the name of the file holding the set's red apples
+		 */
+		String getRedFileName() {
+			return "red-" + fileNamePart + ".xml";
+		}
+		
+		/**
+		 * @return the name of the file holding the set's green apples
+		 */
+		String getGreenFileName() {
+			return "green-" + fileNamePart + ".xml";
+		}
 	}
 	
+	/** The parsed deck files, shared by every deck. */
+	private static final DeckCache cache = 
+			new DeckCache(DeckFactory.class.getClassLoader());
+	
+	/** The pools of several sets' Red Apples, by the sets in order. */
+	private static final ConcurrentMap<List<DeckSet>, CardPool<RedApple>> redPools = 
+			new ConcurrentHashMap<List<DeckSet>, CardPool<RedApple>>();
+	
+	/** The pools of several sets' Green Apples, by the sets in order. */
+	private static final ConcurrentMap<List<DeckSet>, CardPool<GreenApple>> greenPools = 
+			new ConcurrentHashMap<List<DeckSet>, CardPool<GreenApple>>();
+	
 	/**
-	 * Uses the information parsed in the reader to generate a description
-	 * for the deck.
+	 * Returns the cache of parsed deck files, e.g. for its metrics.
 	 * 
-	 * @param reader
 	 * @return
 	 */
-	private static String getDeckDescription(SAXApplesReader reader) {
-		return reader.getVersion() + " (" + reader.getPrinting() + " printing)";
+	public static DeckCache getCache() {
+		return cache;
 	}
 	
 	/**
-	 * Obtains a reader, wrapping any exceptions with a RuntimeException.
+	 * Parses the given deck sets now rather than when they're first used,
+	 * e.g. at server startup.
 	 * 
-	 * @param fileName
-	 * @return
+	 * @param sets
 	 */
-	private static SAXApplesReader getReader(String fileName) {
+	public static void preload(DeckSet... sets) {
+		for (DeckSet set : sets) {
+			cache.preload(set.getRedFileName(), set.getGreenFileName());
+		}
+	}
+	
+	/**
+	 * Parses the given deck sets now, on a pool of the given number of
+	 * threads, so that loading many sets at startup takes about as long as
+	 * the largest few rather than all of them together.  The time each set
+	 * took to parse is logged and returned.
+	 * 
+	 * @param threads
+	 * @param sets
+	 * @return the milliseconds spent parsing each set, in the order given
+	 */
+	public static Map<DeckSet, Long> preload(int threads, Collection<DeckSet> sets) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Threads must be at least 1.");
+		}
+		List<String> fileNames = new ArrayList<String>(sets.size() * 2);
+		for (DeckSet set : sets) {
+			fileNames.add(set.getRedFileName());
+			fileNames.add(set.getGreenFileName());
+		}
+		long start = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, fileNames.size())));
 		try {
-			return new SAXApplesReader(
-					DeckFactory.class.getClassLoader().getResourceAsStream(fileName));
-		} catch (Exception e) {
-			throw new RuntimeException(e);
+			cache.preload(executor, fileNames.toArray(new String[fileNames.size()]));
+		} finally {
+			executor.shutdown();
 		}
+		Map<DeckSet, Long> millis = new EnumMap<DeckSet, Long>(DeckSet.class);
+		for (DeckSet set : sets) {
+			long setMillis = cache.getParseMillis(set.getRedFileName()) 
+					+ cache.getParseMillis(set.getGreenFileName());
+			millis.put(set, setMillis);
+			log.info("Loaded " + set + " in " + setMillis + " ms.");
+		}
+		log.info("Loaded " + sets.size() + " deck sets on " + threads + " threads in " 
+				+ ((System.nanoTime() - start) / 1000000) + " ms; " + cache.getInterner());
+		return millis;
 	}
 	
 	/**
 	 * Returns a deck of Red Apples from the given file name.  If selfReplenishing
-	 * is true, the deck returned will not be exhausted.
+	 * is true, the deck returned will not be exhausted.  The file is only
+	 * parsed the first time it's used.
 	 * 
 	 * @param fileName
 	 * @param selfReplenishing
 	 * @return deck
 	 */
 	public static Deck<RedApple> getRedDeck(String fileName, boolean selfReplenishing) {
-		SAXApplesReader reader = getReader(fileName);
-		ListBackedDeck<RedApple> deck = 
-				new ListBackedDeck<RedApple>(selfReplenishing, 
-						getDeckDescription(reader));
-		deck.addAll(reader.getRedApples());
-		return deck;
+		return new PooledDeck<RedApple>(cache.getRedPool(fileName), selfReplenishing);
 	}
 	
 	/**
 	 * Returns a deck of Green Apples from the given file name.  If selfReplenishing
-	 * is true, the deck returned will not be exhausted.
+	 * is true, the deck returned will not be exhausted.  The file is only
+	 * parsed the first time it's used.
 	 * 
 	 * @param fileName
 	 * @param selfReplenishing
 	 * @return deck
 	 */
 	public static Deck<GreenApple> getGreenDeck(String fileName, boolean selfReplenishing) {
-		SAXApplesReader reader = getReader(fileName);
-		ListBackedDeck<GreenApple> deck = 
-				new ListBackedDeck<GreenApple>(selfReplenishing, 
-						getDeckDescription(reader));
-		deck.addAll(reader.getGreenApples());
-		return deck;
+		return new PooledDeck<GreenApple>(cache.getGreenPool(fileName), selfReplenishing);
+	}
+
+	/**
+	 * Returns the shared pool of Red Apples in the given A2A set, loading it
+	 * the first time it's needed.
+	 * 
+	 * @param deck set
+	 * @return pool
+	 */
+	public static CardPool<RedApple> getRedPool(DeckSet set) {
+		return cache.getRedPool(set.getRedFileName());
+	}
+	
+	/**
+	 * Returns the shared pool of Green Apples in the given A2A set, loading it
+	 * the first time it's needed.
+	 * 
+	 * @param deck set
+	 * @return pool
+	 */
+	public static CardPool<GreenApple> getGreenPool(DeckSet set) {
+		return cache.getGreenPool(set.getGreenFileName());
 	}
 
 	/**
 	 * Returns a deck of Red Apples from the given A2A set.  If selfReplenishing
-	 * is true, the deck returned will not be exhausted.
+	 * is true, the deck returned will not be exhausted.  The deck shares its
+	 * apples with every other deck of the set.
 	 * 
 	 * @param deck set
 	 * @param selfReplenishing
 	 * @return deck
 	 */
 	public static Deck<RedApple> getRedDeck(DeckSet set, boolean selfReplenishing) {
-		return getRedDeck("red-" + set.fileNamePart + ".xml", selfReplenishing);
+		return new PooledDeck<RedApple>(getRedPool(set), selfReplenishing);
 	}
 	
 	/**
 	 * Returns a deck of Green Apples from the given A2A set.  If selfReplenishing
-	 * is true, the deck returned will not be exhausted.
+	 * is true, the deck returned will not be exhausted.  The deck shares its
+	 * apples with every other deck of the set.
 	 * 
 	 * @param deck set
 	 * @param selfReplenishing
 	 * @return deck
 	 */
 	public static Deck<GreenApple> getGreenDeck(DeckSet set, boolean selfReplenishing) {
-		return getGreenDeck("green-" + set.fileNamePart + ".xml", selfReplenishing);
+		return new PooledDeck<GreenApple>(getGreenPool(set), selfReplenishing);
+	}
+	
+	/**
+	 * Loads the given sets that haven't been loaded yet, in parallel, one
+	 * thread per processor.  If every set is loaded, nothing is done.
+	 * 
+	 * @param sets
+	 */
+	private static void load(List<DeckSet> sets) {
+		List<DeckSet> missing = new ArrayList<DeckSet>(sets.size());
+		for (DeckSet set : sets) {
+			if (!cache.contains(set.getRedFileName()) || !cache.contains(set.getGreenFileName())) {
+				missing.add(set);
+			}
+		}
+		if (!missing.isEmpty()) {
+			preload(Runtime.getRuntime().availableProcessors(), missing);
+		}
+	}
+	
+	/**
+	 * Returns the shared pool of Red Apples in all the given A2A sets, in
+	 * order, loading the sets the first time they're needed.
+	 * 
+	 * @param sets
+	 * @return pool
+	 */
+	public static CardPool<RedApple> getRedPool(Collection<DeckSet> sets) {
+		List<DeckSet> key = new ArrayList<DeckSet>(sets);
+		CardPool<RedApple> pool = redPools.get(key);
+		if (pool == null) {
+			load(key);
+			List<CardPool<RedApple>> pools = new ArrayList<CardPool<RedApple>>(key.size());
+			for (DeckSet set : key) {
+				pools.add(getRedPool(set));
+			}
+			CardPool<RedApple> existing = redPools.putIfAbsent(key, 
+					pool = new CompositeCardPool<RedApple>(pools));
+			if (existing != null) {
+				pool = existing;
+			}
+		}
+		return pool;
+	}
+	
+	/**
+	 * Returns the shared pool of Green Apples in all the given A2A sets, in
+	 * order, loading the sets the first time they're needed.
+	 * 
+	 * @param sets
+	 * @return pool
+	 */
+	public static CardPool<GreenApple> getGreenPool(Collection<DeckSet> sets) {
+		List<DeckSet> key = new ArrayList<DeckSet>(sets);
+		CardPool<GreenApple> pool = greenPools.get(key);
+		if (pool == null) {
+			load(key);
+			List<CardPool<GreenApple>> pools = new ArrayList<CardPool<GreenApple>>(key.size());
+			for (DeckSet set : key) {
+				pools.add(getGreenPool(set));
+			}
+			CardPool<GreenApple> existing = greenPools.putIfAbsent(key, 
+					pool = new CompositeCardPool<GreenApple>(pools));
+			if (existing != null) {
+				pool = existing;
+			}
+		}
+		return pool;
+	}
+	
+	/**
+	 * Returns one deck of the Red Apples in all the given A2A sets.  Sets
+	 * that haven't been loaded yet are loaded in parallel, one thread per
+	 * processor.  If selfReplenishing is true, the deck returned will not be
+	 * exhausted.  The deck shares its pool with every other deck of the
+	 * same sets.
+	 * 
+	 * @param sets
+	 * @param selfReplenishing
+	 * @return deck
+	 */
+	public static Deck<RedApple> getRedDeck(Collection<DeckSet> sets, boolean selfReplenishing) {
+		return new PooledDeck<RedApple>(getRedPool(sets), selfReplenishing);
+	}
+	
+	/**
+	 * Returns one deck of the Green Apples in all the given A2A sets.  Sets
+	 * that haven't been loaded yet are loaded in parallel, one thread per
+	 * processor.  If selfReplenishing is true, the deck returned will not be
+	 * exhausted.  The deck shares its pool with every other deck of the
+	 * same sets.
+	 * 
+	 * @param sets
+	 * @param selfReplenishing
+	 * @return deck
+	 */
+	public static Deck<GreenApple> getGreenDeck(Collection<DeckSet> sets, boolean selfReplenishing) {
+		return new PooledDeck<GreenApple>(getGreenPool(sets), selfReplenishing);
 	}
 	
 }
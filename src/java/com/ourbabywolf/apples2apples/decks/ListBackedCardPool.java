@@ -0,0 +1,126 @@
+/*
+ * ListBackedCardPool.java - created Oct 18, 2026 2:05:16 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.decks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.ourbabywolf.apples2apples.Apple;
+
+/**
+ * A CardPool backed by an unmodifiable List of apples that have already
+ * been loaded.  The apples must not be modified once they're in a pool.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ * @param <AppleType>
+ */
+public class ListBackedCardPool<AppleType extends Apple> implements CardPool<AppleType> {
+
+	/** The description of the deck set. */
+	private final String description;
+
+	/** The apples, in the order they were loaded. */
+	private final List<AppleType> apples;
+
+	/** Finds apples in the pool. */
+	private final CardPoolIndex<AppleType> index = new CardPoolIndex<AppleType>(this);
+
+	/**
+	 * Creates a new ListBackedCardPool holding a copy of the given apples.
+	 *
+	 * @param description - the description of the deck set
+	 * @param apples
+	 */
+	public ListBackedCardPool(String description, List<AppleType> apples) {
+		this(description, apples, true);
+	}
+
+	/**
+	 * Creates a new ListBackedCardPool that holds either a copy of the
+	 * given apples or the given list itself.
+	 *
+	 * @param description
+	 * @param apples
+	 * @param copy
+	 */
+	private ListBackedCardPool(String description, List<AppleType> apples, boolean copy) {
+		if (apples == null) {
+			throw new IllegalArgumentException("Apples cannot be null.");
+		}
+		this.description = description;
+		this.apples = Collections.unmodifiableList(copy ? new ArrayList<AppleType>(apples) : apples);
+	}
+
+	/**
+	 * Creates a pool that takes over the given list rather than copying it,
+	 * for lists that were filled just for the pool.  The caller must not
+	 * modify the list afterwards.
+	 *
+	 * @param <A>
+	 * @param description
+	 * @param apples
+	 * @return
+	 */
+	static <A extends Apple> ListBackedCardPool<A> adopt(String description, List<A> apples) {
+		return new ListBackedCardPool<A>(description, apples, false);
+	}
+
+	/**
+	 * Returns the description of the deck set.
+	 *
+	 * @return
+	 */
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * Returns the number of apples in the pool.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return apples.size();
+	}
+
+	/**
+	 * Returns the apple at the given index.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public AppleType get(int index) {
+		return apples.get(index);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.decks.CardPool#indexOf(com.ourbabywolf.apples2apples.Apple)
+	 */
+	public int indexOf(AppleType apple) {
+		return index.indexOf(apple);
+	}
+
+	/**
+	 * Finds the apple itself.  The pool's apples are never modified, so the
+	 * apple is still the one the pool holds.
+	 *
+	 * @see com.ourbabywolf.apples2apples.decks.CardPool#indexOfOwn(com.ourbabywolf.apples2apples.Apple)
+	 */
+	public int indexOfOwn(AppleType apple) {
+		return index.indexOfIdentical(apple);
+	}
+
+	/**
+	 * Returns a read-only view of the apples in the pool.
+	 *
+	 * @return
+	 */
+	public List<AppleType> getApples() {
+		return apples;
+	}
+
+}
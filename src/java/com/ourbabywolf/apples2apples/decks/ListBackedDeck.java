@@ -2,11 +2,11 @@ package com.ourbabywolf.apples2apples.decks;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 
 import com.ourbabywolf.apples2apples.Apple;
 import com.ourbabywolf.apples2apples.Deck;
+import com.ourbabywolf.apples2apples.RestorableDeck;
 
 /**
  * A Deck implementation that supports all AppleTypes backed by a List.
@@ -15,13 +15,17 @@ import com.ourbabywolf.apples2apples.Deck;
  *
  * @param <AppleType>
  */
-public class ListBackedDeck<AppleType extends Apple> implements Deck<AppleType> {
+public class ListBackedDeck<AppleType extends Apple> implements RestorableDeck<AppleType> {
 	
 	/** Holds the apples. */
 	private final List<AppleType> apples;
 	
-	/** Points to the "top" card of the deck. */
-	private Iterator<AppleType> it;
+	/** 
+	 * The index of the "top" card of the deck.  The apples before it have
+	 * been drawn; a self-replenishing deck wraps around to the first apple
+	 * once the last has been drawn.
+	 */
+	private int top = 0;
 	
 	/** The description of the Deck. */
 	private String description = null;
@@ -91,17 +95,30 @@ public class ListBackedDeck<AppleType extends Apple> implements Deck<AppleType>
 	}
 
 	/**
-	 * Returns the next element in the list. 
+	 * Returns the next element in the list.  Drawing from a
+	 * non-self-replenishing deck just advances the top of the deck rather
+	 * than removing the apple from the front of the list. 
 	 * @return an apple
 	 */
 	public AppleType draw() {
-		if (selfReplenishing) {
-			if (it == null || !it.hasNext()) {
-				it = apples.iterator();
+		if (apples.isEmpty()) {
+			return null;
+		} else if (selfReplenishing) {
+			if (top >= apples.size()) {
+				top = 0;
 			}
-			return it.next();
+			return apples.get(top++);
+		} else if (top >= apples.size()) {
+			return null;
 		} else {
-			return !apples.isEmpty() ? apples.remove(0) : null;
+			AppleType apple = apples.get(top);
+			apples.set(top++, null);
+			if (top == apples.size()) {
+				/* Let go of the drawn slots once the deck runs out. */
+				apples.clear();
+				top = 0;
+			}
+			return apple;
 		}
 	}
 
@@ -121,13 +138,11 @@ public class ListBackedDeck<AppleType extends Apple> implements Deck<AppleType>
 	}
 
 	/**
-	 * Indicates if there are no more apples in this deck.
+	 * Indicates if there are no more apples in this deck.  A
+	 * self-replenishing deck is only exhausted if it has no apples at all.
 	 */
 	public boolean isExhausted() {
-		if (it == null) {
-			it = apples.iterator();
-		}
-		return selfReplenishing ? false : !it.hasNext();
+		return selfReplenishing ? apples.isEmpty() : top >= apples.size();
 	}
 
 	/** 
@@ -137,8 +152,40 @@ public class ListBackedDeck<AppleType extends Apple> implements Deck<AppleType>
      * only the remaining cards are shuffled.
 	 */
 	public void shuffle() {
-		Collections.shuffle(apples);
-		it = apples.iterator();
+		if (selfReplenishing) {
+			Collections.shuffle(apples);
+			top = 0;
+		} else {
+			Collections.shuffle(apples.subList(top, apples.size()));
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.RestorableDeck#getRemainingApples()
+	 */
+	public List<AppleType> getRemainingApples() {
+		List<AppleType> remaining = new ArrayList<AppleType>(apples.size());
+		if (selfReplenishing) {
+			/* The next apple is the first if the last has just been drawn. */
+			int next = top >= apples.size() ? 0 : top;
+			remaining.addAll(apples.subList(next, apples.size()));
+			remaining.addAll(apples.subList(0, next));
+		} else {
+			remaining.addAll(apples.subList(top, apples.size()));
+		}
+		return remaining;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.RestorableDeck#restoreRemainingApples(java.util.List)
+	 */
+	public void restoreRemainingApples(List<AppleType> apples) {
+		if (apples == null) {
+			throw new IllegalArgumentException("Apples cannot be null.");
+		}
+		this.apples.clear();
+		this.apples.addAll(apples);
+		top = 0;
 	}
 
 	/**
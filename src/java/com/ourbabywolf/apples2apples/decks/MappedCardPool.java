@@ -0,0 +1,345 @@
+/*
+ * MappedCardPool.java - created Oct 18, 2026 4:27:33 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.decks;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.ourbabywolf.apples2apples.Apple;
+import com.ourbabywolf.apples2apples.GreenApple;
+import com.ourbabywolf.apples2apples.RedApple;
+
+/**
+ * A CardPool over a (usually memory-mapped) binary deck that holds no
+ * apples at all.  Each apple is created when it's drawn, with only its word
+ * decoded; a RedApple's quip and a GreenApple's synonyms are decoded the
+ * first time they're asked for.  The heap used by a deck set is therefore
+ * proportional to the apples actually dealt rather than the size of the
+ * set.  Since apples are created as needed, drawing the same apple twice
+ * yields two equal, but different, apples.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ * @param <AppleType>
+ */
+public abstract class MappedCardPool<AppleType extends Apple> implements CardPool<AppleType> {
+
+	/** The binary deck. */
+	protected final BinaryDeckReader reader;
+
+	/** The description of the deck set. */
+	private final String description;
+
+	/** The index of the first apple with each key, once it's been built. */
+	private volatile Map<String, Integer> keys = null;
+
+	/**
+	 * Creates a new MappedCardPool.
+	 *
+	 * @param reader
+	 * @param description
+	 */
+	protected MappedCardPool(BinaryDeckReader reader, String description) {
+		if (reader == null) {
+			throw new IllegalArgumentException("BinaryDeckReader cannot be null.");
+		}
+		this.reader = reader;
+		this.description = description;
+	}
+
+	/**
+	 * Returns a pool of the Red Apples in the binary deck.
+	 *
+	 * @param reader
+	 * @param description
+	 * @return
+	 */
+	public static CardPool<RedApple> red(BinaryDeckReader reader, String description) {
+		return new MappedCardPool<RedApple>(reader, description) {
+			public int size() {
+				return this.reader.getRedCount();
+			}
+			public RedApple get(int index) {
+				return new LazyRedApple(this.reader, index);
+			}
+			protected String getWord(int index) {
+				return this.reader.getRedWord(index);
+			}
+			protected int getDrawnIndex(RedApple apple) {
+				if (apple instanceof LazyRedApple && ((LazyRedApple) apple).deck == this.reader) {
+					return ((LazyRedApple) apple).index;
+				}
+				return -1;
+			}
+		};
+	}
+
+	/**
+	 * Returns a pool of the Green Apples in the binary deck.
+	 *
+	 * @param reader
+	 * @param description
+	 * @return
+	 */
+	public static CardPool<GreenApple> green(BinaryDeckReader reader, String description) {
+		return new MappedCardPool<GreenApple>(reader, description) {
+			public int size() {
+				return this.reader.getGreenCount();
+			}
+			public GreenApple get(int index) {
+				return new LazyGreenApple(this.reader, index);
+			}
+			protected String getWord(int index) {
+				return this.reader.getGreenWord(index);
+			}
+			protected int getDrawnIndex(GreenApple apple) {
+				if (apple instanceof LazyGreenApple && ((LazyGreenApple) apple).deck == this.reader) {
+					return ((LazyGreenApple) apple).index;
+				}
+				return -1;
+			}
+		};
+	}
+
+	/* (non-Javadoc)
+	 * @see com.ourbabywolf.apples2apples.decks.CardPool#getDescription()
+	 */
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * Returns the word of the apple at the given index, without creating it.
+	 *
+	 * @param index
+	 * @return
+	 */
+	protected abstract String getWord(int index);
+
+	/**
+	 * Returns the index of the apple if it was drawn from this binary deck.
+	 *
+	 * @param apple
+	 * @return the index, or -1 if it wasn't
+	 */
+	protected abstract int getDrawnIndex(AppleType apple);
+
+	/**
+	 * Returns the index an apple drawn from this pool was drawn from.  For
+	 * any other apple, returns the index of the first apple in the pool with
+	 * its word; the first such search decodes every word, but creates no
+	 * apples.
+	 *
+	 * @see com.ourbabywolf.apples2apples.decks.CardPool#indexOf(com.ourbabywolf.apples2apples.Apple)
+	 */
+	public int indexOf(AppleType apple) {
+		if (apple == null) {
+			return -1;
+		}
+		int index = getDrawnIndex(apple);
+		if (index < 0) {
+			Integer first = getKeys().get(keyOf(apple.getWord()));
+			index = first == null ? -1 : first.intValue();
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the index an apple drawn from this pool was drawn from, as long
+	 * as its quip or synonyms haven't been set since.
+	 *
+	 * @see com.ourbabywolf.apples2apples.decks.CardPool#indexOfOwn(com.ourbabywolf.apples2apples.Apple)
+	 */
+	public int indexOfOwn(AppleType apple) {
+		int index = apple == null ? -1 : getDrawnIndex(apple);
+		return index >= 0 && !((LazyApple) apple).isChanged() ? index : -1;
+	}
+
+	/**
+	 * Returns the form of the word that apples with equal words share.  It
+	 * must match the normalization Apple compares and hashes words by.
+	 *
+	 * @param word
+	 * @return
+	 */
+	private static String keyOf(String word) {
+		return word.trim().toUpperCase(Locale.ENGLISH);
+	}
+
+	/**
+	 * Returns the index of the first apple with each key, building it if no
+	 * other thread has.
+	 *
+	 * @return
+	 */
+	private Map<String, Integer> getKeys() {
+		Map<String, Integer> k = keys;
+		if (k == null) {
+			synchronized (this) {
+				k = keys;
+				if (k == null) {
+					k = new HashMap<String, Integer>(size() * 4 / 3 + 1);
+					for (int i = 0; i < size(); ++i) {
+						String key = keyOf(getWord(i));
+						if (!k.containsKey(key)) {
+							k.put(key, i);
+						}
+					}
+					keys = k;
+				}
+			}
+		}
+		return k;
+	}
+
+	/**
+	 * An apple created by a MappedCardPool.
+	 */
+	interface LazyApple {
+
+		/**
+		 * Indicates if the apple's quip or synonyms have been set since it
+		 * was drawn, so it may no longer match the binary deck.
+		 *
+		 * @return
+		 */
+		boolean isChanged();
+	}
+
+	/**
+	 * A RedApple that decodes its quip when it's first asked for.
+	 */
+	static class LazyRedApple extends RedApple implements LazyApple {
+
+		/** The binary deck the apple was drawn from. */
+		private final BinaryDeckReader deck;
+
+		/** The binary deck, until the quip is decoded. */
+		private BinaryDeckReader reader;
+
+		/** The index of the apple in the binary deck. */
+		private final int index;
+
+		/** Set once the quip has been set. */
+		private boolean changed = false;
+
+		LazyRedApple(BinaryDeckReader reader, int index) {
+			super(reader.getRedWord(index));
+			this.deck = reader;
+			this.reader = reader;
+			this.index = index;
+		}
+
+		/**
+		 * Indicates if the quip has been decoded or set.
+		 *
+		 * @return
+		 */
+		boolean isLoaded() {
+			return reader == null;
+		}
+
+		@Override
+		public String getQuip() {
+			if (reader != null) {
+				super.setQuip(reader.getRedQuip(index));
+				reader = null;
+			}
+			return super.getQuip();
+		}
+
+		/* (non-Javadoc)
+		 * @see com.ourbabywolf.apples2apples.decks.MappedCardPool.LazyApple#isChanged()
+		 */
+		public boolean isChanged() {
+			return changed;
+		}
+
+		@Override
+		public void setQuip(String quip) {
+			reader = null;
+			changed = true;
+			super.setQuip(quip);
+		}
+	}
+
+	/**
+	 * A GreenApple that decodes its synonyms when they're first asked for.
+	 */
+	static class LazyGreenApple extends GreenApple implements LazyApple {
+
+		/** The binary deck the apple was drawn from. */
+		private final BinaryDeckReader deck;
+
+		/** The binary deck, until the synonyms are decoded. */
+		private BinaryDeckReader reader;
+
+		/** The index of the apple in the binary deck. */
+		private final int index;
+
+		/** Set once the synonyms have been set or added to. */
+		private boolean changed = false;
+
+		LazyGreenApple(BinaryDeckReader reader, int index) {
+			super(reader.getGreenWord(index));
+			this.deck = reader;
+			this.reader = reader;
+			this.index = index;
+		}
+
+		/**
+		 * Indicates if the synonyms have been decoded or set.
+		 *
+		 * @return
+		 */
+		boolean isLoaded() {
+			return reader == null;
+		}
+
+		/**
+		 * Decodes the synonyms if they haven't been yet.
+		 */
+		private void load() {
+			if (reader != null) {
+				List<String> synonyms = reader.getGreenSynonyms(index);
+				reader = null;
+				/* Match SAXApplesReader, which leaves an apple without synonyms with none. */
+				super.setSynonyms(synonyms.isEmpty() ? null : new HashSet<String>(synonyms));
+			}
+		}
+
+		@Override
+		public Collection<String> getSynonyms() {
+			load();
+			return super.getSynonyms();
+		}
+
+		/* (non-Javadoc)
+		 * @see com.ourbabywolf.apples2apples.decks.MappedCardPool.LazyApple#isChanged()
+		 */
+		public boolean isChanged() {
+			return changed;
+		}
+
+		@Override
+		public void setSynonyms(Collection<String> synonyms) {
+			reader = null;
+			changed = true;
+			super.setSynonyms(synonyms);
+		}
+
+		@Override
+		public void addSynonym(String synonym) {
+			load();
+			changed = true;
+			super.addSynonym(synonym);
+		}
+	}
+
+}
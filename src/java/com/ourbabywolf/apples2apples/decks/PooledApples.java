@@ -0,0 +1,167 @@
+/*
+ * PooledApples.java - created Oct 18, 2026 9:14:38 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.decks;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.ourbabywolf.apples2apples.Apple;
+import com.ourbabywolf.apples2apples.RestorableDeck;
+
+/**
+ * An unmodifiable list of the remaining apples of a PooledDeck, held the
+ * same way the deck holds them: as indexes into a CardPool, plus any apples
+ * from outside the pool.  Each apple is only fetched from the pool when
+ * it's asked for, so a snapshot of a deck over a MappedCardPool creates no
+ * apples, and one can be written out or restored by index alone.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ * @param <AppleType>
+ */
+public final class PooledApples<AppleType extends Apple> extends AbstractList<AppleType>
+		implements RestorableDeck.RemainingApples<AppleType>, RandomAccess {
+
+	/** The pool the indexes refer to. */
+	private final CardPool<AppleType> pool;
+
+	/**
+	 * The apples, in order.  Non-negative values are indexes into the pool;
+	 * negative values n refer to the extras at index -n - 1.
+	 */
+	private final int[] order;
+
+	/** Apples from outside the pool. */
+	private final List<AppleType> extras;
+
+	/**
+	 * Creates a new list holding copies of the given order and extras.
+	 *
+	 * @param pool
+	 * @param order - non-negative values are indexes into the pool; negative
+	 * values n refer to the extras at index -n - 1
+	 * @param extras - may be null if there are none
+	 */
+	public PooledApples(CardPool<AppleType> pool, int[] order, List<AppleType> extras) {
+		this(pool, order, extras, true);
+	}
+
+	/**
+	 * Creates a new list that holds either copies of the given order and
+	 * extras or the given ones themselves.
+	 *
+	 * @param pool
+	 * @param order
+	 * @param extras
+	 * @param copy
+	 */
+	private PooledApples(CardPool<AppleType> pool, int[] order, List<AppleType> extras, boolean copy) {
+		if (pool == null) {
+			throw new IllegalArgumentException("CardPool cannot be null.");
+		}
+		if (order == null) {
+			throw new IllegalArgumentException("Order cannot be null.");
+		}
+		for (int entry : order) {
+			if (entry >= pool.size() || (entry < 0 && (extras == null || -entry > extras.size()))) {
+				throw new IllegalArgumentException("No apple for entry " + entry + ".");
+			}
+		}
+		this.pool = pool;
+		this.order = copy ? copy(order) : order;
+		this.extras = copy && extras != null ? new ArrayList<AppleType>(extras) : extras;
+	}
+
+	/**
+	 * Creates a list that takes over the given order and extras rather than
+	 * copying them, for ones that were filled just for the list.  The caller
+	 * must not modify them afterwards.
+	 *
+	 * @param <A>
+	 * @param pool
+	 * @param order
+	 * @param extras
+	 * @return
+	 */
+	static <A extends Apple> PooledApples<A> adopt(CardPool<A> pool, int[] order, List<A> extras) {
+		return new PooledApples<A>(pool, order, extras, false);
+	}
+
+	/**
+	 * Returns a copy of an array.
+	 *
+	 * @param array
+	 * @return
+	 */
+	private static int[] copy(int[] array) {
+		int[] copy = new int[array.length];
+		System.arraycopy(array, 0, copy, 0, array.length);
+		return copy;
+	}
+
+	/**
+	 * Returns the pool the indexes refer to.
+	 *
+	 * @return
+	 */
+	public CardPool<AppleType> getPool() {
+		return pool;
+	}
+
+	/**
+	 * Returns the pool index of the apple at the given position, without
+	 * fetching it from the pool.
+	 *
+	 * @param position
+	 * @return the index, or -1 if the apple isn't from the pool
+	 */
+	public int getIndex(int position) {
+		if (position < 0 || position >= order.length) {
+			throw new IndexOutOfBoundsException("Apple " + position + " of " + order.length);
+		}
+		return Math.max(order[position], -1);
+	}
+
+	/**
+	 * Returns a copy of the order.
+	 *
+	 * @return
+	 */
+	int[] copyOrder() {
+		return copy(order);
+	}
+
+	/**
+	 * Returns a copy of the extras.
+	 *
+	 * @return a list, or null if there are none
+	 */
+	List<AppleType> copyExtras() {
+		return extras == null ? null : new ArrayList<AppleType>(extras);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractList#get(int)
+	 */
+	@Override
+	public AppleType get(int position) {
+		if (position < 0 || position >= order.length) {
+			throw new IndexOutOfBoundsException("Apple " + position + " of " + order.length);
+		}
+		int entry = order[position];
+		return entry >= 0 ? pool.get(entry) : extras.get(-entry - 1);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		return order.length;
+	}
+
+}
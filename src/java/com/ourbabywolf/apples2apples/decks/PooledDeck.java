@@ -0,0 +1,276 @@
+/*
+ * PooledDeck.java - created Oct 18, 2026 2:11:52 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.decks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.ourbabywolf.apples2apples.Apple;
+import com.ourbabywolf.apples2apples.Deck;
+import com.ourbabywolf.apples2apples.RestorableDeck;
+
+/**
+ * A Deck that holds no apples of its own, just an ordering of the indexes
+ * into a shared CardPool.  Shuffling and drawing only touch the int array,
+ * so a deck costs a few bytes per card no matter how many games use the
+ * same pool.  Apples from other pools that are combined into this deck are
+ * kept in a separate list.
+ * <p>
+ * Draw, shuffle and combine behave just like they do for a ListBackedDeck.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ * @param <AppleType>
+ */
+public class PooledDeck<AppleType extends Apple> implements RestorableDeck<AppleType> {
+
+	/** Shuffles the decks. */
+	private static final Random random = new Random();
+
+	/** The pool the indexes refer to. */
+	private final CardPool<AppleType> pool;
+
+	/**
+	 * The order of the apples in the deck.  Non-negative values are indexes
+	 * into the pool; negative values n refer to the extras at index -n - 1.
+	 */
+	private int[] order;
+
+	/** The number of entries in use in the order array. */
+	private int size;
+
+	/**
+	 * The index of the "top" card of the deck.  The apples before it have
+	 * been drawn; a self-replenishing deck wraps around to the first apple
+	 * once the last has been drawn.
+	 */
+	private int top = 0;
+
+	/** Apples combined into this deck from outside the pool. */
+	private List<AppleType> extras = null;
+
+	/** The description of the Deck. */
+	private String description;
+
+	/** Indicates if the deck is self-replenishing. */
+	private final boolean selfReplenishing;
+
+	/**
+	 * Creates a new deck containing every apple in the pool, in the pool's
+	 * order.
+	 *
+	 * @param pool
+	 * @param selfReplenishing - if true, the apples will never run out
+	 */
+	public PooledDeck(CardPool<AppleType> pool, boolean selfReplenishing) {
+		if (pool == null) {
+			throw new IllegalArgumentException("CardPool cannot be null.");
+		}
+		this.pool = pool;
+		this.selfReplenishing = selfReplenishing;
+		this.description = pool.getDescription();
+		this.size = pool.size();
+		this.order = new int[size];
+		for (int i = 0; i < size; ++i) {
+			order[i] = i;
+		}
+	}
+
+	/**
+	 * Returns the apple an entry of the order array refers to.
+	 *
+	 * @param entry
+	 * @return
+	 */
+	private AppleType resolve(int entry) {
+		return entry >= 0 ? pool.get(entry) : extras.get(-entry - 1);
+	}
+
+	/**
+	 * Appends an entry to the order array, growing it if necessary.
+	 *
+	 * @param entry
+	 */
+	private void append(int entry) {
+		if (size == order.length) {
+			int[] grown = new int[Math.max(16, order.length * 2)];
+			System.arraycopy(order, 0, grown, 0, size);
+			order = grown;
+		}
+		order[size++] = entry;
+	}
+
+	/**
+	 * Returns the next apple in the deck.
+	 * @return an apple
+	 */
+	public AppleType draw() {
+		if (size == 0) {
+			return null;
+		} else if (selfReplenishing) {
+			if (top >= size) {
+				top = 0;
+			}
+			return resolve(order[top++]);
+		} else if (top >= size) {
+			return null;
+		} else {
+			return resolve(order[top++]);
+		}
+	}
+
+	/**
+	 * Indicates if there are no more apples in this deck.  A
+	 * self-replenishing deck is only exhausted if it has no apples at all.
+	 */
+	public boolean isExhausted() {
+		return selfReplenishing ? size == 0 : top >= size;
+	}
+
+	/**
+	 * Randomizes the ordering of the deck,  If the
+	 * deck is self replenishing, all cards will be reshuffled,
+	 * including those that have been drawn already.  If not,
+	 * only the remaining cards are shuffled.
+	 */
+	public void shuffle() {
+		int from = 0;
+		if (selfReplenishing) {
+			top = 0;
+		} else {
+			from = top;
+		}
+		for (int i = size - 1; i > from; --i) {
+			int j = from + random.nextInt(i - from + 1);
+			int swap = order[i];
+			order[i] = order[j];
+			order[j] = swap;
+		}
+	}
+
+	/**
+	 * Adds the apples within the given deck to this deck.  The remaining
+	 * apples of a PooledDeck over the same pool are added by index, taking
+	 * a single pass through a self-replenishing one; any other apples are
+	 * added as extras.
+	 */
+	public void combine(Deck<AppleType> deck) {
+		if (deck instanceof PooledDeck && ((PooledDeck<AppleType>) deck).pool == pool) {
+			PooledDeck<AppleType> other = (PooledDeck<AppleType>) deck;
+			/* The other deck could be this one, so take its size up front. */
+			int otherSize = other.size;
+			int count = other.selfReplenishing ? otherSize : otherSize - other.top;
+			for (int i = 0; i < count; ++i) {
+				int entry = other.order[(other.top + i) % otherSize];
+				if (entry >= 0) {
+					append(entry);
+				} else {
+					addExtra(other.resolve(entry));
+				}
+			}
+			if (!other.selfReplenishing) {
+				other.top = otherSize;
+			}
+		} else if (deck != null) {
+			AppleType a;
+			while ((a = deck.draw()) != null) {
+				addExtra(a);
+			}
+		}
+	}
+
+	/**
+	 * Adds an apple from outside the pool to the bottom of the deck.
+	 *
+	 * @param apple
+	 */
+	private void addExtra(AppleType apple) {
+		if (extras == null) {
+			extras = new ArrayList<AppleType>();
+		}
+		extras.add(apple);
+		append(-extras.size());
+	}
+
+	/**
+	 * Returns the remaining apples as PooledApples over this deck's pool, so
+	 * none of them are fetched from the pool.
+	 *
+	 * @see com.ourbabywolf.apples2apples.RestorableDeck#getRemainingApples()
+	 */
+	public List<AppleType> getRemainingApples() {
+		int[] remaining;
+		if (selfReplenishing) {
+			remaining = new int[size];
+			int next = top >= size ? 0 : top;
+			for (int i = 0; i < size; ++i) {
+				remaining[i] = order[(next + i) % size];
+			}
+		} else {
+			remaining = new int[Math.max(size - top, 0)];
+			System.arraycopy(order, top, remaining, 0, remaining.length);
+		}
+		return PooledApples.adopt(pool, remaining,
+				extras == null ? null : new ArrayList<AppleType>(extras));
+	}
+
+	/**
+	 * Replaces the contents of the deck with the given apples.  The order of
+	 * PooledApples over the same pool is taken as it is; otherwise apples
+	 * found in the pool are held by index, and any others become extras.
+	 *
+	 * @see com.ourbabywolf.apples2apples.RestorableDeck#restoreRemainingApples(java.util.List)
+	 */
+	public void restoreRemainingApples(List<AppleType> apples) {
+		if (apples == null) {
+			throw new IllegalArgumentException("Apples cannot be null.");
+		}
+		top = 0;
+		if (apples instanceof PooledApples && ((PooledApples<AppleType>) apples).getPool() == pool) {
+			PooledApples<AppleType> pooled = (PooledApples<AppleType>) apples;
+			order = pooled.copyOrder();
+			size = order.length;
+			extras = pooled.copyExtras();
+			return;
+		}
+		order = new int[apples.size()];
+		size = 0;
+		extras = null;
+		for (AppleType apple : apples) {
+			int index = pool.indexOf(apple);
+			if (index >= 0) {
+				append(index);
+			} else {
+				addExtra(apple);
+			}
+		}
+	}
+
+	/**
+	 * Returns the pool the deck draws from.
+	 *
+	 * @return
+	 */
+	public CardPool<AppleType> getPool() {
+		return pool;
+	}
+
+	/**
+	 * Returns a description of this deck.
+	 * @return
+	 */
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * @param description the description to set
+	 */
+	public void setDescription(String description) {
+		this.description = description;
+	}
+
+}
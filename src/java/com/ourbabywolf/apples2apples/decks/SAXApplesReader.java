@@ -8,7 +8,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.StringTokenizer;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.xml.parsers.ParserConfigurationException;
@@ -24,7 +24,9 @@ import com.ourbabywolf.apples2apples.GreenApple;
 import com.ourbabywolf.apples2apples.RedApple;
 
 /**
- * Uses SAX to parse the XML apple files
+ * Uses SAX to parse the XML apple files.  The static read method streams
+ * the apples to an AppleConsumer as they're parsed; constructing a reader
+ * collects them into lists.
  * 
  * @author joe@ourbabywolf.com
  *
@@ -32,7 +34,7 @@ import com.ourbabywolf.apples2apples.RedApple;
 public class SAXApplesReader {
 	
 	/** Logger */
-	private final Logger log = Logger.getLogger(SAXApplesReader.class.getName());
+	private static final Logger log = Logger.getLogger(SAXApplesReader.class.getName());
 	
 	/** Holds the value of the version attribute of the XML doc. */
 	private String version = null;
@@ -51,37 +53,56 @@ public class SAXApplesReader {
 	 * 
 	 * @author joe@ourbabywolf.com
 	 */
-	private class AppleHandler extends DefaultHandler {
+	private static class AppleHandler extends DefaultHandler {
+
+		/** Receives the apples as they're parsed. */
+		private final AppleConsumer consumer;
+
+		/** Whether to log the parsing, checked once so that nothing is built when it isn't. */
+		private final boolean finer = log.isLoggable(Level.FINER);
 
 		/** The Apple that's being generated. */
 		private Apple apple = null;
 		
-		/** Buffers the chars and the markup inside of the red apple's quip. */
-		private StringBuilder quipBuilder = null;
+		/** Buffers the chars and the markup inside of the red apple's quip; reused for each apple. */
+		private final StringBuilder quipBuilder = new StringBuilder();
+		
+		AppleHandler(AppleConsumer consumer) {
+			this.consumer = consumer;
+		}
 		
 		@Override
 		public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
-			log.finer("Encountered XML element " + qName);
+			if (finer) {
+				log.finer("Encountered XML element " + qName);
+			}
 			if ("redapples".equalsIgnoreCase(qName) || "greenapples".equalsIgnoreCase(qName)) {
-				version = attributes.getValue("version");
-				log.finer("Set version to " + version);
-				printing = attributes.getValue("printing");
-				log.finer("Set printing to " + printing);
+				String version = attributes.getValue("version");
+				String printing = attributes.getValue("printing");
+				if (finer) {
+					log.finer("Set version to " + version);
+					log.finer("Set printing to " + printing);
+				}
+				consumer.deckStarted(version, printing);
 			} else if ("red".equalsIgnoreCase(qName)) {
 				log.finer("Generating new RedApple");
 				apple = new RedApple(attributes.getValue("word"));
-				quipBuilder = new StringBuilder();
+				quipBuilder.setLength(0);
 			} else if ("green".equalsIgnoreCase(qName)) {
 				log.finer("Generating new GreenApple");
 				apple = new GreenApple(attributes.getValue("word"));
 			} else if (apple != null && apple instanceof RedApple) {
-				log.finer("Encountered quip markup " + qName);
+				if (finer) {
+					log.finer("Encountered quip markup " + qName);
+				}
 				/* Processing of <br> elements delayed until endElement method. */
 				if ("i".equalsIgnoreCase(qName) || "b".equalsIgnoreCase(qName)) {
-					log.finer("Writing " + qName + " start tag to quip builder.");
-					quipBuilder.append("<").append(qName).append(">");
+					if (finer) {
+						log.finer("Writing " + qName + " start tag to quip builder.");
+					}
+					quipBuilder.append('<').append(qName).append('>');
 				}
-			} else {
+			} else if (finer) {
 				log.finer("Unanticipated element " + qName + "--ignoring");
 			}
 		}
@@ -94,21 +115,25 @@ public class SAXApplesReader {
 						log.finer("Writing br tag to quip builder.");
 						quipBuilder.append("<br/>");
 					} else if ("i".equalsIgnoreCase(qName) || "b".equalsIgnoreCase(qName)) {
-						log.finer("Writing " + localName + " end tag to quip builder.");
-						quipBuilder.append("</").append(qName).append(">");
+						if (finer) {
+							log.finer("Writing " + localName + " end tag to quip builder.");
+						}
+						quipBuilder.append("</").append(qName).append('>');
 					} else if ("red".equalsIgnoreCase(qName)) {
 						RedApple a = (RedApple)apple;
 						a.setQuip(quipBuilder.toString());
-						log.finer("Finalizing RedApple \"" + a.getWord() + "\"and adding to list. Quip=\n\t" + a.getQuip());
-						redApples.add(a);
+						if (finer) {
+							log.finer("Finalizing RedApple \"" + a.getWord() + "\" and passing to consumer. Quip=\n\t" + a.getQuip());
+						}
 						apple = null;
-						quipBuilder = null;
+						consumer.redApple(a);
 					}
 				} else if (apple instanceof GreenApple 
 						&& "green".equalsIgnoreCase(qName)) {
-					log.finer("Finalizing GreenApple and adding to list.");
-					greenApples.add((GreenApple)apple);
+					log.finer("Finalizing GreenApple and passing to consumer.");
+					GreenApple a = (GreenApple)apple;
 					apple = null;
+					consumer.greenApple(a);
 				}
 			}
 		}
@@ -116,28 +141,64 @@ public class SAXApplesReader {
 		@Override
 		public void characters(char[] ch, int start, int length) throws SAXException {
 			if (apple != null) {
+				/* Trim the chunk the way String.trim would, without making the String. */
+				int end = start + length;
+				while (start < end && ch[start] <= ' ') {
+					++start;
+				}
+				while (end > start && ch[end - 1] <= ' ') {
+					--end;
+				}
 				if (apple instanceof RedApple) {
-					String chars = new String(ch, start, length).trim();
 					/* chars within red apple are part of quip. */
-					log.finer("Appending characters " + chars + " to quip.");
-					quipBuilder.append(chars);
+					if (finer) {
+						log.finer("Appending characters " + new String(ch, start, end - start) + " to quip.");
+					}
+					quipBuilder.append(ch, start, end - start);
 				} else if (apple instanceof GreenApple) {
-					String chars = new String(ch, start, length).trim();
-					log.finer("Adding synonyms " + chars + " to GreenApple.");
-					/* chars withing green apple are comma-separated list of synonyms. */
-					GreenApple a = (GreenApple)apple;
-					for (StringTokenizer st = new StringTokenizer(chars, ","); 
-							st.hasMoreTokens(); 
-							a.addSynonym(st.nextToken().trim()));
-				} else {
+					if (finer) {
+						log.finer("Adding synonyms " + new String(ch, start, end - start) + " to GreenApple.");
+					}
+					addSynonyms((GreenApple)apple, ch, start, end);
+				} else if (finer) {
 					/* don't know what these characters are for. */
 					log.finer("Unexpected characters encountered: " + new String(ch));
 				}
-			} else {
+			} else if (finer) {
 				log.finer("Unexpected characters encountered outside of apple markup: " + new String(ch));
 			}
 		}
 		
+		/**
+		 * Adds the comma-separated list of synonyms in the chars from start
+		 * to end to the GreenApple.  Like a StringTokenizer on commas, empty
+		 * tokens are skipped and each token is trimmed.
+		 * 
+		 * @param apple
+		 * @param ch
+		 * @param start
+		 * @param end
+		 */
+		private void addSynonyms(GreenApple apple, char[] ch, int start, int end) {
+			int tokenStart = start;
+			for (int i = start; i <= end; ++i) {
+				if (i == end || ch[i] == ',') {
+					if (i > tokenStart) {
+						int s = tokenStart;
+						int e = i;
+						while (s < e && ch[s] <= ' ') {
+							++s;
+						}
+						while (e > s && ch[e - 1] <= ' ') {
+							--e;
+						}
+						apple.addSynonym(new String(ch, s, e - s));
+					}
+					tokenStart = i + 1;
+				}
+			}
+		}
+		
 	}
 
 	/**
@@ -150,12 +211,43 @@ public class SAXApplesReader {
 			throws ParserConfigurationException, SAXException, IOException {
 		this.redApples = new ArrayList<RedApple>();
 		this.greenApples = new ArrayList<GreenApple>();
+		read(source, new AppleConsumer() {
+			public void deckStarted(String version, String printing) {
+				SAXApplesReader.this.version = version;
+				SAXApplesReader.this.printing = printing;
+			}
+			public void redApple(RedApple apple) {
+				redApples.add(apple);
+			}
+			public void greenApple(GreenApple apple) {
+				greenApples.add(apple);
+			}
+		});
+	}
+
+	/**
+	 * Parses the XML apple file, passing each apple to the consumer as soon
+	 * as it's been read.  No apples are retained by the parser, so the
+	 * consumer decides what's kept.  An exception thrown by the consumer
+	 * stops the parsing.
+	 * 
+	 * @param source
+	 * @param consumer
+	 * @throws ParserConfigurationException
+	 * @throws SAXException
+	 * @throws IOException
+	 */
+	public static void read(InputStream source, AppleConsumer consumer) 
+			throws ParserConfigurationException, SAXException, IOException {
+		if (consumer == null) {
+			throw new IllegalArgumentException("AppleConsumer cannot be null.");
+		}
 		SAXParserFactory factory = SAXParserFactory.newInstance();
 		factory.setValidating(false);
 		factory.setNamespaceAware(false);
 		factory.setXIncludeAware(false);
 		SAXParser parser = factory.newSAXParser();
-		parser.parse(source, new AppleHandler());
+		parser.parse(source, new AppleHandler(consumer));
 	}
 
 	/**
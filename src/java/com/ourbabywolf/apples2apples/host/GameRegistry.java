@@ -0,0 +1,157 @@
+/*
+ * GameRegistry.java - created Oct 18, 2026 10:14:26 AM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.host;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.ourbabywolf.apples2apples.Game;
+
+/**
+ * Hosts many games at once, e.g. one per chat room.  Each game is owned by
+ * one of a fixed number of threads, chosen by the game's id, and every
+ * GameTask for that game runs on its owning thread.  Since Game is not
+ * thread-safe, this keeps each game's state changes serialized without
+ * locking, while separate games proceed in parallel across the threads.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class GameRegistry {
+
+	/** The hosted games, keyed by game id. */
+	private final ConcurrentMap<String, Game> games;
+
+	/** Runs the tasks for each game on the game's owning thread. */
+	private final KeyedExecutor executor;
+
+	/**
+	 * Creates a registry with one thread per available processor.
+	 */
+	public GameRegistry() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a registry that spreads its games across the given number of
+	 * threads.
+	 *
+	 * @param nbrOfThreads
+	 */
+	public GameRegistry(int nbrOfThreads) {
+		this.games = new ConcurrentHashMap<String, Game>();
+		this.executor = new KeyedExecutor(nbrOfThreads, "GameRegistry");
+	}
+
+	/**
+	 * Adds the game to the registry under the given id.  The game should not
+	 * be touched directly afterwards; use <code>submit</code> instead.
+	 *
+	 * @param gameId
+	 * @param game
+	 * @return true if the game was added, false if the id is already in use
+	 */
+	public boolean register(String gameId, Game game) {
+		if (gameId == null) {
+			throw new IllegalArgumentException("Game id cannot be null.");
+		} else if (game == null) {
+			throw new IllegalArgumentException("Game cannot be null.");
+		}
+		return games.putIfAbsent(gameId, game) == null;
+	}
+
+	/**
+	 * Removes the game with the given id from the registry.  Tasks still
+	 * queued for the game will fail.
+	 *
+	 * @param gameId
+	 * @return the removed game or null if there was no such game
+	 */
+	public Game unregister(String gameId) {
+		return gameId == null ? null : games.remove(gameId);
+	}
+
+	/**
+	 * Indicates if a game is registered under the given id.
+	 *
+	 * @param gameId
+	 * @return
+	 */
+	public boolean contains(String gameId) {
+		return gameId != null && games.containsKey(gameId);
+	}
+
+	/**
+	 * Returns the ids of the registered games.  The returned set is not
+	 * modifiable.
+	 *
+	 * @return
+	 */
+	public Set<String> getGameIds() {
+		return Collections.unmodifiableSet(games.keySet());
+	}
+
+	/**
+	 * Returns the number of registered games.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return games.size();
+	}
+
+	/**
+	 * Queues the task to run against the game with the given id after the
+	 * game's previously submitted tasks.  If the game is not registered when
+	 * the task runs, the returned Future fails with an
+	 * IllegalArgumentException.
+	 *
+	 * @param gameId
+	 * @param task
+	 * @return the Future holding the task's result
+	 */
+	public <T> Future<T> submit(final String gameId, final GameTask<T> task) {
+		if (gameId == null) {
+			throw new IllegalArgumentException("Game id cannot be null.");
+		} else if (task == null) {
+			throw new IllegalArgumentException("GameTask cannot be null.");
+		}
+		return executor.submit(gameId, new Callable<T>() {
+			public T call() {
+				Game game = games.get(gameId);
+				if (game == null) {
+					throw new IllegalArgumentException("No such game: " + gameId);
+				}
+				return task.execute(game);
+			}
+		});
+	}
+
+	/**
+	 * Stops accepting tasks.  Tasks already queued will still run.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Waits for the queued tasks to finish after a shutdown.
+	 *
+	 * @param timeout
+	 * @param unit
+	 * @return true if all tasks finished, false if the timeout elapsed first
+	 * @throws InterruptedException
+	 */
+	public boolean awaitTermination(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		return executor.awaitTermination(timeout, unit);
+	}
+
+}
@@ -0,0 +1,29 @@
+/*
+ * GameTask.java - created Oct 18, 2026 10:11:52 AM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.host;
+
+import com.ourbabywolf.apples2apples.Game;
+
+/**
+ * A unit of work performed against a hosted game.  The GameRegistry runs
+ * each game's tasks one at a time on the thread that owns the game, so
+ * implementations may read and modify the game freely but should not hold
+ * on to it after returning.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ * @param <T> the type of the task's result
+ */
+public interface GameTask<T> {
+
+	/**
+	 * Performs the work against the given game.
+	 *
+	 * @param game
+	 * @return the result of the work
+	 */
+	public T execute(Game game);
+
+}
@@ -0,0 +1,126 @@
+/*
+ * KeyedExecutor.java - created Oct 18, 2026 10:05:17 AM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.host;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tasks on a fixed set of single-threaded executors, always handing
+ * tasks with the same key to the same executor.  Tasks sharing a key
+ * therefore run one at a time and in the order they were submitted, while
+ * tasks with different keys may run in parallel.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class KeyedExecutor {
+
+	/** The single-threaded executors the keys are spread across. */
+	private final ExecutorService[] executors;
+
+	/**
+	 * Creates a new KeyedExecutor with the given number of threads.
+	 *
+	 * @param nbrOfThreads
+	 * @param name - used to name the threads
+	 */
+	public KeyedExecutor(int nbrOfThreads, final String name) {
+		if (nbrOfThreads < 1) {
+			throw new IllegalArgumentException("Number of threads must be positive.");
+		}
+		this.executors = new ExecutorService[nbrOfThreads];
+		for (int i = 0; i < nbrOfThreads; ++i) {
+			final String threadName = name + "-" + i;
+			executors[i] = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					return new Thread(r, threadName);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Returns the number of threads tasks are spread across.
+	 *
+	 * @return
+	 */
+	public int getNbrOfThreads() {
+		return executors.length;
+	}
+
+	/**
+	 * Returns the executor responsible for the given key.
+	 *
+	 * @param key
+	 * @return
+	 */
+	private ExecutorService getExecutor(Object key) {
+		if (key == null) {
+			throw new IllegalArgumentException("Key cannot be null.");
+		}
+		int h = key.hashCode();
+		/* Spread the high bits down since String hashes often differ only there. */
+		h ^= (h >>> 16);
+		return executors[(h & 0x7fffffff) % executors.length];
+	}
+
+	/**
+	 * Queues the task to run after all previously submitted tasks with the
+	 * same key.
+	 *
+	 * @param key
+	 * @param task
+	 */
+	public void execute(Object key, Runnable task) {
+		getExecutor(key).execute(task);
+	}
+
+	/**
+	 * Queues the task to run after all previously submitted tasks with the
+	 * same key, returning a Future for its result.
+	 *
+	 * @param key
+	 * @param task
+	 * @return
+	 */
+	public <T> Future<T> submit(Object key, Callable<T> task) {
+		return getExecutor(key).submit(task);
+	}
+
+	/**
+	 * Stops accepting new tasks.  Tasks already queued will still run.
+	 */
+	public void shutdown() {
+		for (ExecutorService executor : executors) {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Waits for the queued tasks to finish after a shutdown.
+	 *
+	 * @param timeout
+	 * @param unit
+	 * @return true if all tasks finished, false if the timeout elapsed first
+	 * @throws InterruptedException
+	 */
+	public boolean awaitTermination(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (ExecutorService executor : executors) {
+			long remaining = deadline - System.nanoTime();
+			if (!executor.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,225 @@
+/*
+ * ChatCache.java - created Oct 18, 2026 11:20:48 AM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.jabber;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jivesoftware.smack.Chat;
+import org.jivesoftware.smack.XMPPConnection;
+
+/**
+ * Caches the Chats used to message each jabber id.  The cache holds at most
+ * a fixed number of chats and drops chats that haven't been used for a while,
+ * least recently used first, so a long-running bot doesn't accumulate a chat
+ * for every jabber id that has ever messaged it.  Evicted chats stop
+ * collecting messages.  The cache is safe for use by multiple threads.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class ChatCache {
+
+    private static final Logger log = Logger.getLogger(ChatCache.class
+            .toString());
+
+    /** A cached chat and the time it was last used. */
+    private static class Entry {
+        private final Chat chat;
+        private long lastUsed;
+        private Entry(Chat chat, long lastUsed) {
+            this.chat = chat;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /** The chats keyed by jabber id, least recently used first. */
+    private final LinkedHashMap<String, Entry> chats;
+
+    /** The maximum number of chats held. */
+    private final int maxSize;
+
+    /** How long a chat may go unused before it is evicted. */
+    private final long maxIdleMillis;
+
+    /** The number of lookups that found a cached chat. */
+    private final AtomicLong hits = new AtomicLong();
+
+    /** The number of lookups that had to create a chat. */
+    private final AtomicLong misses = new AtomicLong();
+
+    /** The number of chats evicted for size or idleness. */
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a new ChatCache.
+     *
+     * @param maxSize - the maximum number of chats to hold
+     * @param maxIdleMillis - how long a chat may go unused before it is
+     *      evicted; if less than one, chats are only evicted for size
+     */
+    public ChatCache(int maxSize, long maxIdleMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive.");
+        }
+        this.chats = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+        this.maxSize = maxSize;
+        this.maxIdleMillis = maxIdleMillis;
+    }
+
+    /**
+     * Returns the chat for the jabber id, creating it with the given
+     * connection if it isn't cached.
+     *
+     * @param jabberId
+     * @param conn
+     * @return
+     */
+    public synchronized Chat getChat(String jabberId, XMPPConnection conn) {
+        long now = System.currentTimeMillis();
+        evictIdle(now);
+        Entry entry = chats.get(jabberId);
+        if (entry != null) {
+            hits.incrementAndGet();
+            entry.lastUsed = now;
+            return entry.chat;
+        }
+        misses.incrementAndGet();
+        Chat chat = conn.createChat(jabberId);
+        chats.put(jabberId, new Entry(chat, now));
+        if (chats.size() > maxSize) {
+            Iterator<Entry> it = chats.values().iterator();
+            evict(it.next(), it);
+        }
+        return chat;
+    }
+
+    /**
+     * Evicts the chats that have been idle for too long.
+     *
+     * @return the number of chats evicted
+     */
+    public synchronized int evictIdle() {
+        return evictIdle(System.currentTimeMillis());
+    }
+
+    /**
+     * Evicts the chats that have been idle for too long as of the given
+     * time.  Since the chats are ordered by use, this stops at the first
+     * chat that has been used recently enough.
+     *
+     * @param now
+     * @return the number of chats evicted
+     */
+    private int evictIdle(long now) {
+        int evicted = 0;
+        if (maxIdleMillis > 0) {
+            for (Iterator<Entry> it = chats.values().iterator(); it.hasNext();) {
+                Entry entry = it.next();
+                if (now - entry.lastUsed < maxIdleMillis) {
+                    break;
+                }
+                evict(entry, it);
+                ++evicted;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Removes the entry the iterator is on and cancels its chat's collector.
+     *
+     * @param entry
+     * @param it
+     */
+    private void evict(Entry entry, Iterator<Entry> it) {
+        it.remove();
+        evictions.incrementAndGet();
+        cancelMessageCollector(entry.chat);
+    }
+
+    /**
+     * Removes all the chats, cancelling their collectors, e.g. when the
+     * connection they belong to is closed.  This doesn't count as eviction.
+     */
+    public synchronized void clear() {
+        for (Entry entry : chats.values()) {
+            cancelMessageCollector(entry.chat);
+        }
+        chats.clear();
+    }
+
+    /**
+     * Stops the chat from collecting the incoming messages of its thread,
+     * which would otherwise pile up in the connection's packet reader.
+     * This version of Smack has no ChatManager or other API for removing a
+     * Chat from its connection; the chat's PacketCollector is private, and
+     * the only public way to cancel it is Chat's finalize method, which
+     * does nothing else.  Cancelling a collector twice has no effect, so it
+     * doesn't matter that the garbage collector will call finalize again.
+     * The chat must not be used afterwards.
+     *
+     * @param chat
+     */
+    private void cancelMessageCollector(Chat chat) {
+        try {
+            chat.finalize();
+        } catch (Throwable t) {
+            log.log(Level.FINE, "Unable to cancel the message collector of chat with "
+                    + chat.getParticipant(), t);
+        }
+    }
+
+    /**
+     * Returns the number of cached chats.
+     *
+     * @return
+     */
+    public synchronized int size() {
+        return chats.size();
+    }
+
+    /**
+     * Returns the number of lookups that found a cached chat.
+     *
+     * @return
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of lookups that had to create a chat.
+     *
+     * @return
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of chats evicted for size or idleness.
+     *
+     * @return
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "ChatCache: " + size() + "/" + maxSize + " chats, " + getHits()
+                + " hits, " + getMisses() + " misses, " + getEvictions()
+                + " evictions";
+    }
+
+}
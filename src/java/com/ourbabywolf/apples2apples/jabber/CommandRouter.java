@@ -0,0 +1,43 @@
+/*
+ * CommandRouter.java - created Oct 18, 2026 9:40:26 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.jabber;
+
+/**
+ * Tells a HostingClient which game a command affects, so that the client
+ * can process every command for the same game on the same dispatch thread.
+ * Game is not thread-safe, so commands for one game must never be processed
+ * at the same time.  Routing is the same as GameRegistry's: a KeyedExecutor
+ * keyed by the game's id.
+ * 
+ * @author joe@ourbabywolf.com
+ *
+ */
+public interface CommandRouter {
+
+    /**
+     * Routes every command to the same key, for a client hosting a single
+     * game.  Commands are then processed one at a time, but off of the
+     * packet reader thread.
+     */
+    public static final CommandRouter SINGLE_GAME = new CommandRouter() {
+        public Object getGameKey(String jabberId, String command) {
+            return "game";
+        }
+    };
+
+    /**
+     * Returns the key of the game the command from the jabber id affects,
+     * e.g. the id of the game the sender is playing in, or the game the
+     * sender is joining.  Called on the packet reader thread, so it must be
+     * quick and thread-safe.
+     * 
+     * @param jabberId
+     * @param command
+     * @return the game's key, or null if the command affects no game, in
+     *      which case it's keyed by the jabber id
+     */
+    public Object getGameKey(String jabberId, String command);
+
+}
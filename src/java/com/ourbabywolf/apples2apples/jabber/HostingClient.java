@@ -4,8 +4,8 @@
  */
 package com.ourbabywolf.apples2apples.jabber;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.jivesoftware.smack.Chat;
@@ -19,6 +19,8 @@ import org.jivesoftware.smack.filter.OrFilter;
 import org.jivesoftware.smack.packet.Message;
 import org.jivesoftware.smack.packet.Packet;
 
+import com.ourbabywolf.apples2apples.host.KeyedExecutor;
+
 /**
  * This class is the bot that hosts the game. It makes a connection to a jabber
  * server, processes messages received and controls the game.
@@ -34,22 +36,89 @@ public class HostingClient {
     /** The connection this client holds to the Jabber server. */
     protected XMPPConnection conn = null;
 
-    /** A mapping of Jabber ids to their corresponding Chats. */
-    private final Map<String, Chat> chatMap;
+    /** The default maximum number of chats to cache. */
+    public static final int DEFAULT_MAX_CHATS = 1000;
+
+    /** The default time a cached chat may go unused: 30 minutes. */
+    public static final long DEFAULT_MAX_CHAT_IDLE_MILLIS = 30L * 60L * 1000L;
+
+    /** How long shutting down waits for commands and queued messages. */
+    public static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    /** Caches the Chats for the Jabber ids messaged. */
+    private final ChatCache chatCache;
 
     /** The command processor. */
     private final CommandProcessor processor;
 
     /**
-     * Creates a new HostingClient.
+     * Coalesces outgoing messages, or null if each message is sent as soon
+     * as it is given to <code>sendMessage</code>.
+     */
+    private volatile OutboundMessageQueue outbound = null;
+
+    /**
+     * Hands commands to the processor off of the packet reader thread, or
+     * null if commands are processed on the packet reader thread.
+     */
+    private final KeyedExecutor dispatcher;
+
+    /** Routes the commands to the dispatch threads, or null. */
+    private final CommandRouter router;
+
+    /**
+     * Creates a new HostingClient that processes commands on the thread that
+     * reads them from the connection.
      */
     public HostingClient(final CommandProcessor processor) {
+        this(processor, null, 0);
+    }
+
+    /**
+     * Creates a new HostingClient that processes commands on the given
+     * number of dispatch threads, so that a slow command doesn't hold up
+     * reading the rest of the messages.  The router names the game each
+     * command affects, and all of a game's commands are processed on the
+     * same thread, one at a time, in the order they were received, so the
+     * processor needn't be thread-safe for any one game.  If the number of
+     * threads is less than one, commands are processed on the thread that
+     * reads them from the connection and the router isn't needed.
+     * 
+     * @param processor
+     * @param router - may be null if there are no dispatch threads
+     * @param dispatchThreads
+     */
+    public HostingClient(final CommandProcessor processor, CommandRouter router,
+            int dispatchThreads) {
+        this(processor, router, dispatchThreads, DEFAULT_MAX_CHATS, 
+                DEFAULT_MAX_CHAT_IDLE_MILLIS);
+    }
+
+    /**
+     * Creates a new HostingClient with the given router and number of
+     * dispatch threads that caches at most the given number of chats,
+     * dropping chats that go unused for the given time.
+     * 
+     * @param processor
+     * @param router - may be null if there are no dispatch threads
+     * @param dispatchThreads
+     * @param maxChats
+     * @param maxChatIdleMillis
+     */
+    public HostingClient(final CommandProcessor processor, CommandRouter router,
+            int dispatchThreads, int maxChats, long maxChatIdleMillis) {
         if (processor == null) {
             throw new NullPointerException(
                     "CommandProcessor argument cannot be null.");
+        } else if (dispatchThreads > 0 && router == null) {
+            throw new IllegalArgumentException(
+                    "CommandRouter cannot be null when dispatching.");
         }
-        this.chatMap = new HashMap<String, Chat>();
+        this.chatCache = new ChatCache(maxChats, maxChatIdleMillis);
         this.processor = processor;
+        this.router = dispatchThreads < 1 ? null : router;
+        this.dispatcher = dispatchThreads < 1 ? null 
+                : new KeyedExecutor(dispatchThreads, "HostingClient");
     }
 
     /**
@@ -106,19 +175,43 @@ public class HostingClient {
                 log.severe("Connection closed erroneously: " + e.getMessage());
             }
         });
-        final HostingClient client = this;
         conn.addPacketListener(new PacketListener() {
             public void processPacket(Packet packet) {
                 Message message = (Message)packet;
                 log.info("BODY: " + message.getBody());
                 log.info("Full XML: " + message.toXML());
-                processor.process(extractJabberId(message
-                        .getFrom()), message.getBody(), client);
+                dispatch(extractJabberId(message.getFrom()), message.getBody());
             }
         }, new OrFilter(new MessageTypeFilter(Message.Type.CHAT),
                 new MessageTypeFilter(Message.Type.NORMAL)));
     }
 
+    /**
+     * Passes the command to the processor, either directly or by way of the
+     * dispatch thread of the game the command affects.
+     * 
+     * @param jabberId
+     * @param command
+     */
+    protected void dispatch(final String jabberId, final String command) {
+        if (dispatcher == null) {
+            processor.process(jabberId, command, this);
+        } else {
+            final HostingClient client = this;
+            Object key = router.getGameKey(jabberId, command);
+            dispatcher.execute(key == null ? jabberId : key, new Runnable() {
+                public void run() {
+                    try {
+                        processor.process(jabberId, command, client);
+                    } catch (RuntimeException e) {
+                        log.log(Level.SEVERE, "Unable to process command from " 
+                                + jabberId, e);
+                    }
+                }
+            });
+        }
+    }
+
     /**
      * Extracts the jabber id from the "from" string of the message.
      */
@@ -133,10 +226,78 @@ public class HostingClient {
         if (conn != null) {
             conn.close();
         }
+        /* The chats belong to the closed connection. */
+        chatCache.clear();
     }
 
     /**
-     * Sends a message to the player with the given jabberId.
+     * Closes the connection and stops the dispatch threads, if any, once
+     * the commands already received have been processed, waiting up to
+     * <code>SHUTDOWN_TIMEOUT_SECONDS</code> for them.  The messages they
+     * send are flushed before the connection is closed.  The client cannot
+     * be used after this method is called.
+     */
+    public void shutdown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+            try {
+                if (!dispatcher.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, 
+                        TimeUnit.SECONDS)) {
+                    log.warning("Commands still being processed at shutdown.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        setOutboundBatching(0, 0);
+        disconnect();
+    }
+
+    /**
+     * Causes messages given to <code>sendMessage</code> for the same jabber
+     * id to be coalesced into a single message, one line per message, when
+     * they're sent within the flush interval of each other.  This cuts down
+     * on the number of stanzas sent when a lot of messages are generated at
+     * once, e.g. when cards are dealt.  Messages already queued are sent
+     * before the new setting takes effect, and a message that reaches the
+     * old queue after it has been replaced is sent right away.
+     * 
+     * @param flushIntervalMillis - how often queued messages are sent; if
+     *      less than one, batching is turned off
+     * @param maxBatchSize - the most messages to coalesce into one
+     */
+    public synchronized void setOutboundBatching(long flushIntervalMillis, 
+            int maxBatchSize) {
+        OutboundMessageQueue old = outbound;
+        outbound = flushIntervalMillis < 1 ? null 
+                : new OutboundMessageQueue(new OutboundMessageQueue.MessageSender() {
+                    public void send(String jabberId, String msg) {
+                        sendMessageNow(jabberId, msg);
+                    }
+                }, flushIntervalMillis, maxBatchSize);
+        if (old != null) {
+            try {
+                old.shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Returns the queue coalescing outgoing messages or null if outbound
+     * batching is turned off.
+     * 
+     * @return
+     */
+    public OutboundMessageQueue getOutboundMessageQueue() {
+        return outbound;
+    }
+
+    /**
+     * Sends a message to the player with the given jabberId.  If outbound
+     * batching is on, the message is queued and sent with the others queued
+     * for the same jabber id at the next flush.
      * 
      * @param jabberId
      * @param msg
@@ -146,6 +307,21 @@ public class HostingClient {
         if (jabberId == null || "".equals(jabberId.trim())) {
             throw new IllegalArgumentException("Invalid jabber id: " + jabberId);
         }
+        OutboundMessageQueue queue = outbound;
+        if (queue != null) {
+            queue.enqueue(jabberId, msg);
+        } else {
+            sendMessageNow(jabberId, msg);
+        }
+    }
+
+    /**
+     * Sends the message to the player with the given jabberId right away.
+     * 
+     * @param jabberId
+     * @param msg
+     */
+    private void sendMessageNow(String jabberId, String msg) {
         Chat chat = getChat(jabberId);
         try {
             chat.sendMessage(msg);
@@ -156,20 +332,22 @@ public class HostingClient {
     }
 
     /**
-     * Retrieves a Chat object for the jabber id. Currently, this method caches
-     * the chats. I'm not sure how much that buys you...maybe not much at all.
+     * Retrieves a Chat object for the jabber id from the chat cache.
      * 
      * @param jabberId
      * @return
      */
     private Chat getChat(String jabberId) {
-        Chat chat = null;
-        if (!chatMap.keySet().contains(jabberId)) {
-            chat = conn.createChat(jabberId);
-            chatMap.put(jabberId, chat);
-        } else {
-            chat = chatMap.get(jabberId);
-        }
-        return chat;
+        return chatCache.getChat(jabberId, conn);
+    }
+
+    /**
+     * Returns the cache of chats, e.g. to inspect its hit, miss and
+     * eviction counts.
+     * 
+     * @return
+     */
+    public ChatCache getChatCache() {
+        return chatCache;
     }
 }
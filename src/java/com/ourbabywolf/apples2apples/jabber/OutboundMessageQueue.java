@@ -0,0 +1,268 @@
+/*
+ * OutboundMessageQueue.java - created Oct 18, 2026 11:54:09 AM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.jabber;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Coalesces outgoing messages so that the messages queued for the same
+ * jabber id within a short window go out as a single message, one line per
+ * queued message.  A single round can deal several cards to each player,
+ * each of which would otherwise be sent separately.  The queue is flushed
+ * every flush interval, and a jabber id's messages are flushed early once
+ * the maximum batch size is reached.  All messages are sent from a single
+ * thread, so each jabber id receives its messages in the order they were
+ * queued.  Once the queue has been shut down, a message given to
+ * <code>enqueue</code> is sent right away on the caller's thread, after the
+ * messages queued before the shutdown.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class OutboundMessageQueue {
+
+    private static final Logger log = Logger.getLogger(OutboundMessageQueue.class
+            .toString());
+
+    /**
+     * Does the actual sending of the coalesced messages.
+     */
+    public interface MessageSender {
+
+        /**
+         * Sends the message to the given jabber id.
+         *
+         * @param jabberId
+         * @param msg
+         */
+        public void send(String jabberId, String msg);
+    }
+
+    /** Sends the coalesced messages. */
+    private final MessageSender sender;
+
+    /** The maximum number of messages coalesced into one. */
+    private final int maxBatchSize;
+
+    /** The queued messages keyed by jabber id, in the order first queued. */
+    private final Map<String, List<String>> pending;
+
+    /** Whether the queue has been shut down.  Guarded by pending. */
+    private boolean closed = false;
+
+    /** Released once the messages queued before the shutdown have been sent. */
+    private final CountDownLatch finalFlush = new CountDownLatch(1);
+
+    /** Runs the flushes. */
+    private final ScheduledExecutorService scheduler;
+
+    /** The number of messages queued. */
+    private final AtomicLong messagesQueued = new AtomicLong();
+
+    /** The number of messages actually sent after coalescing. */
+    private final AtomicLong messagesSent = new AtomicLong();
+
+    /**
+     * Creates a new OutboundMessageQueue.
+     *
+     * @param sender
+     * @param flushIntervalMillis - how often the queued messages are sent
+     * @param maxBatchSize - the number of messages for one jabber id that
+     *      causes them to be sent before the next flush
+     */
+    public OutboundMessageQueue(MessageSender sender, long flushIntervalMillis,
+            int maxBatchSize) {
+        if (sender == null) {
+            throw new IllegalArgumentException("MessageSender cannot be null.");
+        } else if (flushIntervalMillis < 1) {
+            throw new IllegalArgumentException("Flush interval must be positive.");
+        } else if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Maximum batch size must be positive.");
+        }
+        this.sender = sender;
+        this.maxBatchSize = maxBatchSize;
+        this.pending = new LinkedHashMap<String, List<String>>();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "OutboundMessageQueue");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                flushAll();
+            }
+        }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues the message for the jabber id.  If the queue has been shut
+     * down, the message is sent right away instead, once the messages
+     * queued before the shutdown have been sent.
+     *
+     * @param jabberId
+     * @param msg
+     */
+    public void enqueue(final String jabberId, String msg) {
+        messagesQueued.incrementAndGet();
+        synchronized (pending) {
+            if (!closed) {
+                List<String> batch = pending.get(jabberId);
+                if (batch == null) {
+                    batch = new ArrayList<String>();
+                    pending.put(jabberId, batch);
+                }
+                batch.add(msg);
+                if (batch.size() == maxBatchSize) {
+                    /* Scheduled under the lock so that it can't follow the shutdown. */
+                    scheduler.execute(new Runnable() {
+                        public void run() {
+                            flush(jabberId);
+                        }
+                    });
+                }
+                return;
+            }
+        }
+        try {
+            finalFlush.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        send(jabberId, Collections.singletonList(msg));
+    }
+
+    /**
+     * Sends the messages queued for the jabber id.  Only called from the
+     * scheduler thread.
+     *
+     * @param jabberId
+     */
+    private void flush(String jabberId) {
+        List<String> batch;
+        synchronized (pending) {
+            batch = pending.remove(jabberId);
+        }
+        if (batch != null) {
+            send(jabberId, batch);
+        }
+    }
+
+    /**
+     * Sends all the queued messages.  Only called from the scheduler thread.
+     */
+    private void flushAll() {
+        Map<String, List<String>> batches;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batches = new LinkedHashMap<String, List<String>>(pending);
+            pending.clear();
+        }
+        for (Map.Entry<String, List<String>> entry : batches.entrySet()) {
+            send(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Joins the batch into as few messages as the maximum batch size allows
+     * and sends them.  The batch can exceed the maximum size if more messages
+     * are queued before an early flush gets to run.
+     *
+     * @param jabberId
+     * @param batch
+     */
+    private void send(String jabberId, List<String> batch) {
+        for (int start = 0; start < batch.size(); start += maxBatchSize) {
+            int end = Math.min(start + maxBatchSize, batch.size());
+            StringBuilder msg = new StringBuilder();
+            for (int i = start; i < end; ++i) {
+                if (i > start) {
+                    msg.append('\n');
+                }
+                msg.append(batch.get(i));
+            }
+            try {
+                sender.send(jabberId, msg.toString());
+                messagesSent.incrementAndGet();
+            } catch (RuntimeException e) {
+                log.log(Level.SEVERE, "Unable to send message to " + jabberId, e);
+            }
+        }
+    }
+
+    /**
+     * Sends the queued messages and stops the flushing, waiting up to the
+     * given time for the messages to be sent.  Messages queued afterwards
+     * are sent right away.
+     *
+     * @param timeout
+     * @param unit
+     * @return true if the queued messages were sent in time
+     * @throws InterruptedException
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        synchronized (pending) {
+            if (!closed) {
+                closed = true;
+                scheduler.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            flushAll();
+                        } finally {
+                            finalFlush.countDown();
+                        }
+                    }
+                });
+                scheduler.shutdown();
+            }
+        }
+        return scheduler.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Indicates if the queue has been shut down.
+     *
+     * @return
+     */
+    public boolean isShutdown() {
+        synchronized (pending) {
+            return closed;
+        }
+    }
+
+    /**
+     * Returns the number of messages queued.
+     *
+     * @return
+     */
+    public long getMessagesQueued() {
+        return messagesQueued.get();
+    }
+
+    /**
+     * Returns the number of messages sent after coalescing.
+     *
+     * @return
+     */
+    public long getMessagesSent() {
+        return messagesSent.get();
+    }
+
+}
@@ -0,0 +1,559 @@
+/*
+ * GameLog.java - created Oct 18, 2026 8:24:09 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.persist;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import com.ourbabywolf.apples2apples.GameOperation;
+import com.ourbabywolf.apples2apples.GameRecorder;
+import com.ourbabywolf.apples2apples.GameSnapshot;
+
+/**
+ * An append-only log of a game's operations, from which the game can be
+ * rebuilt after a crash by a GameLogReplayer.  Set it as the game's
+ * recorder and every outermost operation is appended to it; now and then
+ * call <code>checkpoint</code> with a snapshot of the game, so that replay
+ * only has to apply the operations since.
+ * <p>
+ * Recording an operation only copies it into memory.  The operations are
+ * written out and forced to disk in groups, when <code>commit</code> is
+ * called, either directly or on the schedule set up by
+ * <code>scheduleCommits</code>, or when enough of them are waiting.  An
+ * operation is therefore durable once the next commit completes, and a
+ * crash loses at most the operations recorded since the last one, rather
+ * than every operation paying for a sync of its own.
+ * <p>
+ * Each record is framed by its length and a CRC32 of its contents, so a
+ * record torn by a crash is recognized, and cut off the next time the log
+ * is opened.  Recording may be done by the game's thread while commits are
+ * done by another.  Once a commit has failed, recording throws, which keeps
+ * the game from getting ahead of its log.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class GameLog implements GameRecorder {
+
+	/** Logger */
+	private static final Logger log = Logger.getLogger(GameLog.class.getName());
+
+	/** Identifies a game log: "A2WL". */
+	static final int MAGIC = 0x4132574C;
+
+	/** The version of the format. */
+	static final int FORMAT_VERSION = 1;
+
+	/** The bytes before the first record: the magic number and version. */
+	static final int HEADER_SIZE = 8;
+
+	/** The bytes before each record's contents: its length and CRC. */
+	static final int FRAME_HEADER_SIZE = 8;
+
+	/** The first byte of a checkpoint's record; operations use their type's ordinal plus one. */
+	static final int CHECKPOINT = 0;
+
+	/** The default number of bytes waiting to be written that triggers a commit. */
+	public static final int DEFAULT_MAX_PENDING_BYTES = 64 * 1024;
+
+	/* Flags for the arguments present in an operation's record. */
+	private static final int PLAYER_ID = 1;
+	private static final int TEXT = 2;
+	private static final int FLAG = 4;
+	private static final int NUMBER = 8;
+	private static final int APPLE = 16;
+
+	/** The operation types, by ordinal. */
+	private static final GameOperation.Type[] TYPES = GameOperation.Type.values();
+
+	/** Writes the apples and snapshots. */
+	private final GameSnapshotCodec codec;
+
+	/** The log file. */
+	private final RandomAccessFile file;
+
+	/** The log file's channel, positioned at the end of the log. */
+	private final FileChannel channel;
+
+	/** The number of bytes waiting that triggers a commit. */
+	private final int maxPendingBytes;
+
+	/** Held while writing to the channel, so that commits happen one at a time. */
+	private final Object commitLock = new Object();
+
+	/** The records waiting to be written.  Guarded by this. */
+	private Buffer pending = new Buffer();
+
+	/** The buffer the pending records are swapped with while they're written.  Guarded by commitLock. */
+	private Buffer writing = new Buffer();
+
+	/** Holds the record being encoded.  Guarded by this. */
+	private final Buffer record = new Buffer();
+
+	/** Writes to the record buffer. */
+	private final DataOutputStream recordOut = new DataOutputStream(record);
+
+	/** Computes the records' checksums.  Guarded by this. */
+	private final CRC32 crc = new CRC32();
+
+	/** The first commit failure, or null.  Guarded by this. */
+	private IOException failure = null;
+
+	/** Whether the log has been closed.  Guarded by this. */
+	private boolean closed = false;
+
+	/** The number of commits that have written something.  Guarded by commitLock. */
+	private long commits = 0;
+
+	/** The number of operations recorded.  Guarded by this. */
+	private long operations = 0;
+
+	/**
+	 * A ByteArrayOutputStream that lends out its contents rather than
+	 * copying them.
+	 */
+	private static class Buffer extends ByteArrayOutputStream {
+		Buffer() {
+			super(4096);
+		}
+		ByteBuffer toByteBuffer() {
+			return ByteBuffer.wrap(buf, 0, count);
+		}
+		byte[] getBytes() {
+			return buf;
+		}
+	}
+
+	/**
+	 * Opens the log file with the default commit size, creating it if it
+	 * doesn't exist.
+	 *
+	 * @param file
+	 * @param codec
+	 * @throws IOException
+	 */
+	public GameLog(File file, GameSnapshotCodec codec) throws IOException {
+		this(file, codec, DEFAULT_MAX_PENDING_BYTES);
+	}
+
+	/**
+	 * Opens the log file, creating it if it doesn't exist.  Records are
+	 * appended to the ones already in the file; a torn record at the end of
+	 * the file, and anything after it, is cut off.  The log should hold
+	 * the operations of the game being recorded, i.e. the game should have
+	 * been rebuilt from it first.
+	 *
+	 * @param file
+	 * @param codec
+	 * @param maxPendingBytes - records waiting to be written that trigger
+	 * 		a commit
+	 * @throws IOException - if the file isn't a game log
+	 */
+	public GameLog(File file, GameSnapshotCodec codec, int maxPendingBytes) throws IOException {
+		if (file == null) {
+			throw new IllegalArgumentException("File cannot be null.");
+		} else if (codec == null) {
+			throw new IllegalArgumentException("GameSnapshotCodec cannot be null.");
+		} else if (maxPendingBytes < 1) {
+			throw new IllegalArgumentException("Max pending bytes must be positive.");
+		}
+		this.codec = codec;
+		this.maxPendingBytes = maxPendingBytes;
+		this.file = new RandomAccessFile(file, "rw");
+		this.channel = this.file.getChannel();
+		try {
+			long end;
+			if (channel.size() < HEADER_SIZE) {
+				/* New, or torn while its header was written. */
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+				channel.truncate(0);
+				writeFully(channel, header, 0);
+				channel.force(true);
+				end = HEADER_SIZE;
+			} else {
+				checkHeader(channel);
+				end = HEADER_SIZE;
+				byte[] frame;
+				while ((frame = readFrame(channel, end)) != null) {
+					end += FRAME_HEADER_SIZE + frame.length;
+				}
+				if (end < channel.size()) {
+					log.warning("Cutting off " + (channel.size() - end) + " bytes torn from the end of " + file);
+					channel.truncate(end);
+					channel.force(true);
+				}
+			}
+			channel.position(end);
+		} catch (IOException e) {
+			this.file.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Appends the operation to the records waiting to be committed.
+	 *
+	 * @see com.ourbabywolf.apples2apples.GameRecorder#record(com.ourbabywolf.apples2apples.GameOperation)
+	 * @throws IllegalStateException - if the log is closed or a commit failed
+	 */
+	public void record(GameOperation operation) {
+		if (operation == null) {
+			throw new IllegalArgumentException("GameOperation cannot be null.");
+		}
+		boolean full;
+		synchronized (this) {
+			checkUsable();
+			record.reset();
+			try {
+				writeOperation(recordOut, operation);
+			} catch (IOException e) {
+				/* not thrown by a ByteArrayOutputStream */
+				throw new RuntimeException(e);
+			}
+			appendRecord();
+			++operations;
+			full = pending.size() >= maxPendingBytes;
+		}
+		if (full) {
+			try {
+				commit();
+			} catch (IOException e) {
+				/* The failure is kept, and the next record throws it. */
+				log.log(Level.SEVERE, "Commit failed.", e);
+			}
+		}
+	}
+
+	/**
+	 * Appends a snapshot of the game to the log and commits it.  When the
+	 * log is replayed, the game is restored from the last checkpoint and
+	 * only the operations recorded after it are applied.
+	 *
+	 * @param snapshot
+	 * @throws IOException
+	 */
+	public void checkpoint(GameSnapshot snapshot) throws IOException {
+		if (snapshot == null) {
+			throw new IllegalArgumentException("GameSnapshot cannot be null.");
+		}
+		synchronized (this) {
+			checkUsable();
+			record.reset();
+			recordOut.writeByte(CHECKPOINT);
+			codec.write(snapshot, recordOut);
+			appendRecord();
+		}
+		commit();
+	}
+
+	/**
+	 * Writes the records waiting to be committed to the file and forces
+	 * them to disk.  Records made while the commit is writing wait for the
+	 * next one.
+	 *
+	 * @throws IOException
+	 */
+	public void commit() throws IOException {
+		synchronized (commitLock) {
+			synchronized (this) {
+				if (failure != null) {
+					throw failure;
+				} else if (pending.size() == 0) {
+					return;
+				}
+				Buffer swap = pending;
+				pending = writing;
+				writing = swap;
+			}
+			try {
+				writeFully(channel, writing.toByteBuffer(), channel.position());
+				channel.position(channel.position() + writing.size());
+				channel.force(false);
+				++commits;
+			} catch (IOException e) {
+				synchronized (this) {
+					failure = e;
+				}
+				throw e;
+			} finally {
+				writing.reset();
+			}
+		}
+	}
+
+	/**
+	 * Commits the log periodically using the executor, which may be shared
+	 * by many logs.  A failed commit is logged; the failure is thrown by the
+	 * next <code>record</code> or <code>commit</code>.  Once the log is
+	 * closed, the scheduled commits do nothing.
+	 *
+	 * @param executor
+	 * @param period
+	 * @param unit
+	 * @return the scheduled commits, to cancel them
+	 */
+	public ScheduledFuture<?> scheduleCommits(ScheduledExecutorService executor,
+			long period, TimeUnit unit) {
+		if (executor == null) {
+			throw new IllegalArgumentException("ScheduledExecutorService cannot be null.");
+		}
+		return executor.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				if (isClosed()) {
+					return;
+				}
+				try {
+					commit();
+				} catch (IOException e) {
+					log.log(Level.SEVERE, "Scheduled commit failed.", e);
+				}
+			}
+		}, period, period, unit);
+	}
+
+	/**
+	 * Commits the waiting records and closes the file.  The log is marked
+	 * closed before the final commit, so nothing can be recorded after the
+	 * records it commits.
+	 *
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		}
+		synchronized (commitLock) {
+			try {
+				commit();
+			} finally {
+				file.close();
+			}
+		}
+	}
+
+	/**
+	 * Indicates if the log has been closed.
+	 *
+	 * @return
+	 */
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * @return the number of operations recorded
+	 */
+	public synchronized long getOperationCount() {
+		return operations;
+	}
+
+	/**
+	 * @return the number of commits that wrote records
+	 */
+	public long getCommitCount() {
+		synchronized (commitLock) {
+			return commits;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "GameLog: " + getOperationCount() + " operations in " + getCommitCount() + " commits";
+	}
+
+	/**
+	 * Throws if records can't be made.  Must hold this.
+	 */
+	private void checkUsable() {
+		if (closed) {
+			throw new IllegalStateException("GameLog is closed.");
+		} else if (failure != null) {
+			throw new IllegalStateException("GameLog failed to commit.", failure);
+		}
+	}
+
+	/**
+	 * Frames the record buffer's contents and appends them to the pending
+	 * records.  Must hold this.
+	 */
+	private void appendRecord() {
+		crc.reset();
+		crc.update(record.getBytes(), 0, record.size());
+		writeInt(pending, record.size());
+		writeInt(pending, (int)crc.getValue());
+		pending.write(record.getBytes(), 0, record.size());
+	}
+
+	/**
+	 * Writes an int, most significant byte first.
+	 *
+	 * @param out
+	 * @param value
+	 */
+	private static void writeInt(ByteArrayOutputStream out, int value) {
+		out.write(value >>> 24);
+		out.write(value >>> 16);
+		out.write(value >>> 8);
+		out.write(value);
+	}
+
+	/**
+	 * Writes the operation, with a flag for each argument it has.
+	 *
+	 * @param out
+	 * @param operation
+	 * @throws IOException
+	 */
+	private void writeOperation(DataOutput out, GameOperation operation) throws IOException {
+		out.writeByte(operation.getType().ordinal() + 1);
+		out.writeByte((operation.getPlayerId() != null ? PLAYER_ID : 0)
+				| (operation.getText() != null ? TEXT : 0)
+				| (operation.getFlag() ? FLAG : 0)
+				| (operation.getNumber() != 0 ? NUMBER : 0)
+				| (operation.getApple() != null ? APPLE : 0));
+		if (operation.getPlayerId() != null) {
+			out.writeUTF(operation.getPlayerId());
+		}
+		if (operation.getText() != null) {
+			out.writeUTF(operation.getText());
+		}
+		if (operation.getNumber() != 0) {
+			out.writeInt(operation.getNumber());
+		}
+		if (operation.getApple() != null) {
+			codec.writeRedApple(out, operation.getApple());
+		}
+	}
+
+	/**
+	 * Reads an operation written by <code>writeOperation</code>, after its
+	 * first byte has been read.
+	 *
+	 * @param codec
+	 * @param kind - the first byte of the record
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	static GameOperation readOperation(GameSnapshotCodec codec, int kind, DataInput in) throws IOException {
+		if (kind < 1 || kind > TYPES.length) {
+			throw new IOException("Unknown operation " + kind);
+		}
+		int args = in.readUnsignedByte();
+		return new GameOperation(TYPES[kind - 1],
+				(args & PLAYER_ID) != 0 ? in.readUTF() : null,
+				(args & TEXT) != 0 ? in.readUTF() : null,
+				(args & FLAG) != 0,
+				(args & NUMBER) != 0 ? in.readInt() : 0,
+				(args & APPLE) != 0 ? codec.readRedApple(in) : null);
+	}
+
+	/**
+	 * Returns a stream over a record's contents.
+	 *
+	 * @param frame
+	 * @return
+	 */
+	static DataInputStream openRecord(byte[] frame) {
+		return new DataInputStream(new ByteArrayInputStream(frame));
+	}
+
+	/**
+	 * Checks that the channel holds a game log.
+	 *
+	 * @param channel
+	 * @throws IOException - if it doesn't
+	 */
+	static void checkHeader(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		readFully(channel, header, 0);
+		if (header.getInt(0) != MAGIC) {
+			throw new IOException("Not a game log.");
+		} else if (header.getInt(4) != FORMAT_VERSION) {
+			throw new IOException("Unsupported game log version " + header.getInt(4));
+		}
+	}
+
+	/**
+	 * Reads the contents of the record at the position.
+	 *
+	 * @param channel
+	 * @param position
+	 * @return the contents, or null if there's no intact record there
+	 * @throws IOException
+	 */
+	static byte[] readFrame(FileChannel channel, long position) throws IOException {
+		long available = channel.size() - position - FRAME_HEADER_SIZE;
+		if (available < 0) {
+			return null;
+		}
+		ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+		readFully(channel, header, position);
+		int length = header.getInt(0);
+		if (length < 1 || length > available) {
+			return null;
+		}
+		byte[] frame = new byte[length];
+		readFully(channel, ByteBuffer.wrap(frame), position + FRAME_HEADER_SIZE);
+		CRC32 crc = new CRC32();
+		crc.update(frame);
+		return (int)crc.getValue() == header.getInt(4) ? frame : null;
+	}
+
+	/**
+	 * Fills the buffer from the channel, starting at the position.
+	 *
+	 * @param channel
+	 * @param buffer
+	 * @param position
+	 * @throws IOException
+	 */
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				throw new IOException("Unexpected end of game log.");
+			}
+			position += read;
+		}
+	}
+
+	/**
+	 * Writes the buffer to the channel, starting at the position.
+	 *
+	 * @param channel
+	 * @param buffer
+	 * @param position
+	 * @throws IOException
+	 */
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+}
@@ -0,0 +1,128 @@
+/*
+ * GameLogReplayer.java - created Oct 18, 2026 8:51:40 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.persist;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.ourbabywolf.apples2apples.Game;
+import com.ourbabywolf.apples2apples.GameOperation;
+import com.ourbabywolf.apples2apples.GameRecorder;
+
+/**
+ * Rebuilds a game from a GameLog: the game is restored from the log's last
+ * checkpoint, and the operations recorded after it are applied to it in
+ * order.  If the log has no checkpoint, every operation is applied to the
+ * game as it is, which should then be a new game with the same decks as
+ * the one recorded.  The log ends at its last intact record.
+ * <p>
+ * Replay is only faithful if the decks deal the same apples they did when
+ * the operations were recorded, which holds for RestorableDecks restored
+ * from a checkpoint as long as they aren't shuffled, and the changes made
+ * outside of the game's operations, such as apples given to a Cheater,
+ * aren't recorded.  The game's listener isn't told of the events the
+ * operations cause, since it was told of them when they were recorded.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class GameLogReplayer {
+
+	/** Logger */
+	private static final Logger log = Logger.getLogger(GameLogReplayer.class.getName());
+
+	/** Reads the apples and snapshots. */
+	private final GameSnapshotCodec codec;
+
+	/**
+	 * Creates a new GameLogReplayer.
+	 *
+	 * @param codec - the codec the log was written with
+	 */
+	public GameLogReplayer(GameSnapshotCodec codec) {
+		if (codec == null) {
+			throw new IllegalArgumentException("GameSnapshotCodec cannot be null.");
+		}
+		this.codec = codec;
+	}
+
+	/**
+	 * Replays the log onto the game.  The game's recorder is detached and its
+	 * events suppressed while the log is replayed, so the same log can be
+	 * reopened and set as the game's recorder afterwards, and the players
+	 * aren't sent the messages they were sent the first time.  An operation
+	 * that throws is logged and skipped, since it threw when it was recorded
+	 * too.
+	 *
+	 * @param file
+	 * @param game
+	 * @return the number of operations applied, or -1 if there's no log
+	 * @throws IOException - if the log can't be read
+	 */
+	public int replay(File file, Game game) throws IOException {
+		if (file == null) {
+			throw new IllegalArgumentException("File cannot be null.");
+		} else if (game == null) {
+			throw new IllegalArgumentException("Game cannot be null.");
+		} else if (!file.exists()) {
+			return -1;
+		}
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		GameRecorder recorder = game.getRecorder();
+		boolean suppressed = game.isEventsSuppressed();
+		game.setRecorder(null);
+		game.setEventsSuppressed(true);
+		try {
+			FileChannel channel = raf.getChannel();
+			if (channel.size() < GameLog.HEADER_SIZE) {
+				return 0;
+			}
+			GameLog.checkHeader(channel);
+			/* Find the last checkpoint, and where the intact records end. */
+			long start = GameLog.HEADER_SIZE;
+			long position = start;
+			byte[] frame;
+			while ((frame = GameLog.readFrame(channel, position)) != null) {
+				if (frame[0] == GameLog.CHECKPOINT) {
+					start = position;
+				}
+				position += GameLog.FRAME_HEADER_SIZE + frame.length;
+			}
+			int applied = 0;
+			position = start;
+			while ((frame = GameLog.readFrame(channel, position)) != null) {
+				position += GameLog.FRAME_HEADER_SIZE + frame.length;
+				DataInputStream in = GameLog.openRecord(frame);
+				int kind = in.readUnsignedByte();
+				if (kind == GameLog.CHECKPOINT) {
+					game.restore(codec.read(in));
+				} else {
+					GameOperation operation = GameLog.readOperation(codec, kind, in);
+					try {
+						Game.Result result = operation.applyTo(game);
+						if (log.isLoggable(Level.FINE)) {
+							log.fine("Replayed " + operation + ": " + result);
+						}
+					} catch (RuntimeException e) {
+						log.log(Level.WARNING, "Replaying " + operation + " threw.", e);
+					}
+					++applied;
+				}
+			}
+			log.info("Replayed " + applied + " operations from " + file);
+			return applied;
+		} finally {
+			game.setRecorder(recorder);
+			game.setEventsSuppressed(suppressed);
+			raf.close();
+		}
+	}
+
+}
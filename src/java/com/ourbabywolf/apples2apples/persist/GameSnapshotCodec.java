@@ -0,0 +1,624 @@
+/*
+ * GameSnapshotCodec.java - created Oct 18, 2026 7:25:48 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.persist;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.ourbabywolf.apples2apples.Game;
+import com.ourbabywolf.apples2apples.GameSnapshot;
+import com.ourbabywolf.apples2apples.GreenApple;
+import com.ourbabywolf.apples2apples.RedApple;
+import com.ourbabywolf.apples2apples.decks.CardPool;
+import com.ourbabywolf.apples2apples.decks.PooledApples;
+
+/**
+ * Writes GameSnapshots in a compact binary form and reads them back.  Apples
+ * are written as their index in the CardPools the games' decks were dealt
+ * from, so a snapshot costs a byte or two per card; apples that aren't in
+ * the pools are written out in full.  The remaining apples of a PooledDeck
+ * over the codec's pools are written and read back by index alone, without
+ * creating any of them.  Numbers are written as variable length ints.  A codec holds no state of its own besides the pools, so one
+ * codec can be shared by every game using the same pools, from any thread.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class GameSnapshotCodec {
+
+	/** Identifies a snapshot: "A2GS". */
+	static final int MAGIC = 0x41324753;
+
+	/** The version of the format. */
+	static final int FORMAT_VERSION = 1;
+
+	/** Written in place of an apple reference for a null apple. */
+	private static final int NULL_APPLE = 0;
+
+	/** Written in place of an apple reference for an apple written in full. */
+	private static final int INLINE_APPLE = 1;
+
+	/** Added to a pool index to make an apple reference. */
+	private static final int POOL_APPLE = 2;
+
+	/** The pool the Red Apples are referred to by. */
+	private final CardPool<RedApple> redPool;
+
+	/** The pool the Green Apples are referred to by. */
+	private final CardPool<GreenApple> greenPool;
+
+	/**
+	 * Creates a new codec referring to apples by their index in the given
+	 * pools.  Snapshots must be read with pools holding the same apples in
+	 * the same order as the ones they were written with.
+	 *
+	 * @param redPool
+	 * @param greenPool
+	 */
+	public GameSnapshotCodec(CardPool<RedApple> redPool, CardPool<GreenApple> greenPool) {
+		if (redPool == null || greenPool == null) {
+			throw new IllegalArgumentException("CardPools cannot be null.");
+		}
+		this.redPool = redPool;
+		this.greenPool = greenPool;
+	}
+
+	/**
+	 * Encodes the snapshot into a new byte array.
+	 *
+	 * @param snapshot
+	 * @return
+	 */
+	public byte[] encode(GameSnapshot snapshot) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		try {
+			write(snapshot, new DataOutputStream(bytes));
+		} catch (IOException e) {
+			/* not thrown by a ByteArrayOutputStream */
+			throw new RuntimeException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Decodes a snapshot encoded by <code>encode</code>.
+	 *
+	 * @param bytes
+	 * @return
+	 * @throws IOException - if the bytes don't hold a snapshot
+	 */
+	public GameSnapshot decode(byte[] bytes) throws IOException {
+		return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+
+	/**
+	 * Writes the snapshot.
+	 *
+	 * @param snapshot
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(GameSnapshot snapshot, DataOutput out) throws IOException {
+		if (snapshot == null) {
+			throw new IllegalArgumentException("GameSnapshot cannot be null.");
+		}
+		out.writeInt(MAGIC);
+		writeVarInt(out, FORMAT_VERSION);
+		writeVarInt(out, snapshot.getPhase().ordinal());
+		writeVarInt(out, snapshot.getPreSuspendedPhase() == null
+				? 0 : snapshot.getPreSuspendedPhase().ordinal() + 1);
+		writeVarInt(out, snapshot.getRoundsPlayed());
+		out.writeInt(snapshot.getPointsNeededToWin());
+		writeVarInt(out, snapshot.getPlayers().size());
+		for (GameSnapshot.PlayerState player : snapshot.getPlayers()) {
+			out.writeUTF(player.getId());
+			writeString(out, player.getNick());
+			out.writeByte((player.isCheater() ? 1 : 0)
+					| (player.isActive() ? 2 : 0)
+					| (player.isAbleToPlay() ? 4 : 0));
+			writeVarInt(out, player.getRoundsPlayed());
+			writeVarInt(out, player.getPoints());
+			writeVarInt(out, Math.max(0, player.getPointHistoryLimit()));
+			writeRedApples(out, player.getHand());
+			writeVarInt(out, player.getGreenApples().size());
+			for (int i = 0; i < player.getGreenApples().size(); ++i) {
+				writeGreenApple(out, player.getGreenApples().get(i));
+				writeRedApple(out, player.getWinningRedApples().get(i));
+			}
+		}
+		writeString(out, snapshot.getJudgeId());
+		writeStrings(out, snapshot.getWinnerIds());
+		writeStrings(out, snapshot.getBannedPlayerIds());
+		writeGreenApple(out, snapshot.getGreenApple());
+		writeVarInt(out, snapshot.getApplesToJudge().size());
+		for (Map.Entry<String, RedApple> entry : snapshot.getApplesToJudge().entrySet()) {
+			out.writeUTF(entry.getKey());
+			writeRedApple(out, entry.getValue());
+		}
+		writeRedDeck(out, snapshot.getRedDeck());
+		writeGreenDeck(out, snapshot.getGreenDeck());
+	}
+
+	/**
+	 * Reads a snapshot written by <code>write</code>.
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException - if the input doesn't hold a snapshot
+	 */
+	public GameSnapshot read(DataInput in) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a game snapshot.");
+		}
+		int version = readVarInt(in);
+		if (version != FORMAT_VERSION) {
+			throw new IOException("Unsupported game snapshot version " + version);
+		}
+		Game.GamePhase[] phases = Game.GamePhase.values();
+		Game.GamePhase phase = phases[readIndex(in, phases.length)];
+		int preSuspended = readIndex(in, phases.length + 1);
+		Game.GamePhase preSuspendedPhase = preSuspended == 0 ? null : phases[preSuspended - 1];
+		int roundsPlayed = readVarInt(in);
+		int pointsNeededToWin = in.readInt();
+		int playerCount = readVarInt(in);
+		List<GameSnapshot.PlayerState> players = new ArrayList<GameSnapshot.PlayerState>(playerCount);
+		for (int p = 0; p < playerCount; ++p) {
+			String id = in.readUTF();
+			String nick = readString(in);
+			int flags = in.readByte();
+			int playerRounds = readVarInt(in);
+			int points = readVarInt(in);
+			int historyLimit = readVarInt(in);
+			List<RedApple> hand = readRedApples(in);
+			int historySize = readVarInt(in);
+			List<GreenApple> greens = new ArrayList<GreenApple>(historySize);
+			List<RedApple> winners = new ArrayList<RedApple>(historySize);
+			for (int i = 0; i < historySize; ++i) {
+				greens.add(readGreenApple(in));
+				winners.add(readRedApple(in));
+			}
+			players.add(new GameSnapshot.PlayerState(id, nick, (flags & 1) != 0, (flags & 2) != 0,
+					(flags & 4) != 0, playerRounds, hand, greens, winners, points, historyLimit));
+		}
+		String judgeId = readString(in);
+		Set<String> winnerIds = readStrings(in);
+		Set<String> bannedPlayerIds = readStrings(in);
+		GreenApple greenApple = readGreenApple(in);
+		int playedCount = readVarInt(in);
+		Map<String, RedApple> applesToJudge = new LinkedHashMap<String, RedApple>(playedCount * 2);
+		for (int i = 0; i < playedCount; ++i) {
+			applesToJudge.put(in.readUTF(), readRedApple(in));
+		}
+		List<RedApple> redDeck = readRedDeck(in);
+		List<GreenApple> greenDeck = readGreenDeck(in);
+		try {
+			return new GameSnapshot(phase, preSuspendedPhase, roundsPlayed, pointsNeededToWin,
+					players, judgeId, winnerIds, bannedPlayerIds, greenApple, applesToJudge,
+					redDeck, greenDeck);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Inconsistent game snapshot: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes a Red Apple as its index in the pool, or in full if it's not
+	 * in the pool.
+	 *
+	 * @param out
+	 * @param apple - may be null
+	 * @throws IOException
+	 */
+	void writeRedApple(DataOutput out, RedApple apple) throws IOException {
+		if (apple == null) {
+			writeVarInt(out, NULL_APPLE);
+			return;
+		}
+		/* The pool's own apples needn't be compared with the pool. */
+		int index = redPool.indexOfOwn(apple);
+		if (index < 0) {
+			/* An equal apple with a different quip has to be written in full. */
+			index = redPool.indexOf(apple);
+			if (index >= 0 && !same(redPool.get(index).getQuip(), apple.getQuip())) {
+				index = -1;
+			}
+		}
+		if (index >= 0) {
+			writeVarInt(out, index + POOL_APPLE);
+		} else {
+			writeVarInt(out, INLINE_APPLE);
+			out.writeUTF(apple.getWord());
+			writeString(out, apple.getQuip());
+		}
+	}
+
+	/**
+	 * Reads a Red Apple written by <code>writeRedApple</code>.
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	RedApple readRedApple(DataInput in) throws IOException {
+		return readRedApple(in, readVarInt(in));
+	}
+
+	/**
+	 * Reads the rest of a Red Apple whose reference has been read.
+	 *
+	 * @param in
+	 * @param ref
+	 * @return
+	 * @throws IOException
+	 */
+	private RedApple readRedApple(DataInput in, int ref) throws IOException {
+		if (ref == NULL_APPLE) {
+			return null;
+		} else if (ref == INLINE_APPLE) {
+			RedApple apple = new RedApple(in.readUTF());
+			apple.setQuip(readString(in));
+			return apple;
+		} else if (ref - POOL_APPLE >= redPool.size()) {
+			throw new IOException("RedApple " + (ref - POOL_APPLE) + " of " + redPool.size());
+		}
+		return redPool.get(ref - POOL_APPLE);
+	}
+
+	/**
+	 * Writes a Green Apple as its index in the pool, or in full if it's not
+	 * in the pool.
+	 *
+	 * @param out
+	 * @param apple - may be null
+	 * @throws IOException
+	 */
+	private void writeGreenApple(DataOutput out, GreenApple apple) throws IOException {
+		if (apple == null) {
+			writeVarInt(out, NULL_APPLE);
+			return;
+		}
+		int index = greenPool.indexOfOwn(apple);
+		if (index < 0) {
+			/* An equal apple with different synonyms has to be written in full. */
+			index = greenPool.indexOf(apple);
+			if (index >= 0 && !same(greenPool.get(index).getSynonyms(), apple.getSynonyms())) {
+				index = -1;
+			}
+		}
+		if (index >= 0) {
+			writeVarInt(out, index + POOL_APPLE);
+		} else {
+			writeVarInt(out, INLINE_APPLE);
+			out.writeUTF(apple.getWord());
+			Collection<String> synonyms = apple.getSynonyms();
+			if (synonyms == null) {
+				writeVarInt(out, 0);
+			} else {
+				writeVarInt(out, synonyms.size() + 1);
+				for (String synonym : synonyms) {
+					out.writeUTF(synonym);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads a Green Apple written by <code>writeGreenApple</code>.
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	private GreenApple readGreenApple(DataInput in) throws IOException {
+		return readGreenApple(in, readVarInt(in));
+	}
+
+	/**
+	 * Reads the rest of a Green Apple whose reference has been read.
+	 *
+	 * @param in
+	 * @param ref
+	 * @return
+	 * @throws IOException
+	 */
+	private GreenApple readGreenApple(DataInput in, int ref) throws IOException {
+		if (ref == NULL_APPLE) {
+			return null;
+		} else if (ref == INLINE_APPLE) {
+			GreenApple apple = new GreenApple(in.readUTF());
+			int synonyms = readVarInt(in);
+			if (synonyms > 0) {
+				List<String> list = new ArrayList<String>(synonyms - 1);
+				for (int i = 1; i < synonyms; ++i) {
+					list.add(in.readUTF());
+				}
+				apple.setSynonyms(new LinkedHashSet<String>(list));
+			}
+			return apple;
+		} else if (ref - POOL_APPLE >= greenPool.size()) {
+			throw new IOException("GreenApple " + (ref - POOL_APPLE) + " of " + greenPool.size());
+		}
+		return greenPool.get(ref - POOL_APPLE);
+	}
+
+	/**
+	 * Writes a list of Red Apples, preceded by its size.
+	 *
+	 * @param out
+	 * @param apples
+	 * @throws IOException
+	 */
+	private void writeRedApples(DataOutput out, List<RedApple> apples) throws IOException {
+		writeVarInt(out, apples.size());
+		for (RedApple apple : apples) {
+			writeRedApple(out, apple);
+		}
+	}
+
+	/**
+	 * Reads a list of Red Apples written by <code>writeRedApples</code>.
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	private List<RedApple> readRedApples(DataInput in) throws IOException {
+		int size = readVarInt(in);
+		List<RedApple> apples = new ArrayList<RedApple>(size);
+		for (int i = 0; i < size; ++i) {
+			apples.add(readRedApple(in));
+		}
+		return apples;
+	}
+
+	/**
+	 * Writes a deck's remaining Red Apples, preceded by its size plus one, so
+	 * that 0 means no deck.  The pool's apples in PooledApples over the pool
+	 * are written by index without fetching them.
+	 *
+	 * @param out
+	 * @param deck - may be null
+	 * @throws IOException
+	 */
+	private void writeRedDeck(DataOutput out, List<RedApple> deck) throws IOException {
+		if (deck == null) {
+			writeVarInt(out, 0);
+			return;
+		}
+		PooledApples<RedApple> pooled = deck instanceof PooledApples
+				&& ((PooledApples<RedApple>) deck).getPool() == redPool
+				? (PooledApples<RedApple>) deck : null;
+		writeVarInt(out, deck.size() + 1);
+		for (int i = 0; i < deck.size(); ++i) {
+			int index = pooled == null ? -1 : pooled.getIndex(i);
+			if (index >= 0) {
+				writeVarInt(out, index + POOL_APPLE);
+			} else {
+				writeRedApple(out, deck.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Reads a deck written by <code>writeRedDeck</code> as PooledApples over
+	 * the pool, so none of the pool's apples are created.
+	 *
+	 * @param in
+	 * @return the apples, or null if there was no deck
+	 * @throws IOException
+	 */
+	private List<RedApple> readRedDeck(DataInput in) throws IOException {
+		int size = readVarInt(in) - 1;
+		if (size < 0) {
+			return null;
+		}
+		int[] order = new int[size];
+		List<RedApple> extras = new ArrayList<RedApple>();
+		for (int i = 0; i < size; ++i) {
+			int ref = readVarInt(in);
+			if (ref >= POOL_APPLE) {
+				if (ref - POOL_APPLE >= redPool.size()) {
+					throw new IOException("RedApple " + (ref - POOL_APPLE) + " of " + redPool.size());
+				}
+				order[i] = ref - POOL_APPLE;
+			} else {
+				extras.add(readRedApple(in, ref));
+				order[i] = -extras.size();
+			}
+		}
+		return new PooledApples<RedApple>(redPool, order, extras);
+	}
+
+	/**
+	 * Writes a deck's remaining Green Apples, like <code>writeRedDeck</code>.
+	 *
+	 * @param out
+	 * @param deck - may be null
+	 * @throws IOException
+	 */
+	private void writeGreenDeck(DataOutput out, List<GreenApple> deck) throws IOException {
+		if (deck == null) {
+			writeVarInt(out, 0);
+			return;
+		}
+		PooledApples<GreenApple> pooled = deck instanceof PooledApples
+				&& ((PooledApples<GreenApple>) deck).getPool() == greenPool
+				? (PooledApples<GreenApple>) deck : null;
+		writeVarInt(out, deck.size() + 1);
+		for (int i = 0; i < deck.size(); ++i) {
+			int index = pooled == null ? -1 : pooled.getIndex(i);
+			if (index >= 0) {
+				writeVarInt(out, index + POOL_APPLE);
+			} else {
+				writeGreenApple(out, deck.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Reads a deck written by <code>writeGreenDeck</code>, like
+	 * <code>readRedDeck</code>.
+	 *
+	 * @param in
+	 * @return the apples, or null if there was no deck
+	 * @throws IOException
+	 */
+	private List<GreenApple> readGreenDeck(DataInput in) throws IOException {
+		int size = readVarInt(in) - 1;
+		if (size < 0) {
+			return null;
+		}
+		int[] order = new int[size];
+		List<GreenApple> extras = new ArrayList<GreenApple>();
+		for (int i = 0; i < size; ++i) {
+			int ref = readVarInt(in);
+			if (ref >= POOL_APPLE) {
+				if (ref - POOL_APPLE >= greenPool.size()) {
+					throw new IOException("GreenApple " + (ref - POOL_APPLE) + " of " + greenPool.size());
+				}
+				order[i] = ref - POOL_APPLE;
+			} else {
+				extras.add(readGreenApple(in, ref));
+				order[i] = -extras.size();
+			}
+		}
+		return new PooledApples<GreenApple>(greenPool, order, extras);
+	}
+
+	/**
+	 * Indicates if both objects are null or equal.
+	 *
+	 * @param o1
+	 * @param o2
+	 * @return
+	 */
+	private static boolean same(Object o1, Object o2) {
+		return o1 == null ? o2 == null : o1.equals(o2);
+	}
+
+	/**
+	 * Writes a string that may be null.
+	 *
+	 * @param out
+	 * @param s
+	 * @throws IOException
+	 */
+	static void writeString(DataOutput out, String s) throws IOException {
+		out.writeBoolean(s != null);
+		if (s != null) {
+			out.writeUTF(s);
+		}
+	}
+
+	/**
+	 * Reads a string written by <code>writeString</code>.
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	static String readString(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	/**
+	 * Writes a set of strings, preceded by its size.
+	 *
+	 * @param out
+	 * @param strings
+	 * @throws IOException
+	 */
+	private static void writeStrings(DataOutput out, Set<String> strings) throws IOException {
+		writeVarInt(out, strings.size());
+		for (String s : strings) {
+			out.writeUTF(s);
+		}
+	}
+
+	/**
+	 * Reads a set of strings written by <code>writeStrings</code>.
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	private static Set<String> readStrings(DataInput in) throws IOException {
+		int size = readVarInt(in);
+		Set<String> strings = new LinkedHashSet<String>(size * 2);
+		for (int i = 0; i < size; ++i) {
+			strings.add(in.readUTF());
+		}
+		return strings;
+	}
+
+	/**
+	 * Writes a non-negative int in as few bytes as possible, seven bits at
+	 * a time, least significant first.
+	 *
+	 * @param out
+	 * @param value
+	 * @throws IOException
+	 */
+	static void writeVarInt(DataOutput out, int value) throws IOException {
+		if (value < 0) {
+			throw new IllegalArgumentException("Value cannot be negative.");
+		}
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 * Reads an int written by <code>writeVarInt</code>.
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException - if the int is too long
+	 */
+	static int readVarInt(DataInput in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				if (value < 0) {
+					throw new IOException("Malformed variable length int.");
+				}
+				return value;
+			}
+		}
+		throw new IOException("Malformed variable length int.");
+	}
+
+	/**
+	 * Reads a variable length int that must be less than the given limit.
+	 *
+	 * @param in
+	 * @param limit
+	 * @return
+	 * @throws IOException
+	 */
+	private static int readIndex(DataInput in, int limit) throws IOException {
+		int index = readVarInt(in);
+		if (index >= limit) {
+			throw new IOException("Index " + index + " of " + limit);
+		}
+		return index;
+	}
+
+}
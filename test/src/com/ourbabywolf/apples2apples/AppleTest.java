@@ -8,6 +8,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
@@ -86,6 +87,21 @@ public class AppleTest {
 		assertTrue("Can add poo", apples.add(ra4));
 	}
 	
+	@Test
+	public void testKeys() {
+		RedApple ra = new RedApple(" Yo-yos ");
+		assertEquals("Key is the trimmed, upper case word.", "YO-YOS", ra.getKey());
+		assertEquals("Normalizing a word gives the key.", ra.getKey(), Apple.normalize("yo-Yos "));
+		assertSame("Key is computed once.", ra.getKey(), ra.getKey());
+		assertEquals("Hash is the key's.", ra.getKey().hashCode(), ra.hashCode());
+		assertTrue("Same word, different case.", ra.hasSameWord(new GreenApple("yo-yos")));
+		assertFalse("Different word.", ra.hasSameWord(new RedApple("yo-yo")));
+		Set<RedApple> hand = new HashSet<RedApple>();
+		hand.add(ra);
+		assertTrue("Found by an equal apple.", hand.contains(new RedApple("YO-YOS")));
+		assertTrue("Removed by an equal apple.", hand.remove(new RedApple("yo-yos")));
+	}
+	
 	@Test(expected=IllegalArgumentException.class)
 	public void testGreenAppleNullWord() {
 		new GreenApple(null);
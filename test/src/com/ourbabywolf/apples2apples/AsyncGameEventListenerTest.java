@@ -0,0 +1,180 @@
+/*
+ * AsyncGameEventListenerTest.java - created Oct 18, 2026 12:58:21 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ourbabywolf.apples2apples.AsyncGameEventListener.BackpressurePolicy;
+
+/**
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class AsyncGameEventListenerTest {
+
+	private ExecutorService executor;
+
+	/** Records the players that joined, in order. */
+	private static class JoinRecorder extends BaseGameEventListener {
+		private final List<Player> joined = new ArrayList<Player>();
+		private final List<Collection<Player>> minimums = new ArrayList<Collection<Player>>();
+		@Override
+		public void playerJoinedGame(Player player) {
+			synchronized (joined) {
+				joined.add(player);
+			}
+		}
+		@Override
+		public void minimumNbrOfPlayersJoinedGame(Collection<Player> players) {
+			minimums.add(players);
+		}
+	}
+
+	@Before
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown() throws InterruptedException {
+		executor.shutdown();
+		assertTrue("Executor should finish.", executor.awaitTermination(10, TimeUnit.SECONDS));
+	}
+
+	private void awaitDrained(AsyncGameEventListener listener, long expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (listener.getEventsDelivered() + listener.getEventsDiscarded() < expected
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+	}
+
+	@Test
+	public void testOrderedDelivery() throws InterruptedException {
+		final int nbrOfEvents = 2000;
+		JoinRecorder recorder = new JoinRecorder();
+		AsyncGameEventListener listener = new AsyncGameEventListener(recorder, executor, 16, BackpressurePolicy.BLOCK);
+		List<Player> players = new ArrayList<Player>();
+		for (int i = 0; i < nbrOfEvents; ++i) {
+			Player player = new Player("player" + i);
+			players.add(player);
+			listener.playerJoinedGame(player);
+		}
+		awaitDrained(listener, nbrOfEvents);
+		assertEquals("Nothing discarded.", 0L, listener.getEventsDiscarded());
+		assertEquals("Everything delivered in order.", players, recorder.joined);
+		assertTrue("Queue never exceeds capacity.", listener.getMaxQueueDepth() <= 16);
+		assertEquals("Queue is empty.", 0, listener.getQueueDepth());
+	}
+
+	@Test
+	public void testCollectionsCopied() throws InterruptedException {
+		JoinRecorder recorder = new JoinRecorder();
+		AsyncGameEventListener listener = new AsyncGameEventListener(recorder, executor, 16, BackpressurePolicy.BLOCK);
+		List<Player> players = new ArrayList<Player>();
+		players.add(new Player("joe"));
+		listener.minimumNbrOfPlayersJoinedGame(players);
+		players.add(new Player("katie"));
+		awaitDrained(listener, 1);
+		assertEquals("Event sees the players as they were when fired.", 1, recorder.minimums.get(0).size());
+	}
+
+	@Test
+	public void testDiscardNewest() throws InterruptedException {
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch started = new CountDownLatch(1);
+		final List<Player> joined = new ArrayList<Player>();
+		GameEventListener slow = new BaseGameEventListener() {
+			@Override
+			public void playerJoinedGame(Player player) {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				joined.add(player);
+			}
+		};
+		AsyncGameEventListener listener = new AsyncGameEventListener(slow, executor, 2, BackpressurePolicy.DISCARD_NEWEST);
+		listener.playerJoinedGame(new Player("first"));
+		assertTrue("Delivery should start.", started.await(10, TimeUnit.SECONDS));
+		for (int i = 0; i < 5; ++i) {
+			listener.playerJoinedGame(new Player("player" + i));
+		}
+		assertEquals("Three events don't fit.", 3L, listener.getEventsDiscarded());
+		release.countDown();
+		awaitDrained(listener, 6);
+		assertEquals("Oldest events are kept.", "player1", joined.get(2).getId());
+	}
+
+	@Test
+	public void testDiscardOldest() throws InterruptedException {
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch started = new CountDownLatch(1);
+		final List<Player> joined = new ArrayList<Player>();
+		GameEventListener slow = new BaseGameEventListener() {
+			@Override
+			public void playerJoinedGame(Player player) {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				joined.add(player);
+			}
+		};
+		AsyncGameEventListener listener = new AsyncGameEventListener(slow, executor, 2, BackpressurePolicy.DISCARD_OLDEST);
+		listener.playerJoinedGame(new Player("first"));
+		assertTrue("Delivery should start.", started.await(10, TimeUnit.SECONDS));
+		for (int i = 0; i < 5; ++i) {
+			listener.playerJoinedGame(new Player("player" + i));
+		}
+		assertEquals("Three events pushed out.", 3L, listener.getEventsDiscarded());
+		release.countDown();
+		awaitDrained(listener, 6);
+		assertEquals("Newest events are kept.", "player4", joined.get(2).getId());
+	}
+
+	@Test
+	public void testRejectedDelivery() {
+		final boolean[] rejecting = {true};
+		Executor flaky = new Executor() {
+			public void execute(Runnable command) {
+				if (rejecting[0]) {
+					throw new RejectedExecutionException("Shut down.");
+				}
+				command.run();
+			}
+		};
+		JoinRecorder recorder = new JoinRecorder();
+		AsyncGameEventListener listener = new AsyncGameEventListener(recorder, flaky, 16, BackpressurePolicy.BLOCK);
+		listener.playerJoinedGame(new Player("joe"));
+		listener.playerJoinedGame(new Player("katie"));
+		assertEquals("Undeliverable events discarded.", 2L, listener.getEventsDiscarded());
+		assertEquals("Nothing left waiting.", 0, listener.getQueueDepth());
+		rejecting[0] = false;
+		Player caleb = new Player("caleb");
+		listener.playerJoinedGame(caleb);
+		assertEquals("Delivery resumes once the executor accepts.", 1L, listener.getEventsDelivered());
+		assertEquals("Delivered.", caleb, recorder.joined.get(0));
+	}
+}
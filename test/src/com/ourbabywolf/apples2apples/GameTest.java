@@ -8,17 +8,27 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import com.ourbabywolf.apples2apples.decks.ListBackedDeck;
+
 /**
  * @author joe@ourbabywolf.com
  *
@@ -208,6 +218,7 @@ public class GameTest {
 		private boolean rotateJudge = true;
 		private boolean leaveDuringGame = false;
 		private boolean joinDuringGame = true;
+		private int pointHistoryLimit = 0;
 		public EZGameConfiguration() { }
 		public EZGameConfiguration(final boolean autoStart, 
 				final boolean fixPoints, final int cardsPerHand, 
@@ -233,6 +244,7 @@ public class GameTest {
 		public boolean isJudgeRotated() { return rotateJudge;	}
 		public boolean playersCanJoinDuringGame() { return leaveDuringGame; }
 		public boolean playersCanLeaveDuringGame() { return joinDuringGame; }
+		public int getPointHistoryLimit() { return pointHistoryLimit; }
 	}
 	
 	@Before
@@ -325,6 +337,38 @@ public class GameTest {
 		assertNull("Tokki is a nick, not a player.", tokki);
 	}
 	
+	@Test
+	public void testGetPlayerByNick() {
+		Game game = new Game(new CountingEventListener(), new EZGameConfiguration(
+				false, false, 1, 4, 2, 2, false, false, true
+				), redApples, greenApples);
+		
+		assertNull("No one has joined yet.", game.getPlayerByNick("tokki"));
+		game.join("joe");
+		game.join("katie", "tokki");
+		Player katie = game.getPlayer("katie");
+		assertEquals("Joe's nick is his id.", game.getPlayer("joe"), game.getPlayerByNick("joe"));
+		assertEquals("Katie can be found by her nick.", katie, game.getPlayerByNick("tokki"));
+		assertNull("Katie's id is not a nick.", game.getPlayerByNick("katie"));
+		
+		assertEquals("Rejoining has no effect.", Game.Result.NO_EFFECT, game.join("katie", "katiesnewnickname"));
+		assertNull("Rejoining cannot claim a nick.", game.getPlayerByNick("katiesnewnickname"));
+		
+		assertEquals("Katie can change her nick.", Game.Result.SUCCESS, game.changePlayerNick(katie, "kt"));
+		assertNull("Katie's old nick is released.", game.getPlayerByNick("tokki"));
+		assertEquals("Katie can be found by her new nick.", katie, game.getPlayerByNick("kt"));
+		
+		assertEquals("Katie can leave.", Game.Result.SUCCESS, game.leave(new Player("katie")));
+		assertNull("Katie cannot be found by id after leaving.", game.getPlayer("katie"));
+		assertNull("Katie cannot be found by nick after leaving.", game.getPlayerByNick("kt"));
+		
+		game.join("caleb", "captainsupercaleb");
+		assertEquals("Caleb can be banned.", Game.Result.SUCCESS, game.banPlayer("caleb"));
+		assertNull("Banned players are removed from the id index.", game.getPlayer("caleb"));
+		assertNull("Banned players are removed from the nick index.", game.getPlayerByNick("captainsupercaleb"));
+		assertEquals("Only Joe remains.", 1, game.getPlayers().size());
+	}
+	
 	@Test(expected=UnsupportedOperationException.class)
 	public void testPlayersUnmodifiability() {
 		Game game = new Game(new CountingEventListener(), 
@@ -397,6 +441,44 @@ public class GameTest {
 		game.play(joe, caleb.getAppleFromHand(0));
 	}
 	
+	@Test
+	public void testActivePlayersWhoHaveNotPlayedRedApples() {
+		GameConfiguration config = new EZGameConfiguration(false, false, 3, 12, 3, 2, false, false, true);
+		Game game = new Game(new CountingEventListener(), config, redApples, greenApples);
+		game.join("joe");
+		Player joe = game.getPlayer("joe");
+		game.join("katie");
+		Player katie = game.getPlayer("katie");
+		game.join("caleb");
+		Player caleb = game.getPlayer("caleb");
+		game.join("joshua");
+		Player joshua = game.getPlayer("joshua");
+		Set<Player> yetToPlay = game.getActivePlayersWhoHaveNotPlayedRedApples();
+		
+		assertEquals("Katie can be judge.", Game.Result.SUCCESS, game.setJudge(katie));
+		assertFalse("The judge doesn't play.", yetToPlay.contains(katie));
+		assertEquals("Round can start.", Game.Result.SUCCESS, game.startRound());
+		assertEquals("Everyone but the judge has yet to play.", 3, yetToPlay.size());
+		assertFalse("Not everyone has played.", game.haveAllActivePlayersPlayedRedApples());
+		
+		assertEquals("Caleb can play.", Game.Result.SUCCESS, game.play(caleb, caleb.getAppleFromHand(0)));
+		assertFalse("Caleb has played.", yetToPlay.contains(caleb));
+		assertEquals("Joshua can play.", Game.Result.SUCCESS, game.play(joshua, joshua.getAppleFromHand(0)));
+		assertEquals("Only Joe has yet to play.", 1, yetToPlay.size());
+		assertTrue("Joe has yet to play.", yetToPlay.contains(joe));
+		
+		assertEquals("Joe can be inactivated.", Game.Result.SUCCESS, game.inactivatePlayer(joe));
+		assertTrue("All active players have played.", game.haveAllActivePlayersPlayedRedApples());
+		assertTrue("Judgement can occur.", game.isTimeToJudge());
+		
+		assertEquals("Judge can pick.", Game.Result.SUCCESS, game.judge(game.getApplesToJudge().iterator().next()));
+		assertEquals("Next round can start.", Game.Result.SUCCESS, game.startRound());
+		assertEquals("Inactive players don't owe a card.", 2, yetToPlay.size());
+		assertFalse("Inactive Joe doesn't owe a card.", yetToPlay.contains(joe));
+		assertEquals("Joe can be activated.", Game.Result.SUCCESS, game.activatePlayer(joe));
+		assertTrue("Active Joe owes a card.", yetToPlay.contains(joe));
+	}
+	
 	@Test
 	public void testGetPlayersSortedByPoints() {
 		CountingEventListener cel = new CountingEventListener();
@@ -432,6 +514,29 @@ public class GameTest {
 		assertEquals("Joe should be the next in the list again.", joe, it.next());
 	}
 	
+	@Test
+	public void testGetPlayersSortedByPointsTies() {
+		GameConfiguration config = new EZGameConfiguration(false, false, 1, 15, 3, 1, false, true, false);
+		Game game = new Game(new CountingEventListener(), config, redApples, greenApples);
+		/* "Aa" and "BB" have the same hash code. */
+		game.join("BB");
+		game.join("Aa");
+		game.join("joe");
+		assertEquals("Ids should collide.", "Aa".hashCode(), "BB".hashCode());
+		SortedSet<Player> sorted = game.getPlayersSortedByPoints();
+		assertEquals("Colliding players should not be dropped.", 3, sorted.size());
+		Iterator<Player> it = sorted.iterator();
+		assertEquals("Ties are ordered by id.", "Aa", it.next().getId());
+		assertEquals("Ties are ordered by id.", "BB", it.next().getId());
+		assertEquals("Ties are ordered by id.", "joe", it.next().getId());
+		
+		game.getPlayer("joe").awardPoint(new GreenApple("pointy"), new RedApple("point"));
+		sorted = game.getPlayersSortedByPoints();
+		assertEquals("Joe should be first.", "joe", sorted.first().getId());
+		assertEquals("BB should be last.", "BB", sorted.last().getId());
+		assertSame("The shared comparator is used.", Player.BY_POINTS, sorted.comparator());
+	}
+	
 	@Test
 	public void testIndirectReactivation() {
 		// TODO - if you play, you become active.  If you judge and you're the judge, you become active
@@ -1061,4 +1166,261 @@ public class GameTest {
 	public void testMaxPlayersJoinedEvent() {
 		// TODO
 	}
+
+	@Test
+	public void testPointHistoryLimit() {
+		EZGameConfiguration config = new EZGameConfiguration(true, true, 3, 5, 3, 0, true, true, true);
+		config.pointHistoryLimit = 2;
+		Game game = new Game(new CountingEventListener(), config, redApples, greenApples);
+		game.join("joe");
+		game.join("katie");
+		game.join("caleb");
+		assertEquals("Endless game.", 0, game.getPointsNeededToWin());
+		assertEquals("Limit applied on joining.", 2, game.getPlayer("joe").getPointHistoryLimit());
+		for (int round = 0; round < 6; ++round) {
+			for (Player p : new ArrayList<Player>(game.getActivePlayersWhoHaveNotPlayedRedApples())) {
+				assertEquals(p + " can play.", Game.Result.SUCCESS, game.play(p, p.getAppleFromHand(0)));
+			}
+			assertEquals("Judged.", Game.Result.SUCCESS, game.judge(game.getApplesToJudge().iterator().next()));
+		}
+		assertFalse("Game goes on.", game.isOver());
+		Player leader = game.getPlayersSortedByPoints().first();
+		assertTrue("Leader won more than the limit.", leader.getPoints() > 2);
+		assertEquals("Only the limit kept.", 2, leader.getGreenApples().size());
+	}
+	
+	@Test
+	public void testBatchedEvents() {
+		final List<List<GameEvent>> batches = new ArrayList<List<GameEvent>>();
+		BatchingGameEventListener bgel = new BatchingGameEventListener(new BatchGameEventListener() {
+			public void eventsFired(List<GameEvent> events) {
+				batches.add(events);
+			}
+		});
+		GameConfiguration config = new EZGameConfiguration(false, false, 3, 5, 3, 1, true, true, true);
+		Game game = new Game(bgel, config, redApples, greenApples);
+		game.join("joe");
+		game.join("katie");
+		game.join("caleb");
+		assertEquals("One batch per join.", 3, batches.size());
+		assertEquals("Join fires the joined event first.", GameEvent.Type.PLAYER_JOINED, batches.get(0).get(0).getType());
+		assertEquals("Unban fires no events.", Game.Result.NO_EFFECT, game.unbanPlayer("joshua"));
+		assertEquals("No batch without events.", 3, batches.size());
+		
+		assertEquals("Round should start.", Game.Result.SUCCESS, game.startRound());
+		assertEquals("Starting the round is one batch.", 4, batches.size());
+		List<GameEvent> round = batches.get(3);
+		int dealt = 0;
+		for (GameEvent event : round) {
+			if (event.getType() == GameEvent.Type.RED_APPLE_DEALT) {
+				++dealt;
+			}
+		}
+		assertEquals("Every card dealt is in the batch.", 9, dealt);
+		assertEquals("Green apple is drawn last.", GameEvent.Type.GREEN_APPLE_PLAYED, round.get(round.size() - 1).getType());
+		assertEquals("Nothing left pending.", 0, bgel.getPendingEvents());
+		
+		CountingEventListener cel = new CountingEventListener();
+		for (GameEvent event : round) {
+			event.dispatch(cel);
+		}
+		assertEquals("Dispatch replays the deals.", 9, cel.redAppleDealtEventCounter);
+		assertEquals("Dispatch replays the judge change.", 1, cel.judgeChangedEventCounter);
+		assertEquals("Dispatch replays the green apple.", 1, cel.greenApplePlayedEventCounter);
+	}
+	
+	@Test
+	public void testBatchedEventsWrapped() throws InterruptedException {
+		final List<List<GameEvent>> batches = new ArrayList<List<GameEvent>>();
+		BatchingGameEventListener bgel = new BatchingGameEventListener(new BatchGameEventListener() {
+			public void eventsFired(List<GameEvent> events) {
+				batches.add(events);
+			}
+		});
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		AsyncGameEventListener async = new AsyncGameEventListener(bgel, executor, 100,
+				AsyncGameEventListener.BackpressurePolicy.BLOCK);
+		GameConfiguration config = new EZGameConfiguration(false, false, 3, 5, 3, 1, true, true, true);
+		Game game = new Game(async, config, redApples, greenApples);
+		game.join("joe");
+		game.join("katie");
+		game.join("caleb");
+		assertEquals("Round should start.", Game.Result.SUCCESS, game.startRound());
+		executor.shutdown();
+		assertTrue("Delivered.", executor.awaitTermination(5, TimeUnit.SECONDS));
+		assertEquals("One batch per operation, through the wrapper.", 4, batches.size());
+		assertEquals("Join fires the joined event first.", GameEvent.Type.PLAYER_JOINED, batches.get(0).get(0).getType());
+		List<GameEvent> round = batches.get(3);
+		assertEquals("Green apple is drawn last.", GameEvent.Type.GREEN_APPLE_PLAYED, round.get(round.size() - 1).getType());
+		assertEquals("Nothing left pending.", 0, bgel.getPendingEvents());
+		int events = 0;
+		for (List<GameEvent> batch : batches) {
+			events += batch.size();
+		}
+		assertEquals("Operation ends aren't counted as events.", (long)events, async.getEventsDelivered());
+	}
+	
+	/** Plays a red apple for each player who has yet to play. */
+	private void playRound(Game game) {
+		for (Player p : new ArrayList<Player>(game.getActivePlayersWhoHaveNotPlayedRedApples())) {
+			assertEquals(p + " can play.", Game.Result.SUCCESS, game.play(p, p.getAppleFromHand(0)));
+		}
+	}
+	
+	/** Asserts that the games' states match. */
+	private void assertSameState(Game expected, Game actual) {
+		assertEquals("Same phase.", expected.isStarted(), actual.isStarted());
+		assertEquals("Same phase.", expected.isSuspended(), actual.isSuspended());
+		assertEquals("Same phase.", expected.isTimeToPlayRedApples(), actual.isTimeToPlayRedApples());
+		assertEquals("Same phase.", expected.isTimeToJudge(), actual.isTimeToJudge());
+		assertEquals("Same rounds.", expected.getRoundsPlayed(), actual.getRoundsPlayed());
+		assertEquals("Same points needed.", expected.getPointsNeededToWin(), actual.getPointsNeededToWin());
+		assertEquals("Same judge.", expected.getJudge(), actual.getJudge());
+		assertEquals("Same banned.", expected.getBannedPlayerIds(), actual.getBannedPlayerIds());
+		assertEquals("Same players, in order.", new ArrayList<Player>(expected.getPlayers()), 
+				new ArrayList<Player>(actual.getPlayers()));
+		for (Player e : expected.getPlayers()) {
+			Player a = actual.getPlayer(e.getId());
+			assertSame("Indexed by nick.", a, actual.getPlayerByNick(e.getNick()));
+			assertEquals("Same class.", e.getClass(), a.getClass());
+			assertEquals("Same hand.", e.getHand(), a.getHand());
+			assertEquals("Same points.", e.getPoints(), a.getPoints());
+			assertEquals("Same points won.", e.getGreenApples(), a.getGreenApples());
+			assertEquals("Same active.", e.isActive(), a.isActive());
+			assertEquals("Same able to play.", e.isAbleToPlay(), a.isAbleToPlay());
+			assertEquals("Same rounds played.", e.getRoundsPlayed(), a.getRoundsPlayed());
+		}
+		assertEquals("Same apples to judge.", new HashSet<RedApple>(expected.getApplesToJudge()), 
+				new HashSet<RedApple>(actual.getApplesToJudge()));
+		assertEquals("Same yet to play.", expected.getActivePlayersWhoHaveNotPlayedRedApples(), 
+				actual.getActivePlayersWhoHaveNotPlayedRedApples());
+		assertEquals("Same active.", expected.getActivePlayers(), actual.getActivePlayers());
+		assertEquals("Same top score.", expected.getLeaderboard().getTopScore(), actual.getLeaderboard().getTopScore());
+		assertEquals("Same leaders.", expected.getLeaderboard().getLeaders(), actual.getLeaderboard().getLeaders());
+		assertEquals("Same winners.", expected.getWinners(), actual.getWinners());
+	}
+	
+	@Test
+	public void testSnapshotRestore() {
+		GameConfiguration config = new EZGameConfiguration(false, false, 3, 5, 3, 3, true, true, true);
+		ListBackedDeck<RedApple> red = new ListBackedDeck<RedApple>(false);
+		for (int i = 0; i < 40; ++i) {
+			red.add(new RedApple("red" + i));
+		}
+		ListBackedDeck<GreenApple> green = new ListBackedDeck<GreenApple>(true);
+		for (int i = 0; i < 5; ++i) {
+			green.add(new GreenApple("green" + i));
+		}
+		Game game = new Game(new CountingEventListener(), config, red, green);
+		game.join("joe");
+		game.join("katie", "Kate");
+		game.join("caleb", null, true);
+		game.banPlayer("joshua");
+		assertEquals("Round should start.", Game.Result.SUCCESS, game.startRound());
+		playRound(game);
+		assertEquals("Judged.", Game.Result.SUCCESS, game.judge(game.getApplesToJudge().iterator().next()));
+		assertEquals("Next round should start.", Game.Result.SUCCESS, game.startRound());
+		Player notPlaying = game.getActivePlayersWhoHaveNotPlayedRedApples().iterator().next();
+		assertEquals("Inactivated.", Game.Result.SUCCESS, game.inactivatePlayer(notPlaying));
+		assertTrue("Suspended mid-round.", game.isSuspended());
+		
+		GameSnapshot snapshot = game.snapshot();
+		ListBackedDeck<RedApple> restoredRed = new ListBackedDeck<RedApple>(false);
+		ListBackedDeck<GreenApple> restoredGreen = new ListBackedDeck<GreenApple>(true);
+		Game restored = new Game(new CountingEventListener(), config, restoredRed, restoredGreen);
+		restored.join("someone");
+		restored.restore(snapshot);
+		assertNull("Old players are gone.", restored.getPlayer("someone"));
+		assertEquals("Old players are off the leaderboard.", 3, restored.getLeaderboard().size());
+		assertSameState(game, restored);
+		assertTrue("Cheater restored.", restored.getPlayer("caleb") instanceof Cheater);
+		
+		/* Both games carry on the same way. */
+		for (Game g : new Game[] {game, restored}) {
+			assertEquals("Resumed.", Game.Result.SUCCESS, g.activatePlayer(g.getPlayer(notPlaying.getId())));
+			playRound(g);
+			assertEquals("Judged.", Game.Result.SUCCESS, g.judge(g.getApplesToJudge().iterator().next()));
+			assertEquals("Next round should start.", Game.Result.SUCCESS, g.startRound());
+		}
+		assertSameState(game, restored);
+		assertEquals("Same green apple drawn next.", green.draw(), restoredGreen.draw());
+		while (!red.isExhausted()) {
+			assertEquals("Same red apples left.", red.draw(), restoredRed.draw());
+		}
+		assertTrue("No more red apples.", restoredRed.isExhausted());
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void testRestoreUnrestorableDeck() {
+		GameConfiguration config = new EZGameConfiguration(false, false, 3, 5, 3, 3, true, true, true);
+		ListBackedDeck<RedApple> red = new ListBackedDeck<RedApple>(true);
+		red.add(new RedApple("red"));
+		ListBackedDeck<GreenApple> green = new ListBackedDeck<GreenApple>(true);
+		green.add(new GreenApple("green"));
+		GameSnapshot snapshot = new Game(new CountingEventListener(), config, red, green).snapshot();
+		new Game(new CountingEventListener(), config, redApples, greenApples).restore(snapshot);
+	}
+	
+	/** Creates a game with non-shuffled decks, so that every one deals the same apples. */
+	private Game createRecordableGame() {
+		ListBackedDeck<RedApple> red = new ListBackedDeck<RedApple>(true);
+		for (int i = 0; i < 40; ++i) {
+			red.add(new RedApple("red" + i));
+		}
+		ListBackedDeck<GreenApple> green = new ListBackedDeck<GreenApple>(true);
+		for (int i = 0; i < 5; ++i) {
+			green.add(new GreenApple("green" + i));
+		}
+		return new Game(new CountingEventListener(), 
+				new EZGameConfiguration(true, false, 3, 5, 3, 3, true, true, true), red, green);
+	}
+	
+	@Test
+	public void testRecorder() {
+		final List<GameOperation> operations = new ArrayList<GameOperation>();
+		Game game = createRecordableGame();
+		game.setRecorder(new GameRecorder() {
+			public void record(GameOperation operation) {
+				operations.add(operation);
+			}
+		});
+		game.join("joe");
+		game.join("katie", "Kate");
+		game.join("caleb", null, true);
+		assertTrue("Auto-started.", game.isStarted());
+		assertEquals("Only the joins are recorded, not the round they started.", 3, operations.size());
+		assertEquals("Join recorded.", GameOperation.Type.JOIN, operations.get(2).getType());
+		assertEquals("Join recorded.", "caleb", operations.get(2).getPlayerId());
+		assertTrue("Join recorded.", operations.get(2).getFlag());
+		assertEquals("Nick recorded.", "Kate", operations.get(1).getText());
+		playRound(game);
+		game.judge(game.getApplesToJudge().iterator().next());
+		game.banPlayer("joshua");
+		game.changePlayerNick(game.getPlayer("joe"), "Joe");
+		game.inactivatePlayer(game.getPlayer("katie"));
+		game.play(null, null);
+		assertEquals("Failed operations are recorded too.", GameOperation.Type.PLAY, 
+				operations.get(operations.size() - 1).getType());
+		
+		Game replayed = createRecordableGame();
+		for (GameOperation operation : operations) {
+			operation.applyTo(replayed);
+		}
+		assertSameState(game, replayed);
+		
+		game.setRecorder(new GameRecorder() {
+			public void record(GameOperation operation) {
+				throw new IllegalStateException("Cannot record.");
+			}
+		});
+		try {
+			game.activatePlayer(game.getPlayer("katie"));
+			fail("The recorder should have thrown.");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		assertFalse("Not performed.", game.getPlayer("katie").isActive());
+		game.setRecorder(null);
+		assertEquals("Operations still work.", Game.Result.SUCCESS, game.activatePlayer(game.getPlayer("katie")));
+	}
 }
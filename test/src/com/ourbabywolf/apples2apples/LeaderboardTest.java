@@ -0,0 +1,109 @@
+/*
+ * LeaderboardTest.java - created Oct 18, 2026 9:48:02 AM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class LeaderboardTest {
+
+	@Test
+	public void testEmpty() {
+		Leaderboard board = new Leaderboard();
+		assertEquals("No players.", 0, board.size());
+		assertEquals("No points.", 0, board.getTopScore());
+		assertTrue("No leaders.", board.getLeaders().isEmpty());
+		assertFalse("No tie.", board.isTied());
+		assertTrue("Nothing to sort.", board.getPlayersSortedByPoints().isEmpty());
+	}
+
+	@Test
+	public void testAwardAndClear() {
+		Leaderboard board = new Leaderboard();
+		Player joe = new Player("joe");
+		Player katie = new Player("katie");
+		Player caleb = new Player("caleb");
+		board.add(joe);
+		board.add(katie);
+		board.add(caleb);
+		assertEquals("Three players.", 3, board.size());
+		assertTrue("Everyone is tied at zero.", board.isTied());
+		assertEquals("Everyone leads.", 3, board.getLeaders().size());
+
+		katie.awardPoint(new GreenApple("pointy"), new RedApple("point"));
+		assertEquals("Top score is 1.", 1, board.getTopScore());
+		assertFalse("Katie leads alone.", board.isTied());
+		assertTrue("Katie leads.", board.getLeaders().contains(katie));
+
+		joe.awardPoint(new GreenApple("pointy"), new RedApple("point"));
+		joe.awardPoint(new GreenApple("pointy2"), new RedApple("point2"));
+		assertEquals("Top score is 2.", 2, board.getTopScore());
+		assertTrue("Joe leads.", board.getLeaders().contains(joe));
+		List<Player> sorted = board.getPlayersSortedByPoints();
+		assertEquals("Joe is first.", joe, sorted.get(0));
+		assertEquals("Katie is second.", katie, sorted.get(1));
+		assertEquals("Caleb is last.", caleb, sorted.get(2));
+
+		katie.awardPoint(new GreenApple("pointy2"), new RedApple("point2"));
+		assertTrue("Joe and Katie are tied.", board.isTied());
+		assertEquals("Two leaders.", 2, board.getLeaders().size());
+
+		joe.clearPoints();
+		assertEquals("Top score is still 2.", 2, board.getTopScore());
+		assertFalse("Katie leads alone again.", board.isTied());
+		katie.clearPoints();
+		assertEquals("Top score drops back to 0.", 0, board.getTopScore());
+		assertEquals("Everyone leads again.", 3, board.getLeaders().size());
+	}
+
+	@Test
+	public void testRemove() {
+		Leaderboard board = new Leaderboard();
+		Player joe = new Player("joe");
+		Player katie = new Player("katie");
+		board.add(joe);
+		board.add(katie);
+		joe.awardPoint(new GreenApple("pointy"), new RedApple("point"));
+		board.remove(joe);
+		assertEquals("One player.", 1, board.size());
+		assertEquals("Top score drops with Joe gone.", 0, board.getTopScore());
+		joe.awardPoint(new GreenApple("pointy2"), new RedApple("point2"));
+		assertEquals("Joe's points no longer count.", 0, board.getTopScore());
+		assertEquals("Only Katie is left.", katie, board.getPlayersSortedByPoints().get(0));
+	}
+
+	@Test
+	public void testTiesSortedLikeGame() {
+		Leaderboard board = new Leaderboard();
+		Player zed = new Player("zed");
+		Player amy = new Player("amy");
+		Player moe = new Player("moe");
+		board.add(zed);
+		board.add(amy);
+		board.add(moe);
+		moe.awardPoint(new GreenApple("pointy"), new RedApple("point"));
+		zed.awardPoint(new GreenApple("pointy"), new RedApple("point"));
+		amy.awardPoint(new GreenApple("pointy"), new RedApple("point"));
+		zed.awardPoint(new GreenApple("pointy2"), new RedApple("point2"));
+		List<Player> sorted = board.getPlayersSortedByPoints();
+		TreeSet<Player> byPoints = new TreeSet<Player>(Player.BY_POINTS);
+		byPoints.add(zed);
+		byPoints.add(amy);
+		byPoints.add(moe);
+		assertEquals("Same order as Player.BY_POINTS.", new ArrayList<Player>(byPoints), sorted);
+		assertEquals("Ties broken by id, not by who scored first.", amy, sorted.get(1));
+	}
+}
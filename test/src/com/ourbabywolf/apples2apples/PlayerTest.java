@@ -8,8 +8,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -109,6 +111,52 @@ public class PlayerTest {
 		assertTrue("Hand should be empty after exhausted.", joshua.getHand().isEmpty());
 	}
 	
+	@Test
+	public void testHandIndex() {
+		Player joe = new Player("joe");
+		RedApple first = new RedApple("Aardvarks");
+		RedApple second = new RedApple("AARDVARKS");
+		joe.dealApple(new RedApple("Zebras"));
+		joe.dealApple(first);
+		joe.dealApple(second);
+		assertSame("Word lookup ignores case.", first, joe.getAppleFromHand("aardvarks"));
+		assertSame("Word lookup ignores surrounding space.", first, joe.getAppleFromHand(" Aardvarks "));
+		assertTrue("Equal apple played.", joe.playApple(new RedApple("aardVARKS")));
+		assertSame("First equal apple was the one played.", second, joe.getAppleFromHand("Aardvarks"));
+		assertEquals("Hand keeps its order.", "Zebras", joe.getAppleFromHand(0).getWord());
+		assertSame("Hand keeps its order.", second, joe.getAppleFromHand(1));
+		assertTrue("Second equal apple played.", joe.playApple(first));
+		assertNull("No aardvarks left.", joe.getAppleFromHand("aardvarks"));
+		assertFalse("Can't play what's not in the hand.", joe.playApple(first));
+		joe.clearHand();
+		assertNull("Index cleared with the hand.", joe.getAppleFromHand("zebras"));
+		assertFalse("Nothing to play.", joe.playApple(new RedApple("Zebras")));
+	}
+	
+	@Test
+	public void testSortedHandIndex() {
+		Player joe = new Player("joe");
+		RedApple quiet = new RedApple("Aardvarks");
+		quiet.setQuip("quiet");
+		RedApple loud = new RedApple("AARDVARKS");
+		loud.setQuip("loud");
+		joe.dealApple(quiet);
+		joe.dealApple(new RedApple("Zebras"));
+		joe.dealApple(loud);
+		joe.sortHand(new Comparator<RedApple>() {
+			public int compare(RedApple a1, RedApple a2) {
+				return a1.getQuip() == null ? 1 : a2.getQuip() == null ? -1 
+						: a1.getQuip().compareTo(a2.getQuip());
+			}
+		});
+		assertSame("Sorted.", loud, joe.getAppleFromHand(0));
+		assertSame("Word lookup follows the sorted hand.", loud, joe.getAppleFromHand("aardvarks"));
+		assertTrue("Equal apple played.", joe.playApple(new RedApple("aardvarks")));
+		assertSame("The apple looked up was the one played.", quiet, joe.getAppleFromHand(0));
+		assertSame("The other is left.", quiet, joe.getAppleFromHand("aardvarks"));
+		assertEquals("Hand keeps its order.", "Zebras", joe.getAppleFromHand(1).getWord());
+	}
+	
 	@Test
 	public void testHandInspection() {
 		Player katie = new Player("katie");
@@ -164,4 +212,42 @@ public class PlayerTest {
 		
 	}
 	
+	@Test
+	public void testPointHistoryLimit() {
+		Player p = new Player("endless");
+		Leaderboard leaderboard = new Leaderboard();
+		leaderboard.add(p);
+		p.awardPoint(new GreenApple("green0"), new RedApple("red0"));
+		p.awardPoint(new GreenApple("green1"), new RedApple("red1"));
+		p.awardPoint(new GreenApple("green0"), new RedApple("again"));
+		assertEquals("First win is the winning apple.", "red0", 
+				p.getWinningRedApple(new GreenApple("green0")).getWord());
+		p.setPointHistoryLimit(2);
+		assertEquals("Oldest point dropped.", 2, p.getGreenApples().size());
+		assertEquals("Points still exact.", 3, p.getPoints());
+		assertEquals("Next win of the dropped apple is the winning apple.", "again", 
+				p.getWinningRedApple(new GreenApple("green0")).getWord());
+		for (int i = 2; i < 100; ++i) {
+			p.awardPoint(new GreenApple("green" + i), new RedApple("red" + i));
+		}
+		assertEquals("Points still exact.", 101, p.getPoints());
+		assertEquals("Leaderboard still notified.", 101, leaderboard.getTopScore());
+		assertEquals("History limited.", 2, p.getGreenApples().size());
+		assertEquals("Oldest kept point first.", "green98", p.getGreenApples().get(0).getWord());
+		assertEquals("Newest point last.", "green99", p.getGreenApples().get(1).getWord());
+		assertNull("Dropped points forgotten.", p.getWinningRedApple(new GreenApple("green97")));
+		assertEquals("Kept points remembered.", "red98", 
+				p.getWinningRedApple(new GreenApple("green98")).getWord());
+		p.setPointHistoryLimit(0);
+		for (int i = 100; i < 120; ++i) {
+			p.awardPoint(new GreenApple("green" + i), new RedApple("red" + i));
+		}
+		assertEquals("Unlimited again.", 22, p.getGreenApples().size());
+		assertEquals("Order kept across growth.", "green98", p.getGreenApples().get(0).getWord());
+		p.clearPoints();
+		assertEquals("Points cleared.", 0, p.getPoints());
+		assertTrue("History cleared.", p.getGreenApples().isEmpty());
+		assertEquals("Leaderboard notified.", 0, leaderboard.getTopScore());
+	}
+	
 }
@@ -0,0 +1,79 @@
+/*
+ * AppleInternerTest.java - created Oct 18, 2026 6:04:37 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.decks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import com.ourbabywolf.apples2apples.GreenApple;
+import com.ourbabywolf.apples2apples.RedApple;
+
+/**
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class AppleInternerTest {
+
+	private RedApple createRed(String word, String quip) {
+		RedApple apple = new RedApple(new String(word));
+		apple.setQuip(quip == null ? null : new String(quip));
+		return apple;
+	}
+
+	private GreenApple createGreen(String word, String... synonyms) {
+		GreenApple apple = new GreenApple(new String(word));
+		for (String synonym : synonyms) {
+			apple.addSynonym(new String(synonym));
+		}
+		return apple;
+	}
+
+	@Test
+	public void testRedApples() {
+		AppleInterner interner = new AppleInterner();
+		RedApple first = interner.intern(createRed("Aardvarks", "Termite eaters."));
+		assertSame("Same word and quip share an apple.", first, 
+				interner.intern(createRed("Aardvarks", "Termite eaters.")));
+		assertEquals("One duplicate apple.", 1L, interner.getDuplicateApples());
+		assertTrue("Duplicate apple saves heap.", interner.getBytesSaved() > 0);
+		RedApple reprinted = interner.intern(createRed("Aardvarks", "Ant eaters."));
+		assertNotSame("A different quip is a different apple.", first, reprinted);
+		assertSame("But the words are shared.", first.getWord(), reprinted.getWord());
+		RedApple other = interner.intern(createRed("Zebras", "Termite eaters."));
+		assertSame("And so are the quips.", first.getQuip(), other.getQuip());
+		assertEquals("Two duplicate strings.", 2L, interner.getDuplicateStrings());
+		assertEquals("Three distinct apples.", 3, interner.size());
+		assertSame("Null quips are fine.", interner.intern(createRed("Zebras", null)), 
+				interner.intern(createRed("Zebras", null)));
+	}
+
+	@Test
+	public void testGreenApples() {
+		AppleInterner interner = new AppleInterner();
+		GreenApple first = interner.intern(createGreen("Absurd", "silly", "zany"));
+		assertSame("Synonym order doesn't matter.", first, 
+				interner.intern(createGreen("Absurd", "zany", "silly")));
+		assertEquals("Synonyms kept.", new HashSet<String>(Arrays.asList("silly", "zany")), 
+				first.getSynonyms());
+		GreenApple fewer = interner.intern(createGreen("Absurd", "silly"));
+		assertFalse("Different synonyms are a different apple.", first == fewer);
+		String silly = fewer.getSynonyms().iterator().next();
+		for (String synonym : first.getSynonyms()) {
+			if (synonym.equals(silly)) {
+				assertSame("Synonym strings are shared.", synonym, silly);
+			}
+		}
+		assertFalse("No synonyms differs from a blank synonym.", 
+				interner.intern(createGreen("Bland")) == interner.intern(createGreen("Bland", "")));
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * BinaryDeckReaderTest.java - created Oct 18, 2026 4:06:15 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.decks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.ourbabywolf.apples2apples.GreenApple;
+import com.ourbabywolf.apples2apples.RedApple;
+
+/**
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class BinaryDeckReaderTest {
+
+	private static List<RedApple> redApples() {
+		List<RedApple> apples = new ArrayList<RedApple>();
+		RedApple aardvarks = new RedApple("Aardvarks");
+		aardvarks.setQuip("Termite eaters with <i>long</i> noses.");
+		apples.add(aardvarks);
+		apples.add(new RedApple("Cr\u00e8me Br\u00fbl\u00e9e"));
+		return apples;
+	}
+
+	private static List<GreenApple> greenApples() {
+		List<GreenApple> apples = new ArrayList<GreenApple>();
+		GreenApple absurd = new GreenApple("Absurd");
+		absurd.addSynonym("ridiculous");
+		absurd.addSynonym("silly");
+		apples.add(absurd);
+		apples.add(new GreenApple("Ridiculous"));
+		return apples;
+	}
+
+	private static byte[] write() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryDeckWriter.write("Test", null, redApples(), greenApples(), out);
+		return out.toByteArray();
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		BinaryDeckReader reader = new BinaryDeckReader(ByteBuffer.wrap(write()));
+		assertEquals("Version", "Test", reader.getVersion());
+		assertNull("Printing", reader.getPrinting());
+		assertEquals("Red count", 2, reader.getRedCount());
+		assertEquals("Green count", 2, reader.getGreenCount());
+		List<RedApple> red = reader.getRedApples();
+		assertEquals("Word", "Aardvarks", red.get(0).getWord());
+		assertEquals("Quip", "Termite eaters with <i>long</i> noses.", red.get(0).getQuip());
+		assertEquals("Non-ASCII word", "Cr\u00e8me Br\u00fbl\u00e9e", red.get(1).getWord());
+		assertNull("No quip", red.get(1).getQuip());
+		List<GreenApple> green = reader.getGreenApples();
+		assertEquals("Synonyms", new HashSet<String>(greenApples().get(0).getSynonyms()),
+				new HashSet<String>(green.get(0).getSynonyms()));
+		assertNull("No synonyms", green.get(1).getSynonyms());
+	}
+
+	@Test
+	public void testNotABinaryDeck() {
+		try {
+			new BinaryDeckReader(ByteBuffer.wrap(new byte[64]));
+			fail("Should reject the buffer.");
+		} catch (IOException e) {
+			// expected
+		}
+		try {
+			byte[] truncated = write();
+			new BinaryDeckReader(ByteBuffer.wrap(truncated, 0, truncated.length - 1).slice());
+			fail("Should reject the truncated buffer.");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testMappedByDeckCache() throws IOException {
+		final File file = File.createTempFile("red-mapped", BinaryDeckReader.EXTENSION);
+		file.deleteOnExit();
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(write());
+		} finally {
+			out.close();
+		}
+		DeckCache cache = new DeckCache(new ClassLoader() {
+			@Override
+			protected URL findResource(String name) {
+				try {
+					return "red-mapped.a2a".equals(name) ? file.toURI().toURL() : null;
+				} catch (MalformedURLException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		});
+		CardPool<RedApple> pool = cache.getRedPool("red-mapped.xml");
+		assertEquals("Binary deck loaded in place of the XML.", 2, pool.size());
+		assertEquals("Description from the binary deck.", "Test (null printing)", pool.getDescription());
+		assertTrue("Green apples too.", cache.getGreenPool("red-mapped.xml").size() == 2);
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * CompositeCardPoolTest.java - created Oct 18, 2026 5:33:20 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.decks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.ourbabywolf.apples2apples.GreenApple;
+import com.ourbabywolf.apples2apples.RedApple;
+
+/**
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class CompositeCardPoolTest {
+
+	private List<RedApple> createApples(String description, int size) {
+		List<RedApple> apples = new ArrayList<RedApple>();
+		for (int i = 0; i < size; ++i) {
+			apples.add(new RedApple(description + i));
+		}
+		return apples;
+	}
+
+	private CardPool<RedApple> createPool(String description, int size) {
+		return new ListBackedCardPool<RedApple>(description, createApples(description, size));
+	}
+
+	private CardPool<RedApple> createMappedPool(String description, int size) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryDeckWriter.write(description, "1st", createApples(description, size), 
+				new ArrayList<GreenApple>(), out);
+		return MappedCardPool.red(new BinaryDeckReader(ByteBuffer.wrap(out.toByteArray())), description);
+	}
+
+	@Test
+	public void testGet() {
+		List<CardPool<RedApple>> pools = new ArrayList<CardPool<RedApple>>();
+		pools.add(createPool("a", 3));
+		pools.add(createPool("empty", 0));
+		pools.add(createPool("b", 1));
+		pools.add(createPool("c", 2));
+		pools.add(createPool("last", 0));
+		CompositeCardPool<RedApple> pool = new CompositeCardPool<RedApple>(pools);
+		assertEquals("Sizes add up.", 6, pool.size());
+		assertEquals("Descriptions joined.", "a, empty, b, c, last", pool.getDescription());
+		int index = 0;
+		for (CardPool<RedApple> p : pools) {
+			for (int i = 0; i < p.size(); ++i) {
+				assertSame("Apples in pool order.", p.get(i), pool.get(index++));
+			}
+		}
+		try {
+			pool.get(6);
+			fail("Past the end.");
+		} catch (IndexOutOfBoundsException e) {
+			/* expected */
+		}
+	}
+
+	@Test
+	public void testDeck() {
+		List<CardPool<RedApple>> pools = new ArrayList<CardPool<RedApple>>();
+		pools.add(createPool("a", 2));
+		pools.add(createPool("b", 2));
+		PooledDeck<RedApple> deck = new PooledDeck<RedApple>(new CompositeCardPool<RedApple>(pools), true);
+		for (int i = 0; i < 10; ++i) {
+			assertEquals("Self-replenishing deck cycles through both sets.", 
+					(i % 4 < 2 ? "a" : "b") + (i % 2), deck.draw().getWord());
+		}
+	}
+
+	@Test
+	public void testIndexOf() {
+		List<CardPool<RedApple>> pools = new ArrayList<CardPool<RedApple>>();
+		pools.add(createPool("a", 3));
+		pools.add(createPool("empty", 0));
+		pools.add(createPool("b", 2));
+		CompositeCardPool<RedApple> pool = new CompositeCardPool<RedApple>(pools);
+		assertEquals("Found in the first pool.", 1, pool.indexOf(new RedApple("A1")));
+		assertEquals("Found after the others.", 4, pool.indexOf(pools.get(2).get(1)));
+		assertEquals("Not in any pool.", -1, pool.indexOf(new RedApple("c0")));
+	}
+
+	@Test
+	public void testIndexOfMappedPools() throws IOException {
+		final List<CardPool<RedApple>> children = new ArrayList<CardPool<RedApple>>();
+		children.add(createMappedPool("a", 100));
+		children.add(createMappedPool("b", 100));
+		final int[] created = new int[1];
+		List<CardPool<RedApple>> pools = new ArrayList<CardPool<RedApple>>();
+		for (final CardPool<RedApple> child : children) {
+			pools.add(new CardPool<RedApple>() {
+				public String getDescription() {
+					return child.getDescription();
+				}
+				public int size() {
+					return child.size();
+				}
+				public RedApple get(int index) {
+					++created[0];
+					return child.get(index);
+				}
+				public int indexOf(RedApple apple) {
+					return child.indexOf(apple);
+				}
+				public int indexOfOwn(RedApple apple) {
+					return child.indexOfOwn(apple);
+				}
+			});
+		}
+		CompositeCardPool<RedApple> pool = new CompositeCardPool<RedApple>(pools);
+		RedApple drawn = pool.get(150);
+		assertEquals("Drawn apple found where it was drawn.", 150, pool.indexOf(drawn));
+		assertEquals("Found by word.", 107, pool.indexOf(new RedApple("B7")));
+		assertEquals("Not in any pool.", -1, pool.indexOf(new RedApple("c0")));
+		assertEquals("Drawn apple is the pool's own.", 150, pool.indexOfOwn(drawn));
+		assertEquals("Equal apple isn't.", -1, pool.indexOfOwn(new RedApple("B50")));
+		assertEquals("Only the drawn apple was created.", 1, created[0]);
+		drawn.setQuip("changed");
+		assertEquals("Changed apple isn't.", -1, pool.indexOfOwn(drawn));
+	}
+}
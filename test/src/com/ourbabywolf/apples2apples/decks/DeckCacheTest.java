@@ -0,0 +1,131 @@
+/*
+ * DeckCacheTest.java - created Oct 18, 2026 3:10:44 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.decks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.ourbabywolf.apples2apples.RedApple;
+
+/**
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class DeckCacheTest {
+
+	private static final String RED_XML = "<?xml version=\"1.0\"?>"
+			+ "<redapples version=\"Test\" printing=\"1st\">"
+			+ "<red word=\"Aardvarks\">Termite eaters.</red>"
+			+ "<red word=\"Zebras\">Striped <i>horses</i>.</red>"
+			+ "</redapples>";
+
+	/** Serves the test XML and counts how often it's opened. */
+	private static class TestClassLoader extends ClassLoader {
+		private final AtomicInteger opened = new AtomicInteger();
+		@Override
+		public InputStream getResourceAsStream(String name) {
+			if (!name.startsWith("red-test")) {
+				return null;
+			}
+			opened.incrementAndGet();
+			try {
+				return new ByteArrayInputStream(RED_XML.getBytes("UTF-8"));
+			} catch (UnsupportedEncodingException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	@Test
+	public void testParsedOnce() {
+		TestClassLoader loader = new TestClassLoader();
+		DeckCache cache = new DeckCache(loader);
+		assertFalse("Nothing cached yet.", cache.contains("red-test.xml"));
+		CardPool<RedApple> pool = cache.getRedPool("red-test.xml");
+		assertEquals("Both apples parsed.", 2, pool.size());
+		assertEquals("Description from the file.", "Test (1st printing)", pool.getDescription());
+		assertSame("Same pool the second time.", pool, cache.getRedPool("red-test.xml"));
+		assertEquals("No green apples.", 0, cache.getGreenPool("red-test.xml").size());
+		assertEquals("File opened once.", 1, loader.opened.get());
+		assertEquals("One miss.", 1L, cache.getMisses());
+		assertEquals("Two hits.", 2L, cache.getHits());
+		assertTrue("Parse time recorded.", cache.getParseMillis("red-test.xml") >= 0);
+	}
+
+	@Test
+	public void testConcurrentLoad() throws Exception {
+		TestClassLoader loader = new TestClassLoader();
+		final DeckCache cache = new DeckCache(loader);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<CardPool<RedApple>>> pools = new ArrayList<Future<CardPool<RedApple>>>();
+		for (int i = 0; i < 32; ++i) {
+			pools.add(executor.submit(new Callable<CardPool<RedApple>>() {
+				public CardPool<RedApple> call() {
+					return cache.getRedPool("red-test.xml");
+				}
+			}));
+		}
+		CardPool<RedApple> first = pools.get(0).get();
+		for (Future<CardPool<RedApple>> pool : pools) {
+			assertSame("Every thread gets the same pool.", first, pool.get());
+		}
+		executor.shutdown();
+		assertEquals("File opened once.", 1, loader.opened.get());
+		assertEquals("One miss.", 1L, cache.getMisses());
+	}
+
+	@Test
+	public void testParallelPreload() {
+		TestClassLoader loader = new TestClassLoader();
+		DeckCache cache = new DeckCache(loader);
+		String[] files = new String[10];
+		for (int i = 0; i < files.length; ++i) {
+			files[i] = "red-test" + (i % 5) + ".xml";
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		cache.preload(executor, files);
+		assertEquals("Each distinct file parsed once.", 5, loader.opened.get());
+		assertEquals("Five files cached.", 5, cache.size());
+		assertEquals("Five hits for the repeats.", 5L, cache.getHits());
+		try {
+			cache.preload(executor, "red-test0.xml", "red-missing.xml", "red-test9.xml");
+			fail("Missing file should fail.");
+		} catch (RuntimeException e) {
+			assertTrue("Other files still loaded.", cache.contains("red-test9.xml"));
+			assertFalse("Failure isn't cached.", cache.contains("red-missing.xml"));
+		}
+		executor.shutdown();
+	}
+
+	@Test
+	public void testFailureNotCached() {
+		DeckCache cache = new DeckCache(new TestClassLoader());
+		for (int i = 0; i < 2; ++i) {
+			try {
+				cache.preload("red-missing.xml");
+				fail("Missing file should fail.");
+			} catch (RuntimeException e) {
+				assertFalse("Failure isn't cached.", cache.contains("red-missing.xml"));
+			}
+		}
+		assertEquals("Each attempt parses.", 2L, cache.getMisses());
+	}
+}
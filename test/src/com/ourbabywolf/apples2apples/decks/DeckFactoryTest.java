@@ -4,8 +4,12 @@
  */
 package com.ourbabywolf.apples2apples.decks;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.logging.Logger;
 
 import org.junit.Test;
@@ -202,4 +206,21 @@ public class DeckFactoryTest {
 		assertNotNull("Red Deck shouldn't be null.", red);
 		logRedDeck(red);
 	}
+
+	@Test
+	public void testSetsShareOnePool() {
+		List<DeckFactory.DeckSet> sets = Arrays.asList(DeckFactory.DeckSet.BASIC_2001, 
+				DeckFactory.DeckSet.EXPANSION1_2001);
+		PooledDeck<RedApple> red = (PooledDeck<RedApple>) DeckFactory.getRedDeck(sets, false);
+		PooledDeck<GreenApple> green = (PooledDeck<GreenApple>) DeckFactory.getGreenDeck(sets, false);
+		long misses = DeckFactory.getCache().getMisses();
+		assertSame("Red pool shared.", red.getPool(), 
+				((PooledDeck<RedApple>) DeckFactory.getRedDeck(sets, true)).getPool());
+		assertSame("Green pool shared.", green.getPool(), 
+				((PooledDeck<GreenApple>) DeckFactory.getGreenDeck(sets, true)).getPool());
+		assertEquals("Nothing loaded again.", misses, DeckFactory.getCache().getMisses());
+		assertEquals("Pool spans the sets.", DeckFactory.getRedPool(sets.get(0)).size() 
+				+ DeckFactory.getRedPool(sets.get(1)).size(), red.getPool().size());
+	}
+
 }
@@ -6,6 +6,8 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.HashSet;
+import java.util.Set;
 import java.util.logging.Logger;
 
 import org.junit.Test;
@@ -54,6 +56,95 @@ public class ListBackedDeckTest {
 		assertTrue("Deck should be exhausted.", deck.isExhausted());
 	}
 	
+	@Test
+	public void testDrainCombinedDeck() {
+		final int nbrOfDecks = 5;
+		final int applesPerDeck = 20000;
+		ListBackedDeck<RedApple> combined = new ListBackedDeck<RedApple>(false);
+		for (int d = 0; d < nbrOfDecks; ++d) {
+			ListBackedDeck<RedApple> expansion = new ListBackedDeck<RedApple>(false, applesPerDeck);
+			for (int i = 0; i < applesPerDeck; ++i) {
+				expansion.add(new RedApple("deck" + d + "word" + i));
+			}
+			combined.combine(expansion);
+			assertTrue("Combined deck should be exhausted.", expansion.isExhausted());
+		}
+		long start = System.currentTimeMillis();
+		for (int d = 0; d < nbrOfDecks; ++d) {
+			for (int i = 0; i < applesPerDeck; ++i) {
+				assertFalse("Deck shouldn't be exhausted.", combined.isExhausted());
+				assertEquals("Apples should be drawn in order.", "deck" + d + "word" + i, combined.draw().getWord());
+			}
+		}
+		log.fine("Drew " + (nbrOfDecks * applesPerDeck) + " apples in " + (System.currentTimeMillis() - start) + " ms.");
+		assertTrue("Deck should be exhausted.", combined.isExhausted());
+		assertNull("No apples left.", combined.draw());
+	}
+	
+	@Test
+	public void testShuffleAfterDraw() {
+		ListBackedDeck<RedApple> deck = new ListBackedDeck<RedApple>(false);
+		for (int i = 0; i < 10; ++i) {
+			deck.add(new RedApple("word" + i));
+		}
+		Set<String> drawn = new HashSet<String>();
+		for (int i = 0; i < 4; ++i) {
+			drawn.add(deck.draw().getWord());
+		}
+		deck.shuffle();
+		for (int i = 0; i < 6; ++i) {
+			assertTrue("Drawn apples shouldn't be shuffled back in.", drawn.add(deck.draw().getWord()));
+		}
+		assertTrue("Deck should be exhausted.", deck.isExhausted());
+		deck.add(new RedApple("word10"));
+		assertFalse("Added apple should refill the deck.", deck.isExhausted());
+		assertEquals("Added apple should be drawn.", "word10", deck.draw().getWord());
+	}
+	
+	@Test
+	public void testStressSelfReplenishing() {
+		final int size = 1000;
+		ListBackedDeck<RedApple> deck = new ListBackedDeck<RedApple>(true, size);
+		assertTrue("Empty deck should be exhausted.", deck.isExhausted());
+		assertNull("Empty deck has nothing to draw.", deck.draw());
+		for (int i = 0; i < size; ++i) {
+			deck.add(new RedApple("word" + i));
+		}
+		for (int pass = 0; pass < 50; ++pass) {
+			for (int i = 0; i < size; ++i) {
+				assertFalse("Deck shouldn't be exhausted.", deck.isExhausted());
+				assertEquals("Apples should come around in order.", "word" + i, deck.draw().getWord());
+			}
+		}
+		deck.shuffle();
+		Set<String> drawn = new HashSet<String>();
+		for (int i = 0; i < size; ++i) {
+			drawn.add(deck.draw().getWord());
+		}
+		assertEquals("A pass after shuffling should draw every apple once.", size, drawn.size());
+	}
+	
+	@Test
+	public void testStressNonSelfReplenishing() {
+		final int size = 1000;
+		ListBackedDeck<RedApple> deck = new ListBackedDeck<RedApple>(false, size);
+		for (int pass = 0; pass < 50; ++pass) {
+			for (int i = 0; i < size; ++i) {
+				deck.add(new RedApple("word" + i));
+			}
+			if (pass % 2 == 1) {
+				deck.shuffle();
+			}
+			Set<String> drawn = new HashSet<String>();
+			while (!deck.isExhausted()) {
+				assertTrue("Apples should only be drawn once.", drawn.add(deck.draw().getWord()));
+				assertFalse("Deck shouldn't be exhausted early.", drawn.size() < size && deck.isExhausted());
+			}
+			assertEquals("Every apple should be drawn.", size, drawn.size());
+			assertNull("Exhausted deck has nothing to draw.", deck.draw());
+		}
+	}
+	
 	@Test
 	public void testDescription() {
 		String description = "test";
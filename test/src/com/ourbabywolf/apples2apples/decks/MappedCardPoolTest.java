@@ -0,0 +1,106 @@
+/*
+ * MappedCardPoolTest.java - created Oct 18, 2026 4:44:20 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.decks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ourbabywolf.apples2apples.GreenApple;
+import com.ourbabywolf.apples2apples.RedApple;
+
+/**
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class MappedCardPoolTest {
+
+	private BinaryDeckReader reader;
+
+	@Before
+	public void setUp() throws IOException {
+		List<RedApple> red = new ArrayList<RedApple>();
+		for (int i = 0; i < 1000; ++i) {
+			RedApple apple = new RedApple("word" + i);
+			apple.setQuip("quip" + i);
+			red.add(apple);
+		}
+		List<GreenApple> green = new ArrayList<GreenApple>();
+		GreenApple absurd = new GreenApple("Absurd");
+		absurd.addSynonym("silly");
+		green.add(absurd);
+		green.add(new GreenApple("Bland"));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryDeckWriter.write("Test", "1st", red, green, out);
+		reader = new BinaryDeckReader(ByteBuffer.wrap(out.toByteArray()));
+	}
+
+	@Test
+	public void testLazyRedApples() {
+		CardPool<RedApple> pool = MappedCardPool.red(reader, "test");
+		assertEquals("Pool size", 1000, pool.size());
+		PooledDeck<RedApple> deck = new PooledDeck<RedApple>(pool, false);
+		for (int i = 0; i < pool.size(); ++i) {
+			MappedCardPool.LazyRedApple apple = (MappedCardPool.LazyRedApple) deck.draw();
+			assertEquals("Word decoded on draw.", "word" + i, apple.getWord());
+			assertFalse("Quip not decoded yet.", apple.isLoaded());
+			assertEquals("Quip decoded when asked for.", "quip" + i, apple.getQuip());
+			assertTrue("Quip decoded.", apple.isLoaded());
+		}
+		assertTrue("Deck should be exhausted.", deck.isExhausted());
+		assertEquals("Drawn apples equal the originals.", new RedApple("word7"), pool.get(7));
+	}
+
+	@Test
+	public void testLazyGreenApples() {
+		CardPool<GreenApple> pool = MappedCardPool.green(reader, "test");
+		assertEquals("Pool size", 2, pool.size());
+		MappedCardPool.LazyGreenApple absurd = (MappedCardPool.LazyGreenApple) pool.get(0);
+		assertFalse("Synonyms not decoded yet.", absurd.isLoaded());
+		assertTrue("Synonyms decoded when asked for.", absurd.getSynonyms().contains("silly"));
+		assertNull("No synonyms.", pool.get(1).getSynonyms());
+		GreenApple bland = pool.get(1);
+		bland.addSynonym("dull");
+		assertEquals("Synonym added after decoding.", 1, bland.getSynonyms().size());
+	}
+
+	@Test
+	public void testIndexOfCreatesNoApples() {
+		final CardPool<RedApple> red = MappedCardPool.red(reader, "test");
+		final int[] created = new int[1];
+		MappedCardPool<RedApple> pool = new MappedCardPool<RedApple>(reader, "test") {
+			public int size() {
+				return red.size();
+			}
+			public RedApple get(int index) {
+				++created[0];
+				return red.get(index);
+			}
+			protected String getWord(int index) {
+				return this.reader.getRedWord(index);
+			}
+			protected int getDrawnIndex(RedApple apple) {
+				return ((MappedCardPool<RedApple>) red).getDrawnIndex(apple);
+			}
+		};
+		MappedCardPool.LazyRedApple drawn = (MappedCardPool.LazyRedApple) pool.get(500);
+		assertEquals("Drawn apple found where it was drawn.", 500, pool.indexOf(drawn));
+		assertFalse("Quip not decoded to find it.", drawn.isLoaded());
+		assertEquals("Found by word.", 7, pool.indexOf(new RedApple("WORD7 ")));
+		assertEquals("Not in the pool.", -1, pool.indexOf(new RedApple("word1000")));
+		assertEquals("Found in another pool over the same deck.", 500, red.indexOf(drawn));
+		assertEquals("Only the drawn apple was created.", 1, created[0]);
+	}
+}
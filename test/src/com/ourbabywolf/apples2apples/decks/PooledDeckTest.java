@@ -0,0 +1,104 @@
+/*
+ * PooledDeckTest.java - created Oct 18, 2026 2:34:08 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.decks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ourbabywolf.apples2apples.RedApple;
+
+/**
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class PooledDeckTest {
+
+	private CardPool<RedApple> pool;
+
+	@Before
+	public void setUp() {
+		List<RedApple> apples = new ArrayList<RedApple>();
+		for (int i = 0; i < 100; ++i) {
+			apples.add(new RedApple("word" + i));
+		}
+		pool = new ListBackedCardPool<RedApple>("test", apples);
+	}
+
+	@Test
+	public void testSharedApples() {
+		PooledDeck<RedApple> deck1 = new PooledDeck<RedApple>(pool, false);
+		PooledDeck<RedApple> deck2 = new PooledDeck<RedApple>(pool, false);
+		assertEquals("Description comes from the pool.", "test", deck1.getDescription());
+		deck2.shuffle();
+		for (int i = 0; i < pool.size(); ++i) {
+			assertSame("Decks draw the pool's apples in order.", pool.get(i), deck1.draw());
+		}
+		assertTrue("First deck should be exhausted.", deck1.isExhausted());
+		assertFalse("Second deck is independent.", deck2.isExhausted());
+		Set<RedApple> drawn = new HashSet<RedApple>();
+		while (!deck2.isExhausted()) {
+			drawn.add(deck2.draw());
+		}
+		assertEquals("Shuffled deck still has every apple.", pool.size(), drawn.size());
+		assertNull("Exhausted deck has nothing to draw.", deck2.draw());
+	}
+
+	@Test
+	public void testSelfReplenishing() {
+		PooledDeck<RedApple> deck = new PooledDeck<RedApple>(pool, true);
+		for (int i = 0; i < pool.size() * 3; ++i) {
+			assertSame("Apples should come around in order.", pool.get(i % pool.size()), deck.draw());
+			assertFalse("Deck shouldn't be exhausted.", deck.isExhausted());
+		}
+	}
+
+	@Test
+	public void testShuffleAfterDraw() {
+		PooledDeck<RedApple> deck = new PooledDeck<RedApple>(pool, false);
+		Set<RedApple> drawn = new HashSet<RedApple>();
+		for (int i = 0; i < 40; ++i) {
+			drawn.add(deck.draw());
+		}
+		deck.shuffle();
+		while (!deck.isExhausted()) {
+			assertTrue("Drawn apples shouldn't be shuffled back in.", drawn.add(deck.draw()));
+		}
+		assertEquals("Every apple should be drawn once.", pool.size(), drawn.size());
+	}
+
+	@Test
+	public void testCombine() {
+		PooledDeck<RedApple> deck = new PooledDeck<RedApple>(pool, false);
+		PooledDeck<RedApple> other = new PooledDeck<RedApple>(pool, false);
+		for (int i = 0; i < 90; ++i) {
+			other.draw();
+		}
+		deck.combine(other);
+		assertTrue("Combined deck should be exhausted.", other.isExhausted());
+		ListBackedDeck<RedApple> foreign = new ListBackedDeck<RedApple>(false);
+		foreign.add(new RedApple("foreign"));
+		deck.combine(foreign);
+		assertTrue("Foreign deck should be exhausted.", foreign.isExhausted());
+		for (int i = 0; i < pool.size(); ++i) {
+			assertSame("Own apples come first.", pool.get(i), deck.draw());
+		}
+		for (int i = 90; i < pool.size(); ++i) {
+			assertSame("Combined apples come next.", pool.get(i), deck.draw());
+		}
+		assertEquals("Foreign apple comes last.", "foreign", deck.draw().getWord());
+		assertTrue("Deck should be exhausted.", deck.isExhausted());
+	}
+}
@@ -4,9 +4,17 @@
  */
 package com.ourbabywolf.apples2apples.decks;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
@@ -50,4 +58,65 @@ public class SAXApplesReaderTest {
 		}
 		
 	}
+	
+	@Test
+	public void testParseInline() throws Exception {
+		String xml = "<?xml version=\"1.0\"?>"
+				+ "<redapples version=\"Test\" printing=\"2nd\">"
+				+ "<red word=\" Aardvarks \">\n  Termite <i>eaters</i>.<br/>Really. \n</red>"
+				+ "<red word=\"Zebras\"></red>"
+				+ "<green word=\"Absurd\"> silly ,, ridiculous, ,\tzany , </green>"
+				+ "<green word=\"Bland\"></green>"
+				+ "</redapples>";
+		SAXApplesReader reader = new SAXApplesReader(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+		assertEquals("Version", "Test", reader.getVersion());
+		assertEquals("Printing", "2nd", reader.getPrinting());
+		assertEquals("Red apples", 2, reader.getRedApples().size());
+		RedApple aardvarks = reader.getRedApples().get(0);
+		assertEquals("Word is trimmed.", "Aardvarks", aardvarks.getWord());
+		assertEquals("Quip chunks are trimmed and markup kept.", "Termite<i>eaters</i>.<br/>Really.", aardvarks.getQuip());
+		assertEquals("Empty quip.", "", reader.getRedApples().get(1).getQuip());
+		GreenApple absurd = reader.getGreenApples().get(0);
+		assertEquals("Empty tokens are skipped and blank ones trimmed, as StringTokenizer did.", 
+				new HashSet<String>(Arrays.asList("silly", "ridiculous", "zany", "")), 
+				absurd.getSynonyms());
+		assertNull("No synonyms.", reader.getGreenApples().get(1).getSynonyms());
+	}
+	
+	@Test
+	public void testStream() throws Exception {
+		String xml = "<?xml version=\"1.0\"?>"
+				+ "<redapples version=\"Test\" printing=\"3rd\">"
+				+ "<red word=\"Aardvarks\">Termite eaters.</red>"
+				+ "<red word=\"Badgers\">Diggers.</red>"
+				+ "<red word=\"Zebras\">Striped.</red>"
+				+ "<green word=\"Absurd\">silly</green>"
+				+ "</redapples>";
+		final List<String> calls = new ArrayList<String>();
+		final ListBackedDeck<RedApple> deck = new ListBackedDeck<RedApple>(false);
+		final List<RedApple> dealt = new ArrayList<RedApple>();
+		SAXApplesReader.read(new ByteArrayInputStream(xml.getBytes("UTF-8")), new AppleConsumer() {
+			public void deckStarted(String version, String printing) {
+				calls.add(version + " " + printing);
+			}
+			public void redApple(RedApple apple) {
+				calls.add(apple.getWord());
+				/* Filter while parsing, and deal before the file is finished. */
+				if (!apple.getWord().startsWith("B")) {
+					deck.add(apple);
+				}
+				if (dealt.isEmpty()) {
+					dealt.add(deck.draw());
+				}
+			}
+			public void greenApple(GreenApple apple) {
+				calls.add(apple.getWord() + " " + apple.getSynonyms());
+			}
+		});
+		assertEquals("Apples are passed in order, as they're parsed.", 
+				Arrays.asList("Test 3rd", "Aardvarks", "Badgers", "Zebras", "Absurd [silly]"), calls);
+		assertEquals("First apple dealt during the parse.", "Aardvarks", dealt.get(0).getWord());
+		assertEquals("Filtered apple left out.", "Zebras", deck.draw().getWord());
+		assertTrue("Nothing else in the deck.", deck.isExhausted());
+	}
 }
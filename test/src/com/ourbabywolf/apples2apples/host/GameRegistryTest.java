@@ -0,0 +1,123 @@
+/*
+ * GameRegistryTest.java - created Oct 18, 2026 10:31:45 AM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.host;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ourbabywolf.apples2apples.BaseGameEventListener;
+import com.ourbabywolf.apples2apples.Game;
+import com.ourbabywolf.apples2apples.GreenApple;
+import com.ourbabywolf.apples2apples.RedApple;
+import com.ourbabywolf.apples2apples.decks.ListBackedDeck;
+
+/**
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class GameRegistryTest {
+
+	private GameRegistry registry;
+
+	private static Game newGame() {
+		ListBackedDeck<RedApple> red = new ListBackedDeck<RedApple>(true);
+		red.add(new RedApple("testnoun"));
+		ListBackedDeck<GreenApple> green = new ListBackedDeck<GreenApple>(true);
+		green.add(new GreenApple("testadjective"));
+		return new Game(new BaseGameEventListener(), red, green);
+	}
+
+	private static GameTask<Game.Result> join(final String id) {
+		return new GameTask<Game.Result>() {
+			public Game.Result execute(Game game) {
+				return game.join(id);
+			}
+		};
+	}
+
+	private static final GameTask<Integer> COUNT_PLAYERS = new GameTask<Integer>() {
+		public Integer execute(Game game) {
+			return game.getPlayers().size();
+		}
+	};
+
+	@Before
+	public void setUp() {
+		registry = new GameRegistry(4);
+	}
+
+	@After
+	public void tearDown() throws InterruptedException {
+		registry.shutdown();
+		assertTrue("Tasks should finish.", registry.awaitTermination(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testRegister() {
+		Game game = newGame();
+		assertTrue("Game can be registered.", registry.register("room1", game));
+		assertFalse("Id can't be reused.", registry.register("room1", newGame()));
+		assertTrue("Game is registered.", registry.contains("room1"));
+		assertEquals("One game.", 1, registry.size());
+		assertEquals("Game can be unregistered.", game, registry.unregister("room1"));
+		assertNull("Game is gone.", registry.unregister("room1"));
+		assertEquals("No games.", 0, registry.size());
+	}
+
+	@Test
+	public void testManyGames() throws Exception {
+		final int nbrOfGames = 500;
+		final int playersPerGame = 5;
+		for (int g = 0; g < nbrOfGames; ++g) {
+			registry.register("room" + g, newGame());
+		}
+		List<Future<Game.Result>> results = new ArrayList<Future<Game.Result>>();
+		for (int p = 0; p < playersPerGame; ++p) {
+			for (int g = 0; g < nbrOfGames; ++g) {
+				results.add(registry.submit("room" + g, join("player" + p)));
+			}
+		}
+		for (Future<Game.Result> result : results) {
+			assertEquals("Every join should succeed.", Game.Result.SUCCESS, result.get());
+		}
+		for (int g = 0; g < nbrOfGames; ++g) {
+			assertEquals("Every game should have all its players.",
+					Integer.valueOf(playersPerGame), registry.submit("room" + g, COUNT_PLAYERS).get());
+		}
+	}
+
+	@Test
+	public void testOrdering() throws Exception {
+		registry.register("room", newGame());
+		Future<Game.Result> first = registry.submit("room", join("joe"));
+		Future<Game.Result> second = registry.submit("room", join("joe"));
+		assertEquals("First join succeeds.", Game.Result.SUCCESS, first.get());
+		assertEquals("Second join runs after the first.", Game.Result.NO_EFFECT, second.get());
+	}
+
+	@Test
+	public void testUnknownGame() throws Exception {
+		try {
+			registry.submit("nowhere", COUNT_PLAYERS).get();
+			fail("Task for unknown game should fail.");
+		} catch (ExecutionException e) {
+			assertTrue("Cause should be an IllegalArgumentException.",
+					e.getCause() instanceof IllegalArgumentException);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * ChatCacheTest.java - created Oct 18, 2026 10:04:51 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.jabber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.jivesoftware.smack.Chat;
+import org.jivesoftware.smack.StubXMPPConnection;
+import org.jivesoftware.smack.StubXMPPConnection.StubChat;
+import org.junit.Test;
+
+/**
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class ChatCacheTest {
+
+	@Test
+	public void testHitsAndMisses() {
+		StubXMPPConnection conn = new StubXMPPConnection();
+		ChatCache cache = new ChatCache(10, 0);
+		Chat joe = cache.getChat("joe@ourbabywolf.com", conn);
+		assertSame("Cached.", joe, cache.getChat("joe@ourbabywolf.com", conn));
+		cache.getChat("katie@ourbabywolf.com", conn);
+		assertEquals("Two chats.", 2, cache.size());
+		assertEquals("One chat created per id.", 2, conn.getCreatedChats().size());
+		assertEquals("One hit.", 1L, cache.getHits());
+		assertEquals("Two misses.", 2L, cache.getMisses());
+		assertEquals("No evictions.", 0L, cache.getEvictions());
+	}
+
+	@Test
+	public void testSizeEviction() {
+		StubXMPPConnection conn = new StubXMPPConnection();
+		ChatCache cache = new ChatCache(2, 0);
+		StubChat joe = (StubChat)cache.getChat("joe", conn);
+		StubChat katie = (StubChat)cache.getChat("katie", conn);
+		/* Using Joe's chat makes Katie's the least recently used. */
+		cache.getChat("joe", conn);
+		StubChat caleb = (StubChat)cache.getChat("caleb", conn);
+		assertEquals("Held to the maximum size.", 2, cache.size());
+		assertEquals("One eviction.", 1L, cache.getEvictions());
+		assertTrue("Least recently used chat closed.", katie.isClosed());
+		assertFalse("Recently used chat kept.", joe.isClosed());
+		assertFalse("New chat kept.", caleb.isClosed());
+		assertSame("Joe's chat still cached.", joe, cache.getChat("joe", conn));
+		assertNotSame("Katie gets a new chat.", katie, cache.getChat("katie", conn));
+		assertEquals("Caleb's chat is now the least recently used.", 2L, cache.getEvictions());
+		assertTrue("Caleb's chat closed.", caleb.isClosed());
+	}
+
+	@Test
+	public void testIdleEviction() throws InterruptedException {
+		StubXMPPConnection conn = new StubXMPPConnection();
+		ChatCache cache = new ChatCache(10, 50);
+		StubChat joe = (StubChat)cache.getChat("joe", conn);
+		Thread.sleep(100);
+		StubChat katie = (StubChat)cache.getChat("katie", conn);
+		assertTrue("Idle chat closed on the next lookup.", joe.isClosed());
+		assertEquals("Idle chat evicted.", 1, cache.size());
+		assertEquals("One eviction.", 1L, cache.getEvictions());
+		assertEquals("Nothing else idle.", 0, cache.evictIdle());
+		Thread.sleep(100);
+		assertEquals("Katie's chat went idle.", 1, cache.evictIdle());
+		assertTrue("Katie's chat closed.", katie.isClosed());
+		assertEquals("Empty.", 0, cache.size());
+		assertEquals("Two evictions.", 2L, cache.getEvictions());
+	}
+
+	@Test
+	public void testClear() {
+		StubXMPPConnection conn = new StubXMPPConnection();
+		ChatCache cache = new ChatCache(10, 0);
+		StubChat joe = (StubChat)cache.getChat("joe", conn);
+		StubChat katie = (StubChat)cache.getChat("katie", conn);
+		cache.clear();
+		assertEquals("Empty.", 0, cache.size());
+		assertTrue("Chats closed.", joe.isClosed() && katie.isClosed());
+		assertEquals("Clearing isn't eviction.", 0L, cache.getEvictions());
+		assertNotSame("New chat after clearing.", joe, cache.getChat("joe", conn));
+		assertEquals("Counted as a miss.", 3L, cache.getMisses());
+	}
+
+}
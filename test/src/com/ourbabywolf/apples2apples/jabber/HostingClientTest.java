@@ -0,0 +1,132 @@
+/*
+ * HostingClientTest.java - created Oct 18, 2026 11:02:13 AM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.jabber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jivesoftware.smack.StubXMPPConnection;
+import org.junit.Test;
+
+/**
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class HostingClientTest {
+
+	/** Puts player n in game n % 3. */
+	private static final CommandRouter GAME_ROUTER = new CommandRouter() {
+		public Object getGameKey(String jabberId, String command) {
+			return "game" + (Integer.parseInt(jabberId.substring("player".length())) % 3);
+		}
+	};
+
+	/** Records the commands received from each jabber id. */
+	private static class RecordingProcessor implements CommandProcessor {
+		private final Map<String, List<String>> commands = new HashMap<String, List<String>>();
+		private final CountDownLatch latch;
+		private final Set<String> busyGames = new HashSet<String>();
+		private volatile boolean overlapped = false;
+		public RecordingProcessor(int expected) {
+			latch = new CountDownLatch(expected);
+		}
+		public void process(String jabberId, String command, HostingClient client) {
+			String game = GAME_ROUTER.getGameKey(jabberId, command).toString();
+			synchronized (busyGames) {
+				if (!busyGames.add(game)) {
+					overlapped = true;
+				}
+			}
+			Thread.yield();
+			synchronized (busyGames) {
+				busyGames.remove(game);
+			}
+			synchronized (commands) {
+				List<String> received = commands.get(jabberId);
+				if (received == null) {
+					received = new ArrayList<String>();
+					commands.put(jabberId, received);
+				}
+				received.add(command);
+			}
+			latch.countDown();
+		}
+	}
+
+	@Test
+	public void testInlineDispatch() {
+		RecordingProcessor processor = new RecordingProcessor(1);
+		HostingClient client = new HostingClient(processor);
+		client.dispatch("player0", "join");
+		assertEquals("Command processed immediately.", 1, processor.commands.get("player0").size());
+	}
+
+	@Test
+	public void testOrderedDispatch() throws InterruptedException {
+		final int nbrOfIds = 20;
+		final int commandsPerId = 50;
+		RecordingProcessor processor = new RecordingProcessor(nbrOfIds * commandsPerId);
+		HostingClient client = new HostingClient(processor, GAME_ROUTER, 4);
+		for (int c = 0; c < commandsPerId; ++c) {
+			for (int i = 0; i < nbrOfIds; ++i) {
+				client.dispatch("player" + i, "command" + c);
+			}
+		}
+		assertTrue("All commands should be processed.", processor.latch.await(10, TimeUnit.SECONDS));
+		client.shutdown();
+		assertFalse("A game's commands should never be processed at the same time.", processor.overlapped);
+		for (int i = 0; i < nbrOfIds; ++i) {
+			List<String> received = processor.commands.get("player" + i);
+			assertEquals("Every command should be received.", commandsPerId, received.size());
+			for (int c = 0; c < commandsPerId; ++c) {
+				assertEquals("Commands should be in order.", "command" + c, received.get(c));
+			}
+		}
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testDispatchNeedsRouter() {
+		new HostingClient(new RecordingProcessor(0), null, 2);
+	}
+
+	@Test
+	public void testShutdownProcessesReceivedCommands() {
+		final int nbrOfCommands = 20;
+		HostingClient client = new HostingClient(new CommandProcessor() {
+			public void process(String jabberId, String command, HostingClient client) {
+				try {
+					Thread.sleep(5);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				client.sendMessage(jabberId, "re: " + command);
+			}
+		}, CommandRouter.SINGLE_GAME, 2);
+		StubXMPPConnection conn = new StubXMPPConnection();
+		client.conn = conn;
+		client.setOutboundBatching(60000, 100);
+		for (int i = 0; i < nbrOfCommands; ++i) {
+			client.dispatch("player" + (i % 2), "command" + i);
+		}
+		client.shutdown();
+		assertTrue("Disconnected.", conn.isClosed());
+		List<String> sent = conn.getSentMessages();
+		int replies = 0;
+		for (String msg : sent) {
+			replies += msg.split("\n").length;
+		}
+		assertEquals("Every command's reply sent before disconnecting.", nbrOfCommands, replies);
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * OutboundMessageQueueTest.java - created Oct 18, 2026 12:21:37 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.jabber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class OutboundMessageQueueTest {
+
+	/** Records the messages sent. */
+	private static class RecordingSender implements OutboundMessageQueue.MessageSender {
+		private final List<String> sent = new ArrayList<String>();
+		public synchronized void send(String jabberId, String msg) {
+			sent.add(jabberId + ":" + msg);
+		}
+		public synchronized List<String> getSent() {
+			return new ArrayList<String>(sent);
+		}
+	}
+
+	@Test
+	public void testCoalescing() throws InterruptedException {
+		RecordingSender sender = new RecordingSender();
+		OutboundMessageQueue queue = new OutboundMessageQueue(sender, 60000, 100);
+		queue.enqueue("joe", "card 1");
+		queue.enqueue("katie", "card 1");
+		queue.enqueue("joe", "card 2");
+		queue.enqueue("joe", "card 3");
+		assertTrue("Queue should shut down.", queue.shutdown(10, TimeUnit.SECONDS));
+		List<String> sent = sender.getSent();
+		assertEquals("One message per jabber id.", 2, sent.size());
+		assertEquals("Joe's messages are joined in order.", "joe:card 1\ncard 2\ncard 3", sent.get(0));
+		assertEquals("Katie gets her own message.", "katie:card 1", sent.get(1));
+		assertEquals("Four messages queued.", 4L, queue.getMessagesQueued());
+		assertEquals("Two messages sent.", 2L, queue.getMessagesSent());
+	}
+
+	@Test
+	public void testMaxBatchSize() throws InterruptedException {
+		RecordingSender sender = new RecordingSender();
+		OutboundMessageQueue queue = new OutboundMessageQueue(sender, 60000, 3);
+		for (int i = 1; i <= 7; ++i) {
+			queue.enqueue("joe", "card " + i);
+		}
+		assertTrue("Queue should shut down.", queue.shutdown(10, TimeUnit.SECONDS));
+		List<String> sent = sender.getSent();
+		assertEquals("Messages are split by the batch size.", 3, sent.size());
+		assertEquals("First batch.", "joe:card 1\ncard 2\ncard 3", sent.get(0));
+		assertEquals("Second batch.", "joe:card 4\ncard 5\ncard 6", sent.get(1));
+		assertEquals("Remainder.", "joe:card 7", sent.get(2));
+	}
+
+	@Test
+	public void testPeriodicFlush() throws InterruptedException {
+		RecordingSender sender = new RecordingSender();
+		OutboundMessageQueue queue = new OutboundMessageQueue(sender, 10, 100);
+		queue.enqueue("joe", "hello");
+		long deadline = System.currentTimeMillis() + 10000;
+		while (sender.getSent().isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals("Message sent without shutting down.", "joe:hello", sender.getSent().get(0));
+		queue.shutdown(10, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testEnqueueAfterShutdown() throws InterruptedException {
+		RecordingSender sender = new RecordingSender();
+		OutboundMessageQueue queue = new OutboundMessageQueue(sender, 60000, 2);
+		queue.enqueue("joe", "card 1");
+		assertTrue("Queue should shut down.", queue.shutdown(10, TimeUnit.SECONDS));
+		assertTrue("Shut down.", queue.isShutdown());
+		queue.enqueue("joe", "card 2");
+		queue.enqueue("joe", "card 3");
+		assertTrue("Shutting down again is harmless.", queue.shutdown(10, TimeUnit.SECONDS));
+		List<String> sent = sender.getSent();
+		assertEquals("Late messages sent right away, not lost.", 3, sent.size());
+		assertEquals("Queued message first.", "joe:card 1", sent.get(0));
+		assertEquals("Then the late ones, in order.", "joe:card 2", sent.get(1));
+		assertEquals("Then the late ones, in order.", "joe:card 3", sent.get(2));
+		assertEquals("Every message counted.", 3L, queue.getMessagesQueued());
+		assertEquals("Every message counted.", 3L, queue.getMessagesSent());
+	}
+}
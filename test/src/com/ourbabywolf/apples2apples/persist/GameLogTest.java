@@ -0,0 +1,272 @@
+/*
+ * GameLogTest.java - created Oct 18, 2026 9:12:47 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.persist;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ourbabywolf.apples2apples.BaseGameEventListener;
+import com.ourbabywolf.apples2apples.BatchGameEventListener;
+import com.ourbabywolf.apples2apples.BatchingGameEventListener;
+import com.ourbabywolf.apples2apples.DefaultGameConfiguration;
+import com.ourbabywolf.apples2apples.Game;
+import com.ourbabywolf.apples2apples.GameEvent;
+import com.ourbabywolf.apples2apples.GameOperation;
+import com.ourbabywolf.apples2apples.GreenApple;
+import com.ourbabywolf.apples2apples.Player;
+import com.ourbabywolf.apples2apples.RedApple;
+import com.ourbabywolf.apples2apples.decks.CardPool;
+import com.ourbabywolf.apples2apples.decks.ListBackedCardPool;
+import com.ourbabywolf.apples2apples.decks.PooledDeck;
+
+/**
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class GameLogTest {
+
+	private CardPool<RedApple> redPool;
+	private CardPool<GreenApple> greenPool;
+	private GameSnapshotCodec codec;
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		List<RedApple> reds = new ArrayList<RedApple>();
+		for (int i = 0; i < 100; ++i) {
+			reds.add(new RedApple("red" + i));
+		}
+		List<GreenApple> greens = new ArrayList<GreenApple>();
+		for (int i = 0; i < 20; ++i) {
+			greens.add(new GreenApple("green" + i));
+		}
+		redPool = new ListBackedCardPool<RedApple>("test", reds);
+		greenPool = new ListBackedCardPool<GreenApple>("test", greens);
+		codec = new GameSnapshotCodec(redPool, greenPool);
+		file = File.createTempFile("game", ".log");
+		file.delete();
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	private Game createGame() {
+		return new Game(new BaseGameEventListener(), new DefaultGameConfiguration(),
+				new PooledDeck<RedApple>(redPool, true), new PooledDeck<GreenApple>(greenPool, true));
+	}
+
+	private void playRound(Game game) {
+		for (Player p : new ArrayList<Player>(game.getActivePlayersWhoHaveNotPlayedRedApples())) {
+			game.play(p, p.getAppleFromHand(0));
+		}
+		game.judge(game.getApplesToJudge().iterator().next());
+	}
+
+	private void assertSameState(Game expected, Game actual) {
+		assertEquals("Same rounds.", expected.getRoundsPlayed(), actual.getRoundsPlayed());
+		assertEquals("Same judge.", expected.getJudge(), actual.getJudge());
+		assertEquals("Same players.", expected.getPlayers(), actual.getPlayers());
+		assertEquals("Same banned.", expected.getBannedPlayerIds(), actual.getBannedPlayerIds());
+		assertEquals("Same apples to judge.", expected.getApplesToJudge().size(), actual.getApplesToJudge().size());
+		for (Player p : expected.getPlayers()) {
+			Player q = actual.getPlayer(p.getId());
+			assertEquals("Same nick.", p.getNick(), q.getNick());
+			assertEquals("Same hand.", p.getHand(), q.getHand());
+			assertEquals("Same points.", p.getGreenApples(), q.getGreenApples());
+			assertEquals("Same active.", p.isActive(), q.isActive());
+		}
+	}
+
+	@Test
+	public void testReplay() throws IOException {
+		Game game = createGame();
+		GameLog gameLog = new GameLog(file, codec);
+		game.setRecorder(gameLog);
+		game.join("joe");
+		game.join("katie", "Kate");
+		game.join("caleb");
+		playRound(game);
+		assertEquals("Nothing written until committed.", (long)GameLog.HEADER_SIZE, file.length());
+		gameLog.commit();
+		assertEquals("Committed.", 1L, gameLog.getCommitCount());
+		assertTrue("Written.", file.length() > GameLog.HEADER_SIZE);
+
+		/* Without a checkpoint, the operations are applied to a new game. */
+		Game replayed = createGame();
+		assertEquals("Operations replayed.", (int)gameLog.getOperationCount(),
+				new GameLogReplayer(codec).replay(file, replayed));
+		assertSameState(game, replayed);
+
+		gameLog.checkpoint(game.snapshot());
+		playRound(game);
+		game.banPlayer("joshua");
+		game.changePlayerNick(game.getPlayer("joe"), "Joe");
+		game.inactivatePlayer(game.getPlayer("katie"));
+		gameLog.close();
+		try {
+			gameLog.record(new GameOperation(GameOperation.Type.START_ROUND, null, null, false, 0, null));
+			fail("Closed log should throw.");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+
+		/* With one, only the operations since are applied, to a restored game. */
+		replayed = createGame();
+		replayed.join("someone");
+		assertEquals("Operations since the checkpoint replayed.", 6,
+				new GameLogReplayer(codec).replay(file, replayed));
+		assertSameState(game, replayed);
+
+		/* The log can be reopened and carried on with. */
+		gameLog = new GameLog(file, codec);
+		replayed.setRecorder(gameLog);
+		replayed.activatePlayer(replayed.getPlayer("katie"));
+		gameLog.close();
+		Game again = createGame();
+		assertEquals("One more operation.", 7,
+				new GameLogReplayer(codec).replay(file, again));
+		assertSameState(replayed, again);
+	}
+
+	@Test
+	public void testReplayIsSilent() throws IOException {
+		Game game = createGame();
+		GameLog gameLog = new GameLog(file, codec);
+		game.setRecorder(gameLog);
+		game.join("joe");
+		game.join("katie");
+		game.join("caleb");
+		playRound(game);
+		gameLog.close();
+
+		final List<GameEvent> delivered = new ArrayList<GameEvent>();
+		BatchingGameEventListener listener = new BatchingGameEventListener(new BatchGameEventListener() {
+			public void eventsFired(List<GameEvent> events) {
+				delivered.addAll(events);
+			}
+		});
+		Game replayed = new Game(listener, new DefaultGameConfiguration(),
+				new PooledDeck<RedApple>(redPool, true), new PooledDeck<GreenApple>(greenPool, true));
+		assertEquals("Every operation replayed.", (int)gameLog.getOperationCount(),
+				new GameLogReplayer(codec).replay(file, replayed));
+		assertSameState(game, replayed);
+		assertTrue("Nothing delivered during replay.", delivered.isEmpty());
+		assertEquals("Nothing left to deliver.", 0, listener.getPendingEvents());
+		assertFalse("Events no longer suppressed.", replayed.isEventsSuppressed());
+		replayed.join("joshua");
+		assertFalse("Delivered after replay.", delivered.isEmpty());
+	}
+
+	@Test
+	public void testTornRecord() throws IOException {
+		Game game = createGame();
+		GameLog gameLog = new GameLog(file, codec);
+		game.setRecorder(gameLog);
+		game.join("joe");
+		game.join("katie");
+		gameLog.close();
+		long length = file.length();
+
+		/* A crash while the next record was written. */
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.seek(length);
+		raf.writeInt(100);
+		raf.writeInt(12345);
+		raf.write(new byte[] {1, 2, 3});
+		raf.close();
+		assertEquals("Torn record ignored.", 2, new GameLogReplayer(codec).replay(file, createGame()));
+
+		gameLog = new GameLog(file, codec);
+		assertEquals("Torn record cut off.", length, file.length());
+		game.setRecorder(gameLog);
+		game.join("caleb");
+		gameLog.close();
+		Game replayed = createGame();
+		assertEquals("Appended after the intact records.", 3, new GameLogReplayer(codec).replay(file, replayed));
+		assertSameState(game, replayed);
+
+		/* A corrupted record ends the log. */
+		raf = new RandomAccessFile(file, "rw");
+		raf.seek(GameLog.HEADER_SIZE + GameLog.FRAME_HEADER_SIZE);
+		raf.write(raf.read() ^ 1);
+		raf.close();
+		assertEquals("Nothing intact.", 0, new GameLogReplayer(codec).replay(file, createGame()));
+	}
+
+	@Test
+	public void testGroupCommit() throws Exception {
+		Game game = createGame();
+		GameLog gameLog = new GameLog(file, codec, 64);
+		game.setRecorder(gameLog);
+		game.join("joe");
+		assertEquals("Waiting.", 0L, gameLog.getCommitCount());
+		for (int i = 0; i < 10; ++i) {
+			game.setPointsNeededToWin(i);
+		}
+		assertTrue("Committed when enough were waiting.", gameLog.getCommitCount() > 0);
+		assertTrue("Committed in groups.", gameLog.getCommitCount() < gameLog.getOperationCount());
+
+		gameLog.close();
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+		try {
+			gameLog = new GameLog(file, codec);
+			game.setRecorder(gameLog);
+			gameLog.scheduleCommits(executor, 10, TimeUnit.MILLISECONDS);
+			game.setPointsNeededToWin(-1);
+			for (int i = 0; i < 200 && gameLog.getCommitCount() == 0; ++i) {
+				Thread.sleep(10);
+			}
+			assertEquals("Committed on schedule.", 1L, gameLog.getCommitCount());
+			gameLog.close();
+			assertTrue("Closed.", gameLog.isClosed());
+			Thread.sleep(50);
+			assertEquals("Scheduled commits skip a closed log.", 1L, gameLog.getCommitCount());
+		} finally {
+			executor.shutdownNow();
+			gameLog.close();
+		}
+		Game replayed = createGame();
+		assertEquals("Every operation replayed.", 12, new GameLogReplayer(codec).replay(file, replayed));
+		assertEquals("Negative points replayed.", -1, replayed.getPointsNeededToWin());
+	}
+
+	@Test
+	public void testNotALog() throws IOException {
+		assertEquals("No log.", -1, new GameLogReplayer(codec).replay(file, createGame()));
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.writeLong(0L);
+		raf.close();
+		try {
+			new GameLog(file, codec);
+			fail("Not a game log.");
+		} catch (IOException e) {
+			// expected
+		}
+		try {
+			new GameLogReplayer(codec).replay(file, createGame());
+			fail("Not a game log.");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+}
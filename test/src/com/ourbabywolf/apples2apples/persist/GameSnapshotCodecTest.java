@@ -0,0 +1,261 @@
+/*
+ * GameSnapshotCodecTest.java - created Oct 18, 2026 7:41:12 PM
+ * $Id$
+ */
+package com.ourbabywolf.apples2apples.persist;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ourbabywolf.apples2apples.Apple;
+import com.ourbabywolf.apples2apples.BaseGameEventListener;
+import com.ourbabywolf.apples2apples.Cheater;
+import com.ourbabywolf.apples2apples.DefaultGameConfiguration;
+import com.ourbabywolf.apples2apples.Game;
+import com.ourbabywolf.apples2apples.GameSnapshot;
+import com.ourbabywolf.apples2apples.GreenApple;
+import com.ourbabywolf.apples2apples.Player;
+import com.ourbabywolf.apples2apples.RedApple;
+import com.ourbabywolf.apples2apples.decks.BinaryDeckReader;
+import com.ourbabywolf.apples2apples.decks.BinaryDeckWriter;
+import com.ourbabywolf.apples2apples.decks.CardPool;
+import com.ourbabywolf.apples2apples.decks.CompositeCardPool;
+import com.ourbabywolf.apples2apples.decks.ListBackedCardPool;
+import com.ourbabywolf.apples2apples.decks.MappedCardPool;
+import com.ourbabywolf.apples2apples.decks.PooledDeck;
+
+/**
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class GameSnapshotCodecTest {
+
+	private CardPool<RedApple> redPool;
+	private CardPool<GreenApple> greenPool;
+	private GameSnapshotCodec codec;
+	private int created;
+
+	@Before
+	public void setUp() {
+		List<RedApple> reds = new ArrayList<RedApple>();
+		for (int i = 0; i < 100; ++i) {
+			RedApple apple = new RedApple("red" + i);
+			apple.setQuip("quip" + i);
+			reds.add(apple);
+		}
+		List<GreenApple> greens = new ArrayList<GreenApple>();
+		for (int i = 0; i < 20; ++i) {
+			GreenApple apple = new GreenApple("green" + i);
+			apple.addSynonym("synonym" + i);
+			greens.add(apple);
+		}
+		redPool = new ListBackedCardPool<RedApple>("test", reds);
+		greenPool = new ListBackedCardPool<GreenApple>("test", greens);
+		codec = new GameSnapshotCodec(redPool, greenPool);
+	}
+
+	private BinaryDeckReader createBinaryDeck(String set, int reds, int greens) throws IOException {
+		List<RedApple> redApples = new ArrayList<RedApple>();
+		for (int i = 0; i < reds; ++i) {
+			RedApple apple = new RedApple(set + " red" + i);
+			apple.setQuip("quip" + i);
+			redApples.add(apple);
+		}
+		List<GreenApple> greenApples = new ArrayList<GreenApple>();
+		for (int i = 0; i < greens; ++i) {
+			GreenApple apple = new GreenApple(set + " green" + i);
+			apple.addSynonym("synonym" + i);
+			greenApples.add(apple);
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryDeckWriter.write(set, "1st", redApples, greenApples, out);
+		return new BinaryDeckReader(ByteBuffer.wrap(out.toByteArray()));
+	}
+
+	private <A extends Apple> CardPool<A> counted(final CardPool<A> pool) {
+		return new CardPool<A>() {
+			public String getDescription() {
+				return pool.getDescription();
+			}
+			public int size() {
+				return pool.size();
+			}
+			public A get(int index) {
+				++created;
+				return pool.get(index);
+			}
+			public int indexOf(A apple) {
+				return pool.indexOf(apple);
+			}
+			public int indexOfOwn(A apple) {
+				return pool.indexOfOwn(apple);
+			}
+		};
+	}
+
+	private Game createGame() {
+		return new Game(new BaseGameEventListener(), new DefaultGameConfiguration(), 
+				new PooledDeck<RedApple>(redPool, true), new PooledDeck<GreenApple>(greenPool, true));
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		Game game = createGame();
+		game.join("joe");
+		game.join("katie", "Kate");
+		game.join("caleb", null, true);
+		Cheater caleb = (Cheater)game.getPlayer("caleb");
+		game.banPlayer("joshua");
+		assertTrue("Round started.", game.isTimeToPlayRedApples());
+		RedApple offDeck = new RedApple("not in the pool");
+		offDeck.setQuip("made up");
+		caleb.addRedAppleToHand(offDeck);
+		RedApple changed = new RedApple("red1");
+		changed.setQuip("a different quip");
+		caleb.addRedAppleToHand(changed);
+		for (Player p : new ArrayList<Player>(game.getActivePlayersWhoHaveNotPlayedRedApples())) {
+			game.play(p, p.getAppleFromHand(0));
+		}
+		game.judge(game.getApplesToJudge().iterator().next());
+		
+		GameSnapshot snapshot = game.snapshot();
+		byte[] bytes = codec.encode(snapshot);
+		GameSnapshot decoded = codec.decode(bytes);
+		assertEquals("Same phase.", snapshot.getPhase(), decoded.getPhase());
+		assertEquals("Same suspended phase.", snapshot.getPreSuspendedPhase(), decoded.getPreSuspendedPhase());
+		assertEquals("Same rounds.", snapshot.getRoundsPlayed(), decoded.getRoundsPlayed());
+		assertEquals("Same points needed.", snapshot.getPointsNeededToWin(), decoded.getPointsNeededToWin());
+		assertEquals("Same judge.", snapshot.getJudgeId(), decoded.getJudgeId());
+		assertEquals("Same winners.", snapshot.getWinnerIds(), decoded.getWinnerIds());
+		assertEquals("Same banned.", snapshot.getBannedPlayerIds(), decoded.getBannedPlayerIds());
+		assertEquals("Same green apple.", snapshot.getGreenApple(), decoded.getGreenApple());
+		assertEquals("Same apples to judge.", snapshot.getApplesToJudge(), decoded.getApplesToJudge());
+		assertEquals("Same red deck.", snapshot.getRedDeck(), decoded.getRedDeck());
+		assertEquals("Same green deck.", snapshot.getGreenDeck(), decoded.getGreenDeck());
+		assertEquals("Same players.", snapshot.getPlayers().size(), decoded.getPlayers().size());
+		for (int i = 0; i < snapshot.getPlayers().size(); ++i) {
+			GameSnapshot.PlayerState expected = snapshot.getPlayers().get(i);
+			GameSnapshot.PlayerState actual = decoded.getPlayers().get(i);
+			assertEquals("Same id.", expected.getId(), actual.getId());
+			assertEquals("Same nick.", expected.getNick(), actual.getNick());
+			assertEquals("Same cheater.", expected.isCheater(), actual.isCheater());
+			assertEquals("Same active.", expected.isActive(), actual.isActive());
+			assertEquals("Same able to play.", expected.isAbleToPlay(), actual.isAbleToPlay());
+			assertEquals("Same rounds played.", expected.getRoundsPlayed(), actual.getRoundsPlayed());
+			assertEquals("Same hand.", expected.getHand(), actual.getHand());
+			assertEquals("Same points won.", expected.getGreenApples(), actual.getGreenApples());
+			assertEquals("Same winning apples.", expected.getWinningRedApples(), actual.getWinningRedApples());
+			assertEquals("Same points.", expected.getPoints(), actual.getPoints());
+			assertEquals("Same limit.", expected.getPointHistoryLimit(), actual.getPointHistoryLimit());
+			for (int j = 0; j < expected.getHand().size(); ++j) {
+				assertEquals("Same quip.", expected.getHand().get(j).getQuip(), actual.getHand().get(j).getQuip());
+			}
+		}
+		
+		/* Pooled apples are decoded as the pool's own apples; the others are inlined. */
+		List<RedApple> hand = decoded.getPlayers().get(2).getHand();
+		assertSame("Pooled apple.", redPool.get(redPool.indexOf(hand.get(0))), hand.get(0));
+		assertEquals("Inlined apple.", "made up", hand.get(hand.size() - 2).getQuip());
+		assertEquals("Changed apple keeps its quip.", "a different quip", hand.get(hand.size() - 1).getQuip());
+		assertTrue("Apples are encoded by index, not by word: " + bytes.length, bytes.length < 400);
+		
+		Game restored = createGame();
+		restored.restore(decoded);
+		assertEquals("Same players.", game.getPlayers(), restored.getPlayers());
+		assertEquals("Same judge.", game.getJudge(), restored.getJudge());
+		assertEquals("Same leaders.", game.getLeaderboard().getLeaders(), restored.getLeaderboard().getLeaders());
+		assertEquals("Nick restored.", "Kate", restored.getPlayer("katie").getNick());
+		assertEquals("Same hand.", game.getPlayer("caleb").getHand(), restored.getPlayer("caleb").getHand());
+	}
+
+	@Test
+	public void testMappedCompositeRoundTrip() throws IOException {
+		/* Pools put together the way DeckFactory does for several sets. */
+		List<CardPool<RedApple>> reds = new ArrayList<CardPool<RedApple>>();
+		List<CardPool<GreenApple>> greens = new ArrayList<CardPool<GreenApple>>();
+		for (String set : new String[] {"first", "second"}) {
+			BinaryDeckReader reader = createBinaryDeck(set, 500, 100);
+			reds.add(counted(MappedCardPool.red(reader, set)));
+			greens.add(counted(MappedCardPool.green(reader, set)));
+		}
+		redPool = new CompositeCardPool<RedApple>(reds);
+		greenPool = new CompositeCardPool<GreenApple>(greens);
+		codec = new GameSnapshotCodec(redPool, greenPool);
+		Game game = createGame();
+		game.join("joe");
+		game.join("katie");
+		game.join("caleb");
+		for (Player p : new ArrayList<Player>(game.getActivePlayersWhoHaveNotPlayedRedApples())) {
+			game.play(p, p.getAppleFromHand(0));
+		}
+		game.judge(game.getApplesToJudge().iterator().next());
+
+		created = 0;
+		byte[] bytes = codec.encode(game.snapshot());
+		assertEquals("No apples created to snapshot and encode the game.", 0, created);
+		assertTrue("Decks are encoded by index: " + bytes.length, bytes.length < 3000);
+
+		GameSnapshot decoded = codec.decode(bytes);
+		Game restored = createGame();
+		restored.restore(decoded);
+		assertTrue("Only the apples in play created to restore the game: " + created, created < 50);
+
+		assertEquals("Same players.", game.getPlayers(), restored.getPlayers());
+		assertEquals("Same judge.", game.getJudge(), restored.getJudge());
+		for (Player p : game.getPlayers()) {
+			List<RedApple> hand = restored.getPlayer(p.getId()).getHand();
+			assertEquals("Same hand.", p.getHand(), hand);
+			for (int i = 0; i < hand.size(); ++i) {
+				assertEquals("Same quip.", p.getHand().get(i).getQuip(), hand.get(i).getQuip());
+			}
+		}
+		GameSnapshot expected = game.snapshot();
+		GameSnapshot actual = restored.snapshot();
+		assertEquals("Same green apple.", expected.getGreenApple(), actual.getGreenApple());
+		assertEquals("Same red deck.", expected.getRedDeck(), actual.getRedDeck());
+		assertEquals("Same green deck.", expected.getGreenDeck(), actual.getGreenDeck());
+	}
+
+	@Test
+	public void testEmptyGame() throws IOException {
+		GameSnapshot snapshot = codec.decode(codec.encode(createGame().snapshot()));
+		assertEquals("No players.", 0, snapshot.getPlayers().size());
+		assertNull("No judge.", snapshot.getJudgeId());
+		assertNull("No green apple.", snapshot.getGreenApple());
+		assertEquals("Whole deck.", redPool.size(), snapshot.getRedDeck().size());
+	}
+
+	@Test
+	public void testCorrupt() {
+		byte[] bytes = codec.encode(createGame().snapshot());
+		bytes[0] ^= 1;
+		try {
+			codec.decode(bytes);
+			fail("Bad magic number should fail.");
+		} catch (IOException e) {
+			// expected
+		}
+		bytes = codec.encode(createGame().snapshot());
+		byte[] truncated = new byte[bytes.length / 2];
+		System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+		try {
+			codec.decode(truncated);
+			fail("Truncated snapshot should fail.");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * StubXMPPConnection.java - created Oct 18, 2026 9:58:14 PM
+ * $Id$
+ */
+package org.jivesoftware.smack;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jivesoftware.smack.filter.PacketFilter;
+import org.jivesoftware.smack.packet.Message;
+import org.jivesoftware.smack.packet.Packet;
+
+/**
+ * An XMPPConnection that never connects, for testing.  It lives in Smack's
+ * package for the sake of XMPPConnection's package-private constructor.
+ * The chats it creates remember whether they've been closed, and the
+ * messages sent are recorded rather than sent.
+ *
+ * @author joe@ourbabywolf.com
+ *
+ */
+public class StubXMPPConnection extends XMPPConnection {
+
+	/** A Chat that records being closed. */
+	public static class StubChat extends Chat {
+		private boolean closed = false;
+		StubChat(XMPPConnection connection, String participant) {
+			super(connection, participant);
+		}
+		@Override
+		public void finalize() {
+			closed = true;
+		}
+		public boolean isClosed() {
+			return closed;
+		}
+	}
+
+	/** The chats created, in order. */
+	private final List<StubChat> created = new ArrayList<StubChat>();
+
+	/** The messages sent, as "to:body". */
+	private final List<String> sent = new ArrayList<String>();
+
+	/** Whether the connection has been closed. */
+	private volatile boolean closed = false;
+
+	public StubXMPPConnection() {
+		super();
+	}
+
+	@Override
+	public synchronized Chat createChat(String participant) {
+		StubChat chat = new StubChat(this, participant);
+		created.add(chat);
+		return chat;
+	}
+
+	@Override
+	public PacketCollector createPacketCollector(PacketFilter filter) {
+		return null;
+	}
+
+	@Override
+	public synchronized void sendPacket(Packet packet) {
+		if (closed) {
+			throw new IllegalStateException("Not connected to server.");
+		}
+		sent.add(packet.getTo() + ":" + ((Message)packet).getBody());
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+	}
+
+	/**
+	 * @return the messages sent, as "to:body"
+	 */
+	public synchronized List<String> getSentMessages() {
+		return new ArrayList<String>(sent);
+	}
+
+	/**
+	 * @return whether the connection has been closed
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * @return the chats created, in order
+	 */
+	public List<StubChat> getCreatedChats() {
+		return created;
+	}
+
+}